@@ -0,0 +1,148 @@
+package com.safety.alerts.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safety.alerts.config.SyntheticDataGenerator;
+import com.safetynet.alerts.dto.ChildAlert;
+import com.safetynet.alerts.dto.FireResident;
+import com.safetynet.alerts.dto.FloodResident;
+import com.safetynet.alerts.dto.PersonInfo;
+import com.safetynet.alerts.dto.PhoneAlert;
+import com.safetynet.alerts.dto.StationAddress;
+import com.safetynet.alerts.service.FirestationService;
+import com.safetynet.alerts.service.PersonService;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Requêtes d'alerte de PersonService et FirestationService sur un jeu de données synthétique
+// Lancement : mvn -Pbenchmark verify -Djmh.args="AlertBenchmark -p persons=10000 -prof gc"
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class AlertBenchmark {
+    // nombre de requêtes différentes tournant en boucle, pour ne pas toujours toucher la même adresse
+    private static final int KEYS = 1024;
+
+    @Param({"10000", "100000", "1000000"})
+    public int persons;
+
+    // 0 : chaque appel recalcule la réponse (Caffeine évince aussitôt chaque entrée)
+    @Param({"0", "10000"})
+    public int alertCacheSize;
+
+    private Path dataFile;
+    private ConfigurableApplicationContext context;
+    private PersonService personService;
+    private FirestationService firestationService;
+    private ObjectMapper objectMapper;
+
+    private String[] addresses;
+    private String[] lastNames;
+    private int[] stations;
+    private List<List<Integer>> floodStations;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataFile = Files.createTempFile("safetynet-" + persons + "-", ".json");
+        SyntheticDataGenerator.write(dataFile, persons);
+        context = BenchmarkContexts.start(dataFile, "safetynet.alert-cache.maximum-size=" + alertCacheSize);
+        personService = context.getBean(PersonService.class);
+        firestationService = context.getBean(FirestationService.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+
+        int addressCount = SyntheticDataGenerator.addressCount(persons);
+        int stationCount = SyntheticDataGenerator.stationCount(persons);
+        addresses = new String[KEYS];
+        lastNames = new String[KEYS];
+        stations = new int[KEYS];
+        floodStations = new ArrayList<>(KEYS);
+        for (int k = 0; k < KEYS; k++) {
+            int addressIndex = (int) ((long) k * 7919 % addressCount);
+            addresses[k] = SyntheticDataGenerator.address(addressIndex);
+            lastNames[k] = SyntheticDataGenerator.lastName(addressIndex);
+            stations[k] = k % stationCount + 1;
+            floodStations.add(List.of(k % stationCount + 1, (k + 1) % stationCount + 1, (k + 2) % stationCount + 1));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        Files.deleteIfExists(dataFile);
+    }
+
+    private int next() {
+        cursor = (cursor + 1) & (KEYS - 1);
+        return cursor;
+    }
+
+    @Benchmark
+    public List<ChildAlert> childAlert() {
+        return personService.getChildrenByAddress(addresses[next()]);
+    }
+
+    @Benchmark
+    public List<PhoneAlert> phoneAlert() {
+        return personService.getPhoneNumbersByStation(stations[next()]);
+    }
+
+    @Benchmark
+    public List<FireResident> fire() {
+        return personService.getPersonsAndStationByAddress(addresses[next()]);
+    }
+
+    @Benchmark
+    public Map<String, List<FloodResident>> floodStations() {
+        return personService.getHouseholdsByStations(floodStations.get(next()));
+    }
+
+    @Benchmark
+    public List<PersonInfo> personInfo() {
+        return personService.getPersonInfoByLastName(lastNames[next()]);
+    }
+
+    // emails parcourus en flux ; la ville la plus peuplée compte persons / CITIES.length habitants
+    @Benchmark
+    public long communityEmail() {
+        long[] count = new long[1];
+        personService.streamCommunityEmailsByCity(SyntheticDataGenerator.CITIES[next() % SyntheticDataGenerator.CITIES.length],
+                emails -> count[0] = emails.count());
+        return count[0];
+    }
+
+    @Benchmark
+    public List<StationAddress> firestationCoverage() {
+        return firestationService.getPersonsCoveredByStation(stations[next()]);
+    }
+
+    // réponse flood sérialisée avec l'ObjectMapper des contrôleurs, comme écrite sur la socket
+    @Benchmark
+    public byte[] floodStationsJson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(personService.getHouseholdsByStations(floodStations.get(next())));
+    }
+}
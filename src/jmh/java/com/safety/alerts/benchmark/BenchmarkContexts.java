@@ -0,0 +1,65 @@
+package com.safety.alerts.benchmark;
+
+import com.safetynet.alerts.SafetynetAlertsApplication;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+
+// Démarre l'application sur un fichier de données donné, sans serveur web ou avec Tomcat sur un port libre
+final class BenchmarkContexts {
+
+    private BenchmarkContexts() {
+    }
+
+    static ConfigurableApplicationContext start(Path dataFile, String... properties) {
+        return run(WebApplicationType.NONE, dataFile, properties);
+    }
+
+    // le port choisi est lu ensuite avec port(context)
+    static ConfigurableApplicationContext startWeb(Path dataFile, String... properties) {
+        String[] withPort = Arrays.copyOf(properties, properties.length + 1);
+        withPort[properties.length] = "server.port=0";
+        return run(WebApplicationType.SERVLET, dataFile, withPort);
+    }
+
+    static int port(ConfigurableApplicationContext context) {
+        return context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+    }
+
+    // passées en arguments de ligne de commande : des propriétés par défaut seraient masquées par application.properties
+    private static ConfigurableApplicationContext run(WebApplicationType type, Path dataFile, String... properties) {
+        String[] all = new String[properties.length + 3];
+        all[0] = "safetynet.data.location=file:" + dataFile.toAbsolutePath();
+        all[1] = "logging.level.root=WARN";
+        all[2] = "spring.main.banner-mode=off";
+        System.arraycopy(properties, 0, all, 3, properties.length);
+        String[] args = new String[all.length];
+        for (int i = 0; i < all.length; i++) {
+            args[i] = "--" + all[i];
+        }
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(SafetynetAlertsApplication.class)
+                .web(type)
+                .run(args);
+        checkApplied(context, all);
+        return context;
+    }
+
+    // un réglage masqué fausserait la mesure sans erreur visible : le contexte est refusé
+    private static void checkApplied(ConfigurableApplicationContext context, String[] properties) {
+        for (String property : properties) {
+            int separator = property.indexOf('=');
+            String key = property.substring(0, separator);
+            String expected = property.substring(separator + 1);
+            String actual = context.getEnvironment().getProperty(key);
+            if (!expected.equals(actual)) {
+                context.close();
+                throw new IllegalStateException("Propriété de benchmark ignorée : " + key + "=" + actual
+                        + " au lieu de " + expected);
+            }
+        }
+    }
+}
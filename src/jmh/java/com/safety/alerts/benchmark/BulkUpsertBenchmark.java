@@ -0,0 +1,105 @@
+package com.safety.alerts.benchmark;
+
+import com.safety.alerts.config.SyntheticDataGenerator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Écriture de persons nouvelles personnes sur l'application lancée avec Tomcat
+// mode=single : un POST /person par personne ; mode=batch : un seul POST /person/batch en NDJSON
+// Lancement : mvn -Pbenchmark verify -Djmh.args="BulkUpsertBenchmark -p persons=10000"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class BulkUpsertBenchmark {
+
+    @Param({"single", "batch"})
+    public String mode;
+
+    @Param({"10000"})
+    public int persons;
+
+    private Path dataFile;
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String base;
+    private int iteration;
+    private List<String> bodies;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataFile = Files.createTempFile("safetynet-bulk-", ".json");
+        SyntheticDataGenerator.write(dataFile, 1000);
+        context = BenchmarkContexts.startWeb(dataFile);
+        base = "http://localhost:" + BenchmarkContexts.port(context);
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    // noms propres à chaque itération : chaque mesure crée des lignes, comme les POST unitaires
+    @Setup(Level.Iteration)
+    public void prepareBodies() {
+        iteration++;
+        bodies = new ArrayList<>(persons);
+        for (int i = 0; i < persons; i++) {
+            bodies.add("{\"firstName\":\"Bulk" + i + "\",\"lastName\":\"Iteration" + iteration
+                    + "\",\"address\":\"" + i % 500 + " Bulk St\",\"city\":\"Culver\",\"zip\":\"97451\""
+                    + ",\"phone\":\"841-874-0000\",\"email\":\"bulk" + i + "@email.com\"}");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        Files.deleteIfExists(dataFile);
+    }
+
+    @Benchmark
+    public int upsert() throws IOException, InterruptedException {
+        if ("batch".equals(mode)) {
+            return send("/person/batch", "application/x-ndjson", String.join("\n", bodies));
+        }
+        int total = 0;
+        for (String body : bodies) {
+            total += send("/person", "application/json", body);
+        }
+        return total;
+    }
+
+    private int send(String path, String contentType, String body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(base + path))
+                .header("Content-Type", contentType)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(path + " : HTTP " + response.statusCode());
+        }
+        return response.body().length();
+    }
+}
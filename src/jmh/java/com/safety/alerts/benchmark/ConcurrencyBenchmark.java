@@ -0,0 +1,140 @@
+package com.safety.alerts.benchmark;
+
+import com.safety.alerts.config.SyntheticDataGenerator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.runner.IterationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// Rafale de requêtes fire et flood/stations simultanées sur l'application lancée avec Tomcat
+// mode=platform : référence, 200 threads Tomcat de plateforme fixés explicitement
+// mode=virtual-threads : profil du même nom ; refusé sur un JVM de fork antérieur à Java 21, qui servirait en réalité
+// sur des threads de plateforme et publierait la référence sous le nom du nouveau mode
+// Chaque mesure est le temps de la rafale complète ; les percentiles de latence par requête sont affichés en fin d'essai
+// Lancement : mvn -Pbenchmark verify -Djmh.args="ConcurrencyBenchmark -p clients=5000" (ulimit -n supérieur à clients)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ConcurrencyBenchmark {
+
+    @Param({"platform", "virtual-threads"})
+    public String mode;
+
+    @Param({"5000"})
+    public int clients;
+
+    @Param({"100000"})
+    public int persons;
+
+    private Path dataFile;
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private List<URI> uris;
+    private final List<Long> latencies = new ArrayList<>();
+    private boolean measuring;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        if (!"platform".equals(mode) && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("mode=" + mode + " nécessite un JVM de fork Java 21+, pas " + Runtime.version());
+        }
+        dataFile = Files.createTempFile("safetynet-concurrency-" + persons + "-", ".json");
+        SyntheticDataGenerator.write(dataFile, persons);
+        // sans cache, chaque requête passe par la base comme lors d'une tempête sur des adresses variées
+        context = "platform".equals(mode)
+                ? BenchmarkContexts.startWeb(dataFile, "safetynet.alert-cache.maximum-size=0",
+                        "spring.threads.virtual.enabled=false", "server.tomcat.threads.max=200")
+                : BenchmarkContexts.startWeb(dataFile, "safetynet.alert-cache.maximum-size=0",
+                        "spring.profiles.active=" + mode, "spring.threads.virtual.enabled=true");
+        String base = "http://localhost:" + BenchmarkContexts.port(context);
+
+        int addressCount = SyntheticDataGenerator.addressCount(persons);
+        int stationCount = SyntheticDataGenerator.stationCount(persons);
+        uris = new ArrayList<>(clients);
+        for (int c = 0; c < clients; c++) {
+            if (c % 2 == 0) {
+                String address = SyntheticDataGenerator.address((int) ((long) c * 7919 % addressCount));
+                uris.add(URI.create(base + "/person/fire?address=" + URLEncoder.encode(address, StandardCharsets.UTF_8)));
+            } else {
+                int station = c % stationCount + 1;
+                uris.add(URI.create(base + "/person/flood/stations?stations=" + station + "," + (station % stationCount + 1)));
+            }
+        }
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    // seules les rafales mesurées comptent dans les percentiles
+    @Setup(Level.Iteration)
+    public void startIteration(IterationParams params) {
+        measuring = params.getType() == IterationType.MEASUREMENT;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        List<Long> sorted = new ArrayList<>(latencies);
+        sorted.sort(null);
+        if (!sorted.isEmpty()) {
+            System.out.printf("%n[%s, %d clients] latency ms p50=%.1f p99=%.1f p99.9=%.1f max=%.1f%n", mode, clients,
+                    percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 0.999),
+                    sorted.get(sorted.size() - 1) / 1e6);
+        }
+        context.close();
+        Files.deleteIfExists(dataFile);
+    }
+
+    private static double percentile(List<Long> sorted, double p) {
+        return sorted.get((int) Math.min(sorted.size() - 1, Math.ceil(p * sorted.size()) - 1)) / 1e6;
+    }
+
+    // renvoie le nombre de réponses en erreur, qui doit rester nul pour que la mesure ait un sens
+    @Benchmark
+    public long burst() {
+        List<CompletableFuture<long[]>> responses = new ArrayList<>(clients);
+        for (URI uri : uris) {
+            long start = System.nanoTime();
+            responses.add(client.sendAsync(HttpRequest.newBuilder(uri).GET().build(), HttpResponse.BodyHandlers.discarding())
+                    .thenApply(response -> new long[]{System.nanoTime() - start, response.statusCode()}));
+        }
+        long errors = 0;
+        for (CompletableFuture<long[]> response : responses) {
+            long[] result = response.join();
+            if (measuring) {
+                latencies.add(result[0]);
+            }
+            if (result[1] != 200) {
+                errors++;
+            }
+        }
+        return errors;
+    }
+}
@@ -0,0 +1,81 @@
+package com.safety.alerts.benchmark;
+
+import com.safety.alerts.config.SyntheticDataGenerator;
+import com.safetynet.alerts.dto.FloodResident;
+import com.safetynet.alerts.service.AlertCache;
+import com.safetynet.alerts.service.PersonService;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+// flood/stations sur toutes les stations à la fois (inondation régionale), réponse recalculée à chaque appel
+// parallelism=1 : référence, les paquets d'adresses sont construits l'un après l'autre dans le thread appelant
+// le gain attendu suit le nombre de cœurs : comparer les valeurs de parallelism sur une machine multi-cœur
+// Lancement : mvn -Pbenchmark verify -Djmh.args="FloodBenchmark -p persons=100000"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class FloodBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int persons;
+
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    private Path dataFile;
+    private ConfigurableApplicationContext context;
+    private PersonService personService;
+    private AlertCache alertCache;
+    private List<Integer> allStations;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataFile = Files.createTempFile("safetynet-flood-" + persons + "-", ".json");
+        SyntheticDataGenerator.write(dataFile, persons);
+        context = BenchmarkContexts.start(dataFile, "safetynet.flood.parallelism=" + parallelism);
+        personService = context.getBean(PersonService.class);
+        alertCache = context.getBean(AlertCache.class);
+        allStations = IntStream.rangeClosed(1, SyntheticDataGenerator.stationCount(persons)).boxed().toList();
+    }
+
+    // la même requête revient à chaque appel : le cache est vidé pour mesurer le calcul
+    @Setup(Level.Invocation)
+    public void clearCache() {
+        alertCache.invalidateAll();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        Files.deleteIfExists(dataFile);
+    }
+
+    @Benchmark
+    public Map<String, List<FloodResident>> allStations() {
+        return personService.getHouseholdsByStations(allStations);
+    }
+}
@@ -0,0 +1,125 @@
+package com.safety.alerts.benchmark;
+
+import com.safety.alerts.config.SyntheticDataGenerator;
+import com.safetynet.alerts.config.DataLoader;
+import com.safetynet.alerts.config.DataSnapshot;
+import com.safetynet.alerts.config.DataSync;
+import com.safetynet.alerts.repository.FirestationRepository;
+import com.safetynet.alerts.repository.MedicalRecordRepository;
+import com.safetynet.alerts.repository.PersonRepository;
+import com.safetynet.alerts.service.ReadModel;
+import jakarta.persistence.EntityManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Temps de chargement complet d'un fichier de données dans une base H2 vide
+// load=baseline : référence d'avant les séquences, ids IDENTITY (voir META-INF/identity-ids.xml) et un INSERT par aller-retour
+// load=batched : JSON inséré avec des ids tirés de séquences et des lots JDBC de 100, la configuration de l'application
+// load=snapshot : même configuration, l'instantané binaire écrit pour ce fichier est relu au lieu d'analyser le JSON
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class LoadBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int persons;
+
+    @Param({"baseline", "batched", "snapshot"})
+    public String load;
+
+    private Path dataFile;
+    private Path emptyFile;
+    private Path snapshotFile;
+    private ConfigurableApplicationContext context;
+    private DataLoader loader;
+
+    @Setup(Level.Trial)
+    public void generate() throws IOException {
+        dataFile = Files.createTempFile("safetynet-load-" + persons + "-", ".json");
+        SyntheticDataGenerator.write(dataFile, persons);
+        emptyFile = Files.createTempFile("safetynet-empty-", ".json");
+        Files.writeString(emptyFile, "{}");
+        snapshotFile = Files.createTempFile("safetynet-load-" + persons + "-", ".snapshot");
+        Files.delete(snapshotFile);
+        if (load.equals("snapshot")) {
+            // instantané écrit une fois, depuis une base chargée par le JSON
+            startContext();
+            loader.loadData();
+            loader.saveSnapshot();
+            stopContext();
+        }
+    }
+
+    // base neuve pour chaque mesure
+    @Setup(Level.Invocation)
+    public void startContext() {
+        String database = "spring.datasource.url=jdbc:h2:mem:" + UUID.randomUUID();
+        context = load.equals("baseline")
+                ? BenchmarkContexts.start(emptyFile, database,
+                        "spring.jpa.mapping-resources=META-INF/identity-ids.xml",
+                        "spring.jpa.properties.hibernate.jdbc.batch_size=1",
+                        "spring.jpa.properties.hibernate.order_inserts=false",
+                        "spring.jpa.properties.hibernate.order_updates=false")
+                : BenchmarkContexts.start(emptyFile, database,
+                        "spring.jpa.properties.hibernate.jdbc.batch_size=100",
+                        "spring.jpa.properties.hibernate.order_inserts=true",
+                        "spring.jpa.properties.hibernate.order_updates=true");
+        // une surcharge XML ignorée mesurerait la configuration actuelle sous le nom de la référence
+        String identity = context.getBean(JdbcTemplate.class).queryForObject("select is_identity from information_schema.columns "
+                + "where table_name = 'PERSON' and column_name = 'ID'", String.class);
+        if (load.equals("baseline") != "YES".equals(identity)) {
+            context.close();
+            throw new IllegalStateException("Ids de person : is_identity=" + identity + " pour load=" + load);
+        }
+        loader = new DataLoader(context.getBean(PersonRepository.class), context.getBean(FirestationRepository.class),
+                context.getBean(MedicalRecordRepository.class), context.getBean(ReadModel.class),
+                new FileSystemResource(dataFile), 1000, 3, context,
+                new DataSnapshot(context.getBean(PersonRepository.class), context.getBean(FirestationRepository.class),
+                        context.getBean(MedicalRecordRepository.class), context.getBean(PlatformTransactionManager.class),
+                        context.getBean(JdbcTemplate.class), context.getBean(EntityManager.class),
+                        snapshotFile.toString()),
+                context.getBean(DataSync.class));
+    }
+
+    @TearDown(Level.Invocation)
+    public void stopContext() {
+        context.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFiles() throws IOException {
+        Files.deleteIfExists(dataFile);
+        Files.deleteIfExists(emptyFile);
+        Files.deleteIfExists(snapshotFile);
+    }
+
+    @Benchmark
+    public void loadData() {
+        loader.loadData();
+    }
+}
@@ -0,0 +1,117 @@
+package com.safety.alerts.benchmark;
+
+import com.safetynet.alerts.config.InfoSamplingFilter;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Coût des messages d'un appel de service (un INFO, un DEBUG désactivé) vu des threads des requêtes
+// sync : écriture du fichier par le thread appelant ; async : AsyncAppender de logback-spring.xml ;
+// async-sampled : en plus, un INFO sur 100 gardé comme avec safetynet.logging.info-sample-rate=100
+// Lancement : mvn -Pbenchmark verify -Djmh.args="LoggingBenchmark"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class LoggingBenchmark {
+
+    @Param({"sync", "async", "async-sampled"})
+    public String mode;
+
+    private Path logFile;
+    private LoggerContext context;
+    private Logger logger;
+    private final AtomicLong ids = new AtomicLong();
+    private final List<String> persons = List.of("John", "Jacob", "Tenley");
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        logFile = Files.createTempFile("safetynet-logging-", ".log");
+        context = new LoggerContext();
+
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p [%15.15t] %-40.40logger{39} : %m%n");
+        encoder.start();
+        FileAppender<ILoggingEvent> file = new FileAppender<>();
+        file.setContext(context);
+        file.setFile(logFile.toString());
+        file.setEncoder(encoder);
+        file.start();
+
+        Appender<ILoggingEvent> appender = file;
+        if (!"sync".equals(mode)) {
+            AsyncAppender async = new AsyncAppender();
+            async.setContext(context);
+            async.setQueueSize(8192);
+            async.addAppender(file);
+            async.start();
+            appender = async;
+        }
+        if ("async-sampled".equals(mode)) {
+            InfoSamplingFilter sampling = new InfoSamplingFilter();
+            sampling.addMessage("Fetching person with id: {}");
+            sampling.setRate(100);
+            sampling.start();
+            context.addTurboFilter(sampling);
+        }
+
+        Logger root = context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        root.setLevel(ch.qos.logback.classic.Level.INFO);
+        root.addAppender(appender);
+        logger = context.getLogger("com.safetynet.alerts.service.PersonService");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.stop();
+        Files.deleteIfExists(logFile);
+    }
+
+    @Benchmark
+    public void serviceCall() {
+        long id = ids.incrementAndGet();
+        logger.info("Fetching person with id: {}", id);
+        logger.atDebug().addArgument(persons::size).log("Number of persons fetched: {}");
+    }
+
+    // DEBUG désactivé : l'argument n'est pas calculé ; comparer avec debugEager
+    @Benchmark
+    public void debugLazy() {
+        logger.atDebug().addArgument(persons::toString).log("Persons fetched: {}");
+    }
+
+    @Benchmark
+    public void debugEager() {
+        logger.debug("Persons fetched: {}", persons.toString());
+    }
+}
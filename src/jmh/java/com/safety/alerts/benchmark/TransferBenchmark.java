@@ -0,0 +1,122 @@
+package com.safety.alerts.benchmark;
+
+import com.safety.alerts.config.SyntheticDataGenerator;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Débit de GET /admin/export et POST /admin/import en NDJSON sur l'application lancée avec Tomcat
+// Le compteur megabytes donne directement des Mo/s (ops/s = Mo transférés par seconde)
+// direction=import relit l'export pris au démarrage : les lignes existent déjà, c'est le coût du rapprochement et
+// des modifications qui est mesuré, comme lors d'une synchronisation entre deux nœuds
+// Lancement : mvn -Pbenchmark verify -Djmh.args="TransferBenchmark -p persons=100000"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class TransferBenchmark {
+
+    @Param({"export", "import"})
+    public String direction;
+
+    @Param({"100000"})
+    public int persons;
+
+    private Path dataFile;
+    private Path exportFile;
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private URI exportUri;
+    private URI importUri;
+
+    // volume transféré pendant l'itération
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Transferred {
+        public double megabytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            megabytes = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        dataFile = Files.createTempFile("safetynet-transfer-" + persons + "-", ".json");
+        SyntheticDataGenerator.write(dataFile, persons);
+        context = BenchmarkContexts.startWeb(dataFile);
+        String base = "http://localhost:" + BenchmarkContexts.port(context);
+        exportUri = URI.create(base + "/admin/export");
+        importUri = URI.create(base + "/admin/import");
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        exportFile = Files.createTempFile("safetynet-transfer-" + persons + "-", ".ndjson");
+        client.send(HttpRequest.newBuilder(exportUri).build(), HttpResponse.BodyHandlers.ofFile(exportFile));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        Files.deleteIfExists(dataFile);
+        Files.deleteIfExists(exportFile);
+    }
+
+    @Benchmark
+    public long transfer(Transferred transferred) throws IOException, InterruptedException {
+        long bytes = "export".equals(direction) ? export() : importExport();
+        transferred.megabytes += bytes / 1_000_000.0;
+        return bytes;
+    }
+
+    // le corps est lu et jeté au fil de l'eau, sans être gardé côté client
+    private long export() throws IOException, InterruptedException {
+        HttpResponse<InputStream> response = client.send(HttpRequest.newBuilder(exportUri).build(),
+                HttpResponse.BodyHandlers.ofInputStream());
+        long bytes = 0;
+        byte[] buffer = new byte[65536];
+        try (InputStream in = response.body()) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                bytes += read;
+            }
+        }
+        return bytes;
+    }
+
+    private long importExport() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(importUri)
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofFile(exportFile))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("/admin/import : HTTP " + response.statusCode());
+        }
+        return Files.size(exportFile);
+    }
+}
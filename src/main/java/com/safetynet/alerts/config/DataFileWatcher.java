@@ -0,0 +1,156 @@
+package com.safetynet.alerts.config;
+
+import com.safetynet.alerts.service.AlertCache;
+import com.safetynet.alerts.service.ReadModel;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Recharge le fichier de données à chaud dès qu'il est modifié ou remplacé, sans redémarrer l'application
+// Le fichier est lu et comparé sur le thread de surveillance, tout l'écart est appliqué en une seule transaction
+// (voir DataSync) : les lectures CRUD ne voient jamais un rechargement à moitié appliqué, et un échec annule tout,
+// base, modèle de lecture et somme de contrôle restant sur la version précédente
+// Couverture et modèle de lecture sont ensuite reconstruits et publiés ensemble : les alertes continuent d'être servies
+// par l'ancien instantané pendant toute la relecture et ne touchent jamais la base
+@Component
+public class DataFileWatcher {
+    private static final Logger logger = LoggerFactory.getLogger(DataFileWatcher.class);
+
+    private final Resource dataFile;
+    private final DataLoader dataLoader;
+    private final DataSync dataSync;
+    private final ReadModel readModel;
+    private final AlertCache alertCache;
+    private final boolean enabled;
+    private final Duration debounce;
+
+    private WatchService watchService;
+    private Thread thread;
+
+    public DataFileWatcher(@Value("${safetynet.data.location:classpath:data.json}") Resource dataFile,
+                           DataLoader dataLoader, DataSync dataSync, ReadModel readModel, AlertCache alertCache,
+                           @Value("${safetynet.data.watch:false}") boolean enabled,
+                           @Value("${safetynet.data.watch-debounce:500ms}") Duration debounce) {
+        this.dataFile = dataFile;
+        this.dataLoader = dataLoader;
+        this.dataSync = dataSync;
+        this.readModel = readModel;
+        this.alertCache = alertCache;
+        this.enabled = enabled;
+        this.debounce = debounce;
+    }
+
+    // démarrée une fois le chargement initial terminé
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() throws IOException {
+        if (!enabled || thread != null) {
+            return;
+        }
+        Optional<Path> file = file();
+        if (file.isEmpty()) {
+            logger.warn("Surveillance ignorée : {} n'est pas un fichier local", dataFile.getDescription());
+            return;
+        }
+        Path directory = file.get().getParent();
+        watchService = FileSystems.getDefault().newWatchService();
+        // le dossier est surveillé : un fichier remplacé par renommage reste détecté
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        thread = new Thread(() -> watch(file.get().getFileName()), "data-file-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        logger.info("Surveillance de {} pour rechargement à chaud", file.get());
+    }
+
+    @PreDestroy
+    public synchronized void stop() throws IOException {
+        if (watchService != null) {
+            // débloque le thread en attente d'un événement
+            watchService.close();
+            thread.interrupt();
+            watchService = null;
+            thread = null;
+        }
+    }
+
+    private Optional<Path> file() {
+        try {
+            return dataFile.isFile() ? Optional.of(dataFile.getFile().toPath().toAbsolutePath()) : Optional.empty();
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    private void watch(Path fileName) {
+        WatchService service = watchService;
+        try {
+            while (true) {
+                if (!changed(service.take(), fileName)) {
+                    continue;
+                }
+                // une écriture en plusieurs fois produit plusieurs événements : on attend que le fichier se stabilise
+                WatchKey next;
+                while ((next = service.poll(debounce.toMillis(), TimeUnit.MILLISECONDS)) != null) {
+                    changed(next, fileName);
+                }
+                try {
+                    reload();
+                } catch (Exception e) {
+                    // fichier invalide ou incomplet : la base et les alertes restent sur la version précédente
+                    logger.error("❌ Rechargement de {} impossible : {}", dataFile.getDescription(), e.getMessage(), e);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            logger.debug("Surveillance du fichier de données arrêtée");
+        }
+    }
+
+    private static boolean changed(WatchKey key, Path fileName) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            changed |= event.kind() == StandardWatchEventKinds.OVERFLOW || fileName.equals(event.context());
+        }
+        key.reset();
+        return changed;
+    }
+
+    // applique le fichier s'il diffère du contenu chargé ; vide si rien n'a été rechargé
+    public synchronized Optional<DataSync.Result> reload() throws IOException {
+        Long loaded = dataLoader.getLoadedChecksum();
+        if (loaded == null) {
+            logger.warn("Rechargement ignoré : le chargement initial n'a pas abouti");
+            return Optional.empty();
+        }
+        long checksum = DataSnapshot.checksum(dataFile);
+        if (checksum == loaded) {
+            return Optional.empty();
+        }
+        DataSync.Result result = dataSync.apply(dataFile);
+        if (dataSync.isPersistent()) {
+            dataSync.recordImport(dataFile.getDescription(), checksum);
+        }
+        // habitants et couverture publiés en un seul instantané : sa nouvelle version écarte d'un coup les réponses
+        // en cache calculées sur l'ancien, le vidage qui suit ne fait que libérer la mémoire
+        readModel.rebuild();
+        alertCache.invalidateAll();
+        dataLoader.setLoadedChecksum(checksum);
+        logger.info("🔄 {} rechargé à chaud", dataFile.getDescription());
+        return Optional.of(result);
+    }
+}
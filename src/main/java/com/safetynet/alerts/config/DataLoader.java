@@ -1,76 +1,298 @@
 package com.safetynet.alerts.config;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.safetynet.alerts.model.Firestation;
 import com.safetynet.alerts.model.MedicalRecord;
 import com.safetynet.alerts.model.Person;
 import com.safetynet.alerts.repository.FirestationRepository;
 import com.safetynet.alerts.repository.MedicalRecordRepository;
 import com.safetynet.alerts.repository.PersonRepository;
+import com.safetynet.alerts.service.ReadModel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.LivenessState;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.ContextClosedEvent;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.context.event.EventListener;
-import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 @Component
 public class DataLoader {
     private static final Logger logger = LoggerFactory.getLogger(DataLoader.class);
+    private static final List<String> SNAPSHOT_SECTIONS = List.of("persons", "firestations", "medicalrecords");
 
     private final PersonRepository personRepository;
     private final FirestationRepository firestationRepository;
     private final MedicalRecordRepository medicalRecordRepository;
+    private final ReadModel readModel;
+    private final Resource dataFile;
+    private final int batchSize;
+    private final int loaderThreads;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DataSnapshot dataSnapshot;
+    private final DataSync dataSync;
+    // somme de contrôle du fichier chargé, null tant que le chargement n'a pas abouti
+    private volatile Long loadedChecksum;
 
     // Constructeur qui injecte les dépendances 
     public DataLoader(PersonRepository personRepository, FirestationRepository firestationRepository,
-                      MedicalRecordRepository medicalRecordRepository) {
+                      MedicalRecordRepository medicalRecordRepository, ReadModel readModel,
+                      @Value("${safetynet.data.location:classpath:data.json}") Resource dataFile,
+                      @Value("${safetynet.data.batch-size:1000}") int batchSize,
+                      @Value("${safetynet.data.loader-threads:3}") int loaderThreads,
+                      ApplicationEventPublisher eventPublisher, DataSnapshot dataSnapshot,
+                      DataSync dataSync) {
         this.personRepository = personRepository;
         this.firestationRepository = firestationRepository;
         this.medicalRecordRepository = medicalRecordRepository;
+        this.readModel = readModel;
+        this.dataFile = dataFile;
+        this.batchSize = batchSize;
+        this.loaderThreads = loaderThreads;
+        this.eventPublisher = eventPublisher;
+        this.dataSnapshot = dataSnapshot;
+        this.dataSync = dataSync;
     }
 
     // Charge les données initiales depuis le fichier JSON
+    // Le fichier est lu en flux : chaque élément est désérialisé une seule fois puis enregistré par lots,
+    // la mémoire utilisée ne dépend pas de la taille du fichier
+    // Les sections sont des tables indépendantes : chacune est lue et enregistrée sur son propre thread,
+    // l'application refuse le trafic tant que toutes ne sont pas enregistrées
+    // Un instantané binaire écrit pour le même fichier est relu à la place du JSON (voir DataSnapshot)
+    // Avec une base persistante déjà remplie, le fichier n'est relu que s'il a changé, et seul l'écart est écrit (voir DataSync)
+    // Un chargement en échec fait échouer le démarrage : l'application ne reste pas à refuser le trafic indéfiniment
     @EventListener(ContextRefreshedEvent.class)
     public void loadData() {
-        logger.info("🚀 Chargement des données depuis data.json...");
-        
-        // instanciation de ObjetMapper pour manipuler JSON avec Jackson 
-        ObjectMapper objectMapper = new ObjectMapper();
+        logger.info("🚀 Chargement des données depuis {}...", dataFile.getDescription());
+        AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
 
         try {
-            // Ouverture puis lecture du fichier JSON
-            InputStream inputStream = new ClassPathResource("data.json").getInputStream();
-            JsonNode rootNode = objectMapper.readTree(inputStream);
-
-            // Charger les personnes
-            List<Person> persons = objectMapper.readValue(rootNode.get("persons").toString(),
-                    new TypeReference<List<Person>>() {});
-            personRepository.saveAll(persons);
-            logger.info("✅ {} personnes chargées", persons.size());
-
-            // Charger les casernes de pompiers
-            List<Firestation> firestations = objectMapper.readValue(rootNode.get("firestations").toString(),
-                    new TypeReference<List<Firestation>>() {});
-            firestationRepository.saveAll(firestations);
-            logger.info("✅ {} casernes de pompiers chargées", firestations.size());
-
-            // Charger les dossiers médicaux
-            List<MedicalRecord> medicalRecords = objectMapper.readValue(rootNode.get("medicalrecords").toString(),
-                    new TypeReference<List<MedicalRecord>>() {});
-            medicalRecordRepository.saveAll(medicalRecords);
-            logger.info("✅ {} dossiers médicaux chargés", medicalRecords.size());
+            long checksum = DataSnapshot.checksum(dataFile);
+            String source = dataFile.getDescription();
+            if (dataSync.isPersistent() && dataSync.hasData()) {
+                // base conservée depuis le démarrage précédent : seul l'écart avec le fichier est appliqué
+                if (dataSync.isUpToDate(source, checksum)) {
+                    logger.info("✅ Fichier de données inchangé depuis le dernier import, base conservée telle quelle");
+                } else {
+                    dataSync.apply(dataFile);
+                }
+            } else {
+                importAll(checksum);
+            }
+            if (dataSync.isPersistent()) {
+                dataSync.recordImport(source, checksum);
+            }
 
+            // les sections sont chargées en parallèle : le modèle de lecture et la couverture sont construits une fois toutes terminées
+            readModel.rebuild();
+            loadedChecksum = checksum;
             logger.info("🎉 Toutes les données ont été chargées avec succès !");
+            AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.ACCEPTING_TRAFFIC);
             
             // gestion des erreurs
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("❌ Chargement des données interrompu", e);
+            throw loadFailed(e);
         } catch (Exception e) {
             logger.error("❌ Erreur lors du chargement des données : {}", e.getMessage(), e);
+            throw loadFailed(e);
+        }
+    }
+
+    // application hors service : l'exception remonte du rafraîchissement du contexte et arrête le démarrage
+    private IllegalStateException loadFailed(Exception cause) {
+        AvailabilityChangeEvent.publish(eventPublisher, this, LivenessState.BROKEN);
+        return new IllegalStateException("Chargement des données impossible depuis " + dataFile.getDescription(), cause);
+    }
+
+    // import complet dans une base vide, depuis l'instantané binaire s'il correspond au fichier, sinon depuis le JSON
+    private void importAll(long checksum) throws Exception {
+        // instanciation de ObjetMapper pour manipuler JSON avec Jackson 
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        Optional<DataSnapshot.Contents> snapshot = dataSnapshot.open(checksum);
+        Map<String, Long> offsets = snapshot.isPresent() ? Map.of() : sections(objectMapper);
+        List<String> sections = snapshot.isPresent() ? SNAPSHOT_SECTIONS : List.copyOf(offsets.keySet());
+        snapshot.ifPresent(contents -> logger.info("⚡ Données relues depuis l'instantané binaire"));
+
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (String section : sections) {
+            switch (section) {
+                case "persons" -> tasks.add(() -> {
+                    // Charger les personnes
+                    int count = snapshot.isPresent()
+                            ? snapshot.get().forEachPersonBatch(batchSize, dataSnapshot::insertPersons)
+                            : loadSection(objectMapper, section, offsets.get(section), Person.class, personRepository::saveAll);
+                    logger.info("✅ {} personnes chargées", count);
+                    return null;
+                });
+                case "firestations" -> tasks.add(() -> {
+                    // Charger les casernes de pompiers
+                    int count = snapshot.isPresent()
+                            ? snapshot.get().forEachFirestationBatch(batchSize, dataSnapshot::insertFirestations)
+                            : loadSection(objectMapper, section, offsets.get(section), Firestation.class, firestationRepository::saveAll);
+                    logger.info("✅ {} casernes de pompiers chargées", count);
+                    return null;
+                });
+                case "medicalrecords" -> tasks.add(() -> {
+                    // Charger les dossiers médicaux
+                    int count = snapshot.isPresent()
+                            ? snapshot.get().forEachMedicalRecordBatch(batchSize, dataSnapshot::insertMedicalRecords)
+                            : loadSection(objectMapper, section, offsets.get(section), MedicalRecord.class, medicalRecordRepository::saveAll);
+                    logger.info("✅ {} dossiers médicaux chargés", count);
+                    return null;
+                });
+                default -> logger.warn("Section inconnue ignorée : {}", section);
+            }
+        }
+
+        if (tasks.isEmpty()) {
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(loaderThreads, tasks.size()), loaderThreadFactory());
+        try {
+            // attend la fin de toutes les sections, même si l'une d'elles échoue
+            for (Future<Void> result : executor.invokeAll(tasks)) {
+                try {
+                    result.get();
+                } catch (ExecutionException e) {
+                    throw e.getCause() instanceof Exception cause ? cause : e;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        // lignes restaurées avec leurs ids : les prochains ids partent au-delà
+        if (snapshot.isPresent()) {
+            dataSnapshot.restartSequences();
+        }
+    }
+
+    // somme de contrôle du contenu présent en base (null tant que le chargement n'a pas abouti)
+    public Long getLoadedChecksum() {
+        return loadedChecksum;
+    }
+
+    // après un rechargement à chaud du fichier (voir DataFileWatcher)
+    public void setLoadedChecksum(long checksum) {
+        loadedChecksum = checksum;
+    }
+
+    // écrit l'état courant de la base pour le prochain démarrage (à l'arrêt ou à la demande)
+    public Path saveSnapshot() throws IOException {
+        Long checksum = loadedChecksum;
+        if (!dataSnapshot.isEnabled() || checksum == null) {
+            throw new IllegalStateException("Aucun instantané à écrire : instantanés désactivés ou données non chargées");
+        }
+        return dataSnapshot.save(checksum);
+    }
+
+    // les mutations faites depuis le démarrage sont conservées dans l'instantané
+    @EventListener(ContextClosedEvent.class)
+    public void saveSnapshotOnShutdown() {
+        if (!dataSnapshot.isEnabled() || loadedChecksum == null) {
+            return;
+        }
+        try {
+            saveSnapshot();
+        } catch (Exception e) {
+            logger.error("❌ Erreur lors de l'écriture de l'instantané : {}", e.getMessage(), e);
+        }
+    }
+
+    // un seul parcours du fichier : position (en octets) du début de chaque section, sans désérialiser leur contenu
+    private Map<String, Long> sections(ObjectMapper objectMapper) throws IOException {
+        Map<String, Long> offsets = new LinkedHashMap<>();
+        // le parser ferme le flux du fichier avec lui
+        try (JsonParser parser = objectMapper.getFactory().createParser(dataFile.getInputStream())) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Le fichier de données doit contenir un objet JSON");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                parser.nextToken();
+                long offset = parser.currentTokenLocation().getByteOffset();
+                if (offset < 0) {
+                    throw new IOException("Le fichier de données doit être encodé en UTF-8");
+                }
+                offsets.put(name, offset);
+                parser.skipChildren();
+            }
+        }
+        return offsets;
+    }
+
+    // chaque section rouvre le fichier directement à sa position : aucune autre section n'est relue
+    private <T> int loadSection(ObjectMapper objectMapper, String section, long offset, Class<T> type,
+                                Consumer<List<T>> sink) throws IOException {
+        InputStream input = dataFile.getInputStream();
+        try {
+            input.skipNBytes(offset);
+        } catch (IOException e) {
+            input.close();
+            throw e;
+        }
+        try (JsonParser parser = objectMapper.getFactory().createParser(input)) {
+            parser.nextToken();
+            return loadSection(parser, section, objectMapper, type, sink);
+        }
+    }
+
+    private static ThreadFactory loaderThreadFactory() {
+        AtomicInteger threads = new AtomicInteger();
+        return runnable -> new Thread(runnable, "data-loader-" + threads.incrementAndGet());
+    }
+
+    // lit un tableau JSON élément par élément et transmet des lots d'au plus batchSize éléments
+    private <T> int loadSection(JsonParser parser, String section, ObjectMapper objectMapper, Class<T> type,
+                                Consumer<List<T>> sink) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            throw new IOException("La section " + section + " doit être un tableau");
+        }
+        ObjectReader reader = objectMapper.readerFor(type);
+        List<T> batch = new ArrayList<>(batchSize);
+        int count = 0;
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            batch.add(reader.readValue(parser));
+            count++;
+            if (batch.size() == batchSize) {
+                sink.accept(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (parser.currentToken() != JsonToken.END_ARRAY) {
+            throw new IOException("Élément inattendu dans la section : " + parser.currentToken());
+        }
+        if (!batch.isEmpty()) {
+            sink.accept(batch);
         }
+        return count;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,483 @@
+package com.safetynet.alerts.config;
+
+import com.safetynet.alerts.model.Firestation;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.FirestationRepository;
+import com.safetynet.alerts.repository.MedicalRecordRepository;
+import com.safetynet.alerts.repository.PersonRepository;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.ToLongFunction;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.zip.CRC32C;
+
+// Instantané binaire des personnes, casernes et dossiers, relu au démarrage à la place du fichier JSON
+// Format (entiers big-endian) :
+//   en-tête : MAGIC, VERSION, somme de contrôle du fichier source (long)
+//   dictionnaire : nombre de chaînes, puis chaque chaîne UTF-8 précédée de sa longueur
+//   une table par section : nombre de lignes, la colonne des ids (long) puis une colonne après l'autre,
+//   chaque valeur texte étant l'indice de la chaîne dans le dictionnaire (-1 pour null)
+// Villes, adresses, noms ou allergies répétés ne sont écrits qu'une fois
+// Les tables sont relues page par page dans l'ordre des ids : seules les colonnes d'indices restent en mémoire
+// Les lignes sont restaurées avec leurs ids (voir insert*) : un client ou un curseur de pagination
+// garde ses références d'un démarrage à l'autre
+@Component
+public class DataSnapshot {
+    private static final Logger logger = LoggerFactory.getLogger(DataSnapshot.class);
+    static final int MAGIC = 0x53414C54; // "SALT"
+    static final int VERSION = 2;
+    private static final int NULL = -1;
+    private static final int PAGE_SIZE = 1000;
+    // allocationSize des séquences des entités
+    private static final int ID_ALLOCATION = 100;
+
+    private final PersonRepository personRepository;
+    private final FirestationRepository firestationRepository;
+    private final MedicalRecordRepository medicalRecordRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final Path file; // null si les instantanés sont désactivés
+
+    public DataSnapshot(PersonRepository personRepository, FirestationRepository firestationRepository,
+                        MedicalRecordRepository medicalRecordRepository, PlatformTransactionManager transactionManager,
+                        JdbcTemplate jdbcTemplate, EntityManager entityManager,
+                        @Value("${safetynet.snapshot.location:}") String location) {
+        this.personRepository = personRepository;
+        this.firestationRepository = firestationRepository;
+        this.medicalRecordRepository = medicalRecordRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        this.file = location == null || location.isBlank() ? null : Path.of(location);
+    }
+
+    public boolean isEnabled() {
+        return file != null;
+    }
+
+    // somme de contrôle du fichier source : un instantané écrit pour un autre contenu est ignoré
+    public static long checksum(Resource source) throws IOException {
+        CRC32C crc = new CRC32C();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = source.getInputStream()) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, read);
+            }
+        }
+        return crc.getValue();
+    }
+
+    // instantané utilisable pour cette somme de contrôle ; vide s'il est absent, périmé ou illisible
+    public Optional<Contents> open(long checksum) {
+        if (file == null || !Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        try (FileChannel channel = FileChannel.open(file)) {
+            // la projection reste valide après la fermeture du canal
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                logger.warn("Instantané {} ignoré : format inconnu", file);
+                return Optional.empty();
+            }
+            if (buffer.getLong() != checksum) {
+                logger.info("Instantané {} périmé : le fichier de données a changé", file);
+                return Optional.empty();
+            }
+            return Optional.of(new Contents(buffer));
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Instantané {} illisible : {}", file, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    // écrit l'état courant de la base ; le fichier est remplacé d'un bloc une fois complet
+    public Path save(long checksum) throws IOException {
+        if (file == null) {
+            throw new IllegalStateException("Instantanés désactivés (safetynet.snapshot.location)");
+        }
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        Table persons = new Table(dictionary, 7, 0);
+        forEachPage(personRepository::findByIdGreaterThanOrderByIdAsc, Person::getId, person -> persons.add(
+                person.getId(), person.getFirstName(), person.getLastName(), person.getAddress(), person.getCity(),
+                person.getZip(), person.getPhone(), person.getEmail()));
+        Table firestations = new Table(dictionary, 1, 0);
+        forEachPage(firestationRepository::findByIdGreaterThanOrderByIdAsc, Firestation::getId, firestation -> {
+            firestations.add(firestation.getId(), firestation.getAddress());
+            firestations.number(firestation.getStation());
+        });
+        Table records = new Table(dictionary, 3, 2);
+        forEachPage(medicalRecordRepository::findByIdGreaterThanOrderByIdAsc, MedicalRecord::getId, record -> {
+            records.add(record.getId(), record.getFirstName(), record.getLastName(), record.getBirthdate());
+            records.list(0, record.getMedications());
+            records.list(1, record.getAllergies());
+        });
+
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(checksum);
+                out.writeInt(dictionary.size());
+                for (String value : dictionary.keySet()) {
+                    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                }
+                persons.write(out);
+                firestations.write(out);
+                records.write(out);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        logger.info("Instantané écrit dans {} ({} personnes, {} casernes, {} dossiers)", file,
+                persons.rows, firestations.rows, records.rows);
+        return file;
+    }
+
+    // parcours d'une table dans l'ordre des ids, une transaction de lecture par page
+    // la page est lâchée avant la suivante, même dans le contexte de persistance d'une requête (open-in-view)
+    private <T> void forEachPage(BiFunction<Long, Limit, List<T>> page, ToLongFunction<T> id, Consumer<T> row) {
+        long after = Long.MIN_VALUE;
+        while (true) {
+            long from = after;
+            Long last = readOnlyTransaction.execute(status -> {
+                List<T> rows = page.apply(from, Limit.of(PAGE_SIZE));
+                rows.forEach(row);
+                return rows.isEmpty() ? null : id.applyAsLong(rows.get(rows.size() - 1));
+            });
+            entityManager.clear();
+            if (last == null) {
+                return;
+            }
+            after = last;
+        }
+    }
+
+    // colonnes d'une table : ids, valeurs texte (indices du dictionnaire), nombres puis listes
+    // une liste est écrite comme une colonne de tailles (-1 pour null) suivie de toutes ses valeurs à la suite
+    private static final class Table {
+        private final Map<String, Integer> dictionary;
+        private final LongStream.Builder ids = LongStream.builder();
+        private final IntStream.Builder[] columns;
+        private final IntStream.Builder numbers = IntStream.builder();
+        private final IntStream.Builder[] listSizes;
+        private final IntStream.Builder[] listValues;
+        private int rows;
+
+        Table(Map<String, Integer> dictionary, int columns, int lists) {
+            this.dictionary = dictionary;
+            this.columns = new IntStream.Builder[columns];
+            for (int i = 0; i < columns; i++) {
+                this.columns[i] = IntStream.builder();
+            }
+            this.listSizes = new IntStream.Builder[lists];
+            this.listValues = new IntStream.Builder[lists];
+            for (int i = 0; i < lists; i++) {
+                listSizes[i] = IntStream.builder();
+                listValues[i] = IntStream.builder();
+            }
+        }
+
+        void add(long id, String... values) {
+            ids.add(id);
+            for (int i = 0; i < values.length; i++) {
+                columns[i].add(index(dictionary, values[i]));
+            }
+            rows++;
+        }
+
+        void number(int value) {
+            numbers.add(value);
+        }
+
+        // les collections sont lues ici, dans la transaction de la page
+        void list(int list, List<String> values) {
+            listSizes[list].add(values != null ? values.size() : NULL);
+            if (values != null) {
+                values.forEach(value -> listValues[list].add(index(dictionary, value)));
+            }
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeInt(rows);
+            for (long id : ids.build().toArray()) {
+                out.writeLong(id);
+            }
+            for (IntStream.Builder column : columns) {
+                writeColumn(out, column.build().toArray());
+            }
+            writeColumn(out, numbers.build().toArray());
+            for (int i = 0; i < listSizes.length; i++) {
+                writeColumn(out, listSizes[i].build().toArray());
+                writeColumn(out, listValues[i].build().toArray());
+            }
+        }
+    }
+
+    // lignes d'un instantané réinsérées avec leurs ids : l'import passe par JDBC, le générateur des entités
+    // attribuerait de nouveaux ids (voir restartSequences)
+    public void insertPersons(List<Person> persons) {
+        jdbcTemplate.batchUpdate("insert into person (id, first_name, last_name, address, city, zip, phone, email, "
+                        + "last_name_key, city_key) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", persons, persons.size(),
+                (statement, person) -> {
+                    statement.setLong(1, person.getId());
+                    statement.setString(2, person.getFirstName());
+                    statement.setString(3, person.getLastName());
+                    statement.setString(4, person.getAddress());
+                    statement.setString(5, person.getCity());
+                    statement.setString(6, person.getZip());
+                    statement.setString(7, person.getPhone());
+                    statement.setString(8, person.getEmail());
+                    statement.setString(9, Person.normalize(person.getLastName()));
+                    statement.setString(10, Person.normalize(person.getCity()));
+                });
+    }
+
+    public void insertFirestations(List<Firestation> firestations) {
+        jdbcTemplate.batchUpdate("insert into firestation (id, address, station) values (?, ?, ?)", firestations,
+                firestations.size(), (statement, firestation) -> {
+                    statement.setLong(1, firestation.getId());
+                    statement.setString(2, firestation.getAddress());
+                    statement.setInt(3, firestation.getStation());
+                });
+    }
+
+    public void insertMedicalRecords(List<MedicalRecord> records) {
+        jdbcTemplate.batchUpdate("insert into medical_record (id, first_name, last_name, birthdate, birthdate_epoch_day) "
+                + "values (?, ?, ?, ?, ?)", records, records.size(), (statement, record) -> {
+                    statement.setLong(1, record.getId());
+                    statement.setString(2, record.getFirstName());
+                    statement.setString(3, record.getLastName());
+                    statement.setString(4, record.getBirthdate());
+                    statement.setObject(5, record.getBirthdateEpochDay());
+                });
+        insertValues("insert into medical_record_medications (medical_record_id, medications) values (?, ?)", records,
+                MedicalRecord::getMedications);
+        insertValues("insert into medical_record_allergies (medical_record_id, allergies) values (?, ?)", records,
+                MedicalRecord::getAllergies);
+    }
+
+    private void insertValues(String sql, List<MedicalRecord> records,
+                              Function<MedicalRecord, List<String>> values) {
+        List<Object[]> rows = new ArrayList<>();
+        for (MedicalRecord record : records) {
+            if (values.apply(record) != null) {
+                values.apply(record).forEach(value -> rows.add(new Object[]{record.getId(), value}));
+            }
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, rows);
+        }
+    }
+
+    // après une restauration : chaque séquence repart au-delà du plus grand id restauré
+    // (une réserve d'allocationSize en plus, quelle que soit la lecture de la valeur par l'optimiseur de Hibernate)
+    public void restartSequences() {
+        restartSequence("person", "person_seq");
+        restartSequence("firestation", "firestation_seq");
+        restartSequence("medical_record", "medical_record_seq");
+    }
+
+    private void restartSequence(String table, String sequence) {
+        Long max = jdbcTemplate.queryForObject("select max(id) from " + table, Long.class);
+        if (max != null) {
+            jdbcTemplate.execute("alter sequence " + sequence + " restart with " + (max + 1 + ID_ALLOCATION));
+        }
+    }
+
+    private static int index(Map<String, Integer> dictionary, String value) {
+        return value == null ? NULL : dictionary.computeIfAbsent(value, v -> dictionary.size());
+    }
+
+    private static void writeColumn(DataOutputStream out, int[] column) throws IOException {
+        for (int value : column) {
+            out.writeInt(value);
+        }
+    }
+
+    // Contenu projeté en mémoire : seules les positions des tables sont calculées à l'ouverture,
+    // les chaînes sont décodées à la première lecture et les entités créées lot par lot
+    // Lectures absolues uniquement : les sections peuvent être parcourues en parallèle
+    public static final class Contents {
+        private final ByteBuffer buffer;
+        private final int[] stringOffsets;
+        private final String[] strings; // décodées à la demande, une course ne fait que décoder deux fois
+        private final int persons;
+        private final int personsAt;
+        private final int firestations;
+        private final int firestationsAt;
+        private final int records;
+        private final int recordsAt;
+        private final int medicationsAt;
+        private final int allergiesAt;
+
+        Contents(ByteBuffer buffer) {
+            this.buffer = buffer;
+            int count = buffer.getInt();
+            stringOffsets = new int[count];
+            strings = new String[count];
+            for (int i = 0; i < count; i++) {
+                stringOffsets[i] = buffer.position();
+                buffer.position(buffer.position() + Integer.BYTES + buffer.getInt(buffer.position()));
+            }
+            // chaque table : nombre de lignes, colonne des ids puis colonnes d'entiers
+            persons = buffer.getInt();
+            personsAt = buffer.position();
+            int personsEnd = personsAt + persons * (Long.BYTES + 7 * Integer.BYTES);
+            firestations = buffer.getInt(personsEnd);
+            firestationsAt = personsEnd + Integer.BYTES;
+            int firestationsEnd = firestationsAt + firestations * (Long.BYTES + 2 * Integer.BYTES);
+            records = buffer.getInt(firestationsEnd);
+            recordsAt = firestationsEnd + Integer.BYTES;
+            medicationsAt = recordsAt + records * (Long.BYTES + 3 * Integer.BYTES);
+            allergiesAt = medicationsAt + (records + totalSize(medicationsAt)) * Integer.BYTES;
+            int end = allergiesAt + (records + totalSize(allergiesAt)) * Integer.BYTES;
+            if (end != buffer.limit()) {
+                throw new IllegalStateException("taille inattendue (" + buffer.limit() + " octets, " + end + " attendus)");
+            }
+        }
+
+        private int totalSize(int listsAt) {
+            int total = 0;
+            for (int i = 0; i < records; i++) {
+                total += Math.max(buffer.getInt(listsAt + i * Integer.BYTES), 0);
+            }
+            return total;
+        }
+
+        public int persons() {
+            return persons;
+        }
+
+        public int firestations() {
+            return firestations;
+        }
+
+        public int medicalRecords() {
+            return records;
+        }
+
+        private long id(int tableAt, int row) {
+            return buffer.getLong(tableAt + row * Long.BYTES);
+        }
+
+        private int value(int tableAt, int rows, int column, int row) {
+            return buffer.getInt(tableAt + rows * Long.BYTES + (column * rows + row) * Integer.BYTES);
+        }
+
+        private String string(int index) {
+            if (index == NULL) {
+                return null;
+            }
+            String value = strings[index];
+            if (value == null) {
+                int offset = stringOffsets[index];
+                byte[] bytes = new byte[buffer.getInt(offset)];
+                buffer.get(offset + Integer.BYTES, bytes);
+                value = new String(bytes, StandardCharsets.UTF_8);
+                strings[index] = value;
+            }
+            return value;
+        }
+
+        public int forEachPersonBatch(int batchSize, Consumer<List<Person>> sink) {
+            return batches(persons, batchSize, row -> new Person(id(personsAt, row),
+                    string(value(personsAt, persons, 0, row)), string(value(personsAt, persons, 1, row)),
+                    string(value(personsAt, persons, 2, row)), string(value(personsAt, persons, 3, row)),
+                    string(value(personsAt, persons, 4, row)), string(value(personsAt, persons, 5, row)),
+                    string(value(personsAt, persons, 6, row))), sink);
+        }
+
+        public int forEachFirestationBatch(int batchSize, Consumer<List<Firestation>> sink) {
+            return batches(firestations, batchSize, row -> new Firestation(id(firestationsAt, row),
+                    string(value(firestationsAt, firestations, 0, row)), value(firestationsAt, firestations, 1, row)),
+                    sink);
+        }
+
+        public int forEachMedicalRecordBatch(int batchSize, Consumer<List<MedicalRecord>> sink) {
+            int[] medicationStarts = listStarts(medicationsAt);
+            int[] allergyStarts = listStarts(allergiesAt);
+            return batches(records, batchSize, row -> new MedicalRecord(id(recordsAt, row),
+                    string(value(recordsAt, records, 0, row)), string(value(recordsAt, records, 1, row)),
+                    string(value(recordsAt, records, 2, row)),
+                    list(medicationsAt, medicationStarts, row), list(allergiesAt, allergyStarts, row)), sink);
+        }
+
+        // position de la première valeur de chaque liste
+        private int[] listStarts(int listsAt) {
+            int[] starts = new int[records];
+            int position = listsAt + records * Integer.BYTES;
+            for (int i = 0; i < records; i++) {
+                starts[i] = position;
+                position += Math.max(buffer.getInt(listsAt + i * Integer.BYTES), 0) * Integer.BYTES;
+            }
+            return starts;
+        }
+
+        private List<String> list(int listsAt, int[] starts, int row) {
+            int size = buffer.getInt(listsAt + row * Integer.BYTES);
+            if (size == NULL) {
+                return null;
+            }
+            List<String> values = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                values.add(string(buffer.getInt(starts[row] + i * Integer.BYTES)));
+            }
+            return values;
+        }
+
+        private static <T> int batches(int rows, int batchSize, IntFunction<T> row, Consumer<List<T>> sink) {
+            List<T> batch = new ArrayList<>(Math.min(batchSize, rows));
+            for (int i = 0; i < rows; i++) {
+                batch.add(row.apply(i));
+                if (batch.size() == batchSize) {
+                    sink.accept(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                sink.accept(batch);
+            }
+            return rows;
+        }
+    }
+}
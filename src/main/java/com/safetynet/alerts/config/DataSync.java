@@ -0,0 +1,312 @@
+package com.safetynet.alerts.config;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.safetynet.alerts.model.DataImport;
+import com.safetynet.alerts.model.Firestation;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.DataImportRepository;
+import com.safetynet.alerts.repository.FirestationRepository;
+import com.safetynet.alerts.repository.MedicalRecordRepository;
+import com.safetynet.alerts.repository.PersonRepository;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Applique un fichier de données à une base déjà remplie en n'écrivant que les lignes qui diffèrent
+// Les lignes sont rapprochées par clé naturelle : (prénom, nom) pour les personnes et les dossiers,
+// (adresse, station) pour les casernes ; une section absente du fichier laisse sa table intacte
+// Le fichier est lu en flux, section par section : chaque paquet de batchSize lignes est rapproché des lignes
+// de mêmes clés, puis la table est parcourue par pages d'ids pour retirer les lignes que le fichier ne cite plus ;
+// seuls les ids rapprochés sont retenus d'une page à l'autre
+// Tout l'écart est appliqué en une seule transaction : chaque paquet est écrit (flush) puis lâché par le contexte
+// de persistance, les autres lectures ne voient rien avant le commit et un échec ne laisse aucune ligne modifiée
+@Component
+public class DataSync {
+    private static final Logger logger = LoggerFactory.getLogger(DataSync.class);
+
+    private final PersonRepository personRepository;
+    private final FirestationRepository firestationRepository;
+    private final MedicalRecordRepository medicalRecordRepository;
+    private final DataImportRepository dataImportRepository;
+    private final TransactionTemplate transaction;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final boolean persistent;
+    private final int batchSize;
+
+    public DataSync(PersonRepository personRepository, FirestationRepository firestationRepository,
+                    MedicalRecordRepository medicalRecordRepository, DataImportRepository dataImportRepository,
+                    PlatformTransactionManager transactionManager, EntityManager entityManager, ObjectMapper objectMapper,
+                    @Value("${safetynet.data.persistent:false}") boolean persistent,
+                    @Value("${safetynet.data.batch-size:1000}") int batchSize) {
+        this.personRepository = personRepository;
+        this.firestationRepository = firestationRepository;
+        this.medicalRecordRepository = medicalRecordRepository;
+        this.dataImportRepository = dataImportRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.persistent = persistent;
+        this.batchSize = batchSize;
+    }
+
+    // base conservée entre deux démarrages (profil persistent)
+    public boolean isPersistent() {
+        return persistent;
+    }
+
+    public boolean hasData() {
+        return personRepository.count() > 0 || firestationRepository.count() > 0 || medicalRecordRepository.count() > 0;
+    }
+
+    // vrai si ce contenu est celui du dernier fichier appliqué
+    public boolean isUpToDate(String source, long checksum) {
+        return dataImportRepository.findById(source).map(last -> last.getChecksum() == checksum).orElse(false);
+    }
+
+    public void recordImport(String source, long checksum) {
+        dataImportRepository.save(new DataImport(source, checksum, Instant.now()));
+    }
+
+    // lignes insérées, modifiées et supprimées par une synchronisation
+    public record Result(int inserted, int updated, int deleted) {
+        Result plus(Result other) {
+            return new Result(inserted + other.inserted, updated + other.updated, deleted + other.deleted);
+        }
+    }
+
+    // accès à une table pour la synchronisation
+    // existing renvoie au moins les lignes portant les clés d'un paquet, page les lignes d'id supérieur à after
+    private record Table<T>(JpaRepository<T, Long> repository, Function<T, Long> id, Function<T, List<Object>> key,
+                            Function<List<T>, List<T>> existing, BiFunction<Long, Limit, List<T>> page,
+                            BiPredicate<T, T> same, BiConsumer<T, T> copy) {
+    }
+
+    // lit le fichier en flux et applique l'écart table par table, le tout en une transaction
+    // un échec (fichier illisible, contrainte violée) annule l'ensemble : la base reste celle du fichier précédent
+    public Result apply(Resource dataFile) throws IOException {
+        Result total;
+        try {
+            total = transaction.execute(status -> {
+                try {
+                    return applyAll(dataFile);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        logger.info("Synchronisation de {} : {} ajouts, {} modifications, {} suppressions", dataFile.getDescription(),
+                total.inserted(), total.updated(), total.deleted());
+        return total;
+    }
+
+    private Result applyAll(Resource dataFile) throws IOException {
+        Result total = new Result(0, 0, 0);
+        // le parser ferme le flux du fichier avec lui
+        try (JsonParser parser = objectMapper.getFactory().createParser(dataFile.getInputStream())) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Le fichier de données doit contenir un objet JSON");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String section = parser.currentName();
+                parser.nextToken();
+                switch (section) {
+                    case "persons" -> total = total.plus(apply(parser, Person.class, new Table<>(personRepository,
+                            Person::getId, person -> Arrays.asList(person.getFirstName(), person.getLastName()),
+                            this::existingPersons, personRepository::findByIdGreaterThanOrderByIdAsc,
+                            DataSync::samePerson, DataSync::copyPerson)));
+                    // la clé couvre toute la ligne : une caserne n'est jamais modifiée, seulement ajoutée ou retirée
+                    case "firestations" -> total = total.plus(apply(parser, Firestation.class,
+                            new Table<>(firestationRepository, Firestation::getId,
+                                    firestation -> Arrays.asList(firestation.getAddress(), firestation.getStation()),
+                                    this::existingFirestations, firestationRepository::findByIdGreaterThanOrderByIdAsc,
+                                    (current, next) -> true, (current, next) -> { })));
+                    case "medicalrecords" -> total = total.plus(apply(parser, MedicalRecord.class,
+                            new Table<>(medicalRecordRepository, MedicalRecord::getId,
+                                    record -> Arrays.asList(record.getFirstName(), record.getLastName()),
+                                    this::existingRecords, medicalRecordRepository::findByIdGreaterThanOrderByIdAsc,
+                                    DataSync::sameRecord, DataSync::copyRecord)));
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+        return total;
+    }
+
+    // une section : ses paquets, puis le retrait des lignes qu'aucun paquet n'a rapprochées
+    private <T> Result apply(JsonParser parser, Class<T> type, Table<T> table) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            throw new IOException("La section " + parser.currentName() + " doit être un tableau");
+        }
+        ObjectReader reader = objectMapper.readerFor(type);
+        // ids des lignes conservées : les ids sont des long, sans borne ni densité supposées
+        Set<Long> kept = new HashSet<>();
+        Result total = new Result(0, 0, 0);
+        List<T> chunk = new ArrayList<>(batchSize);
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            chunk.add(reader.readValue(parser));
+            if (chunk.size() == batchSize) {
+                total = total.plus(applyChunk(table, chunk, kept));
+                chunk = new ArrayList<>(batchSize);
+            }
+        }
+        if (parser.currentToken() != JsonToken.END_ARRAY) {
+            throw new IOException("Élément inattendu dans la section : " + parser.currentToken());
+        }
+        if (!chunk.isEmpty()) {
+            total = total.plus(applyChunk(table, chunk, kept));
+        }
+        return total.plus(deleteUnmatched(table, kept));
+    }
+
+    // les doublons d'une même clé sont rapprochés dans l'ordre des ids ; une ligne déjà rapprochée
+    // par un paquet précédent n'est plus candidate
+    private <T> Result applyChunk(Table<T> table, List<T> incoming, Set<Long> kept) {
+        List<T> rows = new ArrayList<>(table.existing().apply(incoming));
+        rows.sort(Comparator.comparing(table.id()));
+        Map<List<Object>, Deque<T>> current = new HashMap<>();
+        for (T row : rows) {
+            if (!kept.contains(table.id().apply(row))) {
+                current.computeIfAbsent(table.key().apply(row), k -> new ArrayDeque<>()).add(row);
+            }
+        }
+
+        List<T> inserts = new ArrayList<>();
+        int updated = 0;
+        for (T row : incoming) {
+            Deque<T> matches = current.get(table.key().apply(row));
+            T match = matches != null ? matches.poll() : null;
+            if (match == null) {
+                inserts.add(row);
+            } else {
+                kept.add(table.id().apply(match));
+                if (!table.same().test(match, row)) {
+                    // entité gérée : l'UPDATE est émis à l'écriture du paquet
+                    table.copy().accept(match, row);
+                    updated++;
+                }
+            }
+        }
+        for (T row : table.repository().saveAll(inserts)) {
+            kept.add(table.id().apply(row));
+        }
+        release();
+        return new Result(inserts.size(), updated, 0);
+    }
+
+    // parcours de la table par pages d'ids
+    private <T> Result deleteUnmatched(Table<T> table, Set<Long> kept) {
+        int deleted = 0;
+        long after = Long.MIN_VALUE;
+        while (true) {
+            List<T> page = table.page().apply(after, Limit.of(batchSize));
+            if (page.isEmpty()) {
+                return new Result(0, 0, deleted);
+            }
+            List<T> unmatched = page.stream().filter(row -> !kept.contains(table.id().apply(row))).toList();
+            table.repository().deleteAll(unmatched);
+            deleted += unmatched.size();
+            after = table.id().apply(page.get(page.size() - 1));
+            release();
+        }
+    }
+
+    // écrit le paquet dans la transaction en cours puis le retire du contexte de persistance :
+    // la mémoire ne grandit pas avec la taille du fichier
+    private void release() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private List<Person> existingPersons(List<Person> incoming) {
+        Set<String> lastNameKeys = incoming.stream().map(Person::getLastName).filter(Objects::nonNull)
+                .map(Person::normalize).collect(Collectors.toSet());
+        return lastNameKeys.isEmpty() ? List.of() : personRepository.findByLastNameKeyIn(lastNameKeys);
+    }
+
+    private List<Firestation> existingFirestations(List<Firestation> incoming) {
+        Set<String> addresses = incoming.stream().map(Firestation::getAddress).filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        return addresses.isEmpty() ? List.of() : firestationRepository.findByAddressIn(addresses);
+    }
+
+    private List<MedicalRecord> existingRecords(List<MedicalRecord> incoming) {
+        Set<String> lastNames = new HashSet<>();
+        Set<String> firstNames = new HashSet<>();
+        for (MedicalRecord record : incoming) {
+            if (record.getFirstName() != null && record.getLastName() != null) {
+                firstNames.add(record.getFirstName());
+                lastNames.add(record.getLastName());
+            }
+        }
+        return lastNames.isEmpty() ? List.of() : medicalRecordRepository.findByLastNameInAndFirstNameIn(lastNames, firstNames);
+    }
+
+    private static boolean samePerson(Person current, Person next) {
+        return Objects.equals(current.getAddress(), next.getAddress()) && Objects.equals(current.getCity(), next.getCity())
+                && Objects.equals(current.getZip(), next.getZip()) && Objects.equals(current.getPhone(), next.getPhone())
+                && Objects.equals(current.getEmail(), next.getEmail());
+    }
+
+    private static void copyPerson(Person current, Person next) {
+        current.setAddress(next.getAddress());
+        current.setCity(next.getCity());
+        current.setZip(next.getZip());
+        current.setPhone(next.getPhone());
+        current.setEmail(next.getEmail());
+    }
+
+    private static boolean sameRecord(MedicalRecord current, MedicalRecord next) {
+        return Objects.equals(current.getBirthdate(), next.getBirthdate())
+                && sameValues(current.getMedications(), next.getMedications())
+                && sameValues(current.getAllergies(), next.getAllergies());
+    }
+
+    // les collections Hibernate ne se comparent pas par contenu ; une liste absente est relue vide depuis la base
+    private static boolean sameValues(List<String> current, List<String> next) {
+        return values(current).equals(values(next));
+    }
+
+    private static List<String> values(List<String> list) {
+        return list != null ? new ArrayList<>(list) : List.of();
+    }
+
+    private static void copyRecord(MedicalRecord current, MedicalRecord next) {
+        current.setBirthdate(next.getBirthdate());
+        current.setMedications(next.getMedications() != null ? new ArrayList<>(next.getMedications()) : null);
+        current.setAllergies(next.getAllergies() != null ? new ArrayList<>(next.getAllergies()) : null);
+    }
+}
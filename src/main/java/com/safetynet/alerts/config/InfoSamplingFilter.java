@@ -0,0 +1,42 @@
+package com.safetynet.alerts.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Ne garde qu'un message INFO sur rate pour les modèles de message nommés (déclarés dans logback-spring.xml)
+// seuls les messages des lectures fréquentes y figurent : écritures, envois groupés et administration passent toujours
+// chaque modèle a son compteur, une lecture fréquente n'écarte jamais le premier message d'une autre
+// les messages écartés ne sont ni formatés ni mis en file ; WARN et ERROR passent toujours
+public class InfoSamplingFilter extends TurboFilter {
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+    private int rate = 1;
+
+    // un élément <message> par modèle, écrit exactement comme dans l'appel au logger
+    public void addMessage(String message) {
+        counters.putIfAbsent(message.trim(), new AtomicLong());
+    }
+
+    public void setRate(int rate) {
+        this.rate = Math.max(1, rate);
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        // format null : simple test isInfoEnabled(), qui ne doit pas consommer de tirage
+        if (rate == 1 || level != Level.INFO || format == null) {
+            return FilterReply.NEUTRAL;
+        }
+        AtomicLong counter = counters.get(format);
+        if (counter == null) {
+            return FilterReply.NEUTRAL;
+        }
+        return counter.getAndIncrement() % rate == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+}
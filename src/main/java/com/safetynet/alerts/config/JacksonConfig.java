@@ -0,0 +1,17 @@
+package com.safetynet.alerts.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Spring Boot enregistre les modules déclarés comme beans dans l'ObjectMapper des contrôleurs
+@Configuration
+public class JacksonConfig {
+
+    // accesseurs des records de réponse compilés en lambdas plutôt qu'appelés par réflexion
+    @Bean
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+}
@@ -0,0 +1,42 @@
+package com.safetynet.alerts.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// Le serveur web écoute avant la fin du chargement des données :
+// les requêtes reçoivent un 503 tant que l'application n'accepte pas le trafic
+@Component
+public class ReadinessFilter extends OncePerRequestFilter {
+    private final ApplicationAvailability applicationAvailability;
+
+    public ReadinessFilter(ApplicationAvailability applicationAvailability) {
+        this.applicationAvailability = applicationAvailability;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (applicationAvailability.getReadinessState() != ReadinessState.ACCEPTING_TRAFFIC) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Chargement des données en cours");
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    // sondes de santé et collecte des métriques restent disponibles pendant le chargement
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith(request.getContextPath() + "/actuator/");
+    }
+}
@@ -0,0 +1,61 @@
+package com.safetynet.alerts.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+// Nombre d'appels aux repositories par requête HTTP : safetynet.request.repository.calls{uri}
+// une boucle qui interroge la base pour chaque adresse se voit comme un nombre d'appels qui grandit
+// seuls les appels faits par le thread de la requête sont comptés (pas ceux des pools ni des réponses en flux)
+@Component
+public class RepositoryCallCounter extends OncePerRequestFilter {
+    private static final ThreadLocal<int[]> CALLS = new ThreadLocal<>();
+    private final MeterRegistry meterRegistry;
+
+    public RepositoryCallCounter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        int[] calls = new int[1];
+        CALLS.set(calls);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            CALLS.remove();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            DistributionSummary.builder("safetynet.request.repository.calls")
+                    .tag("uri", pattern != null ? pattern.toString() : "UNKNOWN")
+                    .register(meterRegistry)
+                    .record(calls[0]);
+        }
+    }
+
+    // appelé autour de chaque méthode des repositories de l'application
+    @Aspect
+    @Component
+    static class RepositoryCalls {
+        @Around("execution(* org.springframework.data.repository.Repository+.*(..)) "
+                + "&& this(org.springframework.data.repository.Repository)")
+        public Object count(ProceedingJoinPoint joinPoint) throws Throwable {
+            int[] calls = CALLS.get();
+            if (calls != null) {
+                calls[0]++;
+            }
+            return joinPoint.proceed();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.safetynet.alerts.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+
+// Durée (histogramme) et taille du résultat de chaque méthode publique des services
+// safetynet.service.calls{class, method, exception} et safetynet.service.result.size{class, method}
+@Aspect
+@Component
+public class ServiceMetrics {
+    private final MeterRegistry meterRegistry;
+
+    public ServiceMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(public * com.safetynet.alerts.service.*Service.*(..))")
+    public Object measure(ProceedingJoinPoint joinPoint) throws Throwable {
+        String className = joinPoint.getSignature().getDeclaringType().getSimpleName();
+        String method = joinPoint.getSignature().getName();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String exception = "none";
+        try {
+            Object result = joinPoint.proceed();
+            int size = sizeOf(result);
+            if (size >= 0) {
+                DistributionSummary.builder("safetynet.service.result.size")
+                        .tags("class", className, "method", method)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry)
+                        .record(size);
+            }
+            return result;
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("safetynet.service.calls")
+                    .tags("class", className, "method", method, "exception", exception)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    // -1 : le résultat n'est pas une collection (entité, Optional, void)
+    private static int sizeOf(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Map<?, ?> map) {
+            return map.size();
+        }
+        return -1;
+    }
+}
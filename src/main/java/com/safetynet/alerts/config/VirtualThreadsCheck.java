@@ -0,0 +1,26 @@
+package com.safetynet.alerts.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+// Spring Boot ignore spring.threads.virtual.enabled avant Java 21 : on le signale au lieu de servir en silence sur la plateforme
+@Component
+@Profile("virtual-threads")
+public class VirtualThreadsCheck {
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadsCheck.class);
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void checkRuntime() {
+        int feature = Runtime.version().feature();
+        if (feature < 21) {
+            logger.warn("Profile virtual-threads active on Java {}: requests are served by platform threads (Java 21+ required)",
+                    feature);
+        } else {
+            logger.info("Serving requests on virtual threads");
+        }
+    }
+}
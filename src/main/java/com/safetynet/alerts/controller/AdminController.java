@@ -0,0 +1,66 @@
+package com.safetynet.alerts.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safetynet.alerts.config.DataLoader;
+import com.safetynet.alerts.dto.DataLine;
+import com.safetynet.alerts.dto.ImportReport;
+import com.safetynet.alerts.service.DataTransfer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin")
+public class AdminController {
+    private static final Logger logger = LoggerFactory.getLogger(AdminController.class);
+    private final DataLoader dataLoader;
+    private final DataTransfer dataTransfer;
+    private final ObjectMapper objectMapper;
+
+    public AdminController(DataLoader dataLoader, DataTransfer dataTransfer, ObjectMapper objectMapper) {
+        this.dataLoader = dataLoader;
+        this.dataTransfer = dataTransfer;
+        this.objectMapper = objectMapper;
+    }
+
+    // écrit l'instantané binaire sans attendre l'arrêt de l'application
+    @PostMapping("/snapshot")
+    public ResponseEntity<Map<String, String>> saveSnapshot() throws IOException {
+        logger.info("POST /admin/snapshot");
+        try {
+            return ResponseEntity.ok(Map.of("location", dataLoader.saveSnapshot().toString()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // tout le jeu de données en NDJSON, une page de chaque table à la fois
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportData() {
+        logger.info("GET /admin/export");
+        return JsonStreaming.ndjson(objectMapper,
+                generator -> dataTransfer.forEachLine(line -> JsonStreaming.writeLine(generator, line)));
+    }
+
+    // relit un export (d'ici ou d'un autre nœud) ligne par ligne et l'applique par paquets
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ImportReport> importData(InputStream body) throws IOException {
+        logger.info("POST /admin/import");
+        try (MappingIterator<DataLine> lines = JsonStreaming.readValues(objectMapper, body, DataLine.class)) {
+            return ResponseEntity.ok(dataTransfer.importLines(lines));
+        } catch (JsonProcessingException e) {
+            logger.warn("POST /admin/import - corps invalide : {}", e.getOriginalMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.safetynet.alerts.controller;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.safetynet.alerts.service.AlertCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/cache")
+public class AlertCacheController {
+    private static final Logger logger = LoggerFactory.getLogger(AlertCacheController.class);
+    private final AlertCache alertCache;
+
+    public AlertCacheController(AlertCache alertCache) {
+        this.alertCache = alertCache;
+    }
+
+    // succès/échecs du cache des alertes depuis le démarrage
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        logger.info("GET /cache/stats");
+        CacheStats stats = alertCache.stats();
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("size", alertCache.size());
+        response.put("hitCount", stats.hitCount());
+        response.put("missCount", stats.missCount());
+        response.put("hitRate", stats.hitRate());
+        response.put("evictionCount", stats.evictionCount());
+        return ResponseEntity.ok(response);
+    }
+}
@@ -1,14 +1,21 @@
 package com.safetynet.alerts.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safetynet.alerts.dto.BatchItemStatus;
+import com.safetynet.alerts.dto.StationAddress;
 import com.safetynet.alerts.model.Firestation;
 import com.safetynet.alerts.service.FirestationService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -16,9 +23,11 @@ import java.util.Optional;
 public class FirestationController {
     private static final Logger logger = LoggerFactory.getLogger(FirestationController.class);
     private final FirestationService firestationService;
+    private final ObjectMapper objectMapper;
 
-    public FirestationController(FirestationService firestationService) {
+    public FirestationController(FirestationService firestationService, ObjectMapper objectMapper) {
         this.firestationService = firestationService;
+        this.objectMapper = objectMapper;
     }
 
     // retourne une liste de toute les firestations 
@@ -28,6 +37,24 @@ public class FirestationController {
         return ResponseEntity.ok(firestationService.getAllFirestations());
     }
 
+    // page de firestations après le curseur after, sans OFFSET
+    @GetMapping(params = "limit")
+    public ResponseEntity<List<Firestation>> getFirestationsPage(@RequestParam(required = false) Long after,
+                                                                 @RequestParam int limit) {
+        logger.info("GET /firestations?after={}&limit={}", after, limit);
+        if (!KeysetPage.isValidLimit(limit)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return KeysetPage.response("/firestations", limit, firestationService.getFirestationsPage(after, limit),
+                Firestation::getId);
+    }
+
+    // curseur seul : page de taille par défaut (voir KeysetPage)
+    @GetMapping(params = {"after", "!limit"})
+    public ResponseEntity<List<Firestation>> getFirestationsAfter(@RequestParam Long after) {
+        return getFirestationsPage(after, KeysetPage.DEFAULT_LIMIT);
+    }
+
     // recupere une firestation par son ID 
     @GetMapping("/{id}")
     public ResponseEntity<Firestation> getFirestationById(@PathVariable Long id) {
@@ -43,6 +70,19 @@ public class FirestationController {
         return ResponseEntity.ok(firestationService.saveFirestation(firestation));
     }
 
+    // envoi groupé en tableau JSON ou NDJSON, lu au fil de l'eau ; un statut par élément dans l'ordre de l'envoi
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<List<BatchItemStatus>> upsertFirestations(InputStream body) throws IOException {
+        logger.info("POST /firestations/batch");
+        try (MappingIterator<Firestation> items = JsonStreaming.readValues(objectMapper, body, Firestation.class)) {
+            return ResponseEntity.ok(firestationService.upsertFirestations(items));
+        } catch (JsonProcessingException e) {
+            // corps illisible dès son début : rien n'a été écrit
+            logger.warn("POST /firestations/batch - corps invalide : {}", e.getOriginalMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     // supprime une firstation a partir de son ID 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteFirestation(@PathVariable Long id) {
@@ -52,9 +92,9 @@ public class FirestationController {
     }
     
     @GetMapping("/firestation")
-    public ResponseEntity<List<Map<String, Object>>> getPersonsCoveredByStation(@RequestParam int stationNumber) {
+    public ResponseEntity<List<StationAddress>> getPersonsCoveredByStation(@RequestParam int stationNumber) {
         logger.info("GET /firestation?stationNumber={}", stationNumber);
-        List<Map<String, Object>> response = firestationService.getPersonsCoveredByStation(stationNumber);
+        List<StationAddress> response = firestationService.getPersonsCoveredByStation(stationNumber);
         return ResponseEntity.ok(response);
     }
 }
@@ -0,0 +1,93 @@
+package com.safetynet.alerts.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+
+// Écriture d'un tableau JSON élément par élément directement dans la réponse, lecture d'un corps au fil de l'eau
+final class JsonStreaming {
+
+    private JsonStreaming() {
+    }
+
+    interface Writer {
+        void write(JsonGenerator generator) throws IOException;
+    }
+
+    // réponse JSON écrite au fil de l'eau par le générateur de l'ObjectMapper des contrôleurs
+    static ResponseEntity<StreamingResponseBody> response(ObjectMapper objectMapper, Writer writer) {
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+                writer.write(generator);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    // réponse NDJSON sans longueur annoncée : envoyée en chunked au fil de writeLine
+    static ResponseEntity<StreamingResponseBody> ndjson(ObjectMapper objectMapper, Writer writer) {
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+                // les lignes sont séparées par writeLine, pas par l'espace inséré entre deux valeurs racines
+                generator.setRootValueSeparator(null);
+                writer.write(generator);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    // une valeur par ligne
+    static void writeLine(JsonGenerator generator, Object value) {
+        try {
+            generator.writeObject(value);
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // écrit les éléments dans un tableau ; sans élément, écrit whenEmpty à la place (null : tableau vide)
+    static void writeArray(JsonGenerator generator, Iterator<?> items, Object whenEmpty) {
+        try {
+            if (!items.hasNext() && whenEmpty != null) {
+                generator.writeObject(whenEmpty);
+                return;
+            }
+            generator.writeStartArray();
+            while (items.hasNext()) {
+                generator.writeObject(items.next());
+            }
+            generator.writeEndArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // écrit une page d'éléments dans un tableau déjà ouvert
+    static void writeItems(JsonGenerator generator, Iterable<?> items) {
+        try {
+            for (Object item : items) {
+                generator.writeObject(item);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // lit un tableau JSON ou une suite d'objets (NDJSON) élément par élément, sans charger tout le corps
+    static <T> MappingIterator<T> readValues(ObjectMapper objectMapper, InputStream in, Class<T> type) throws IOException {
+        return objectMapper.readerFor(type).readValues(in);
+    }
+}
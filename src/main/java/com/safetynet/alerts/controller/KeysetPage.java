@@ -0,0 +1,40 @@
+package com.safetynet.alerts.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.List;
+import java.util.function.Function;
+
+// réponses paginées par clé : ?after=<dernier id vu>&limit=<taille de page>
+// un curseur seul (?after=) donne une page de DEFAULT_LIMIT, jamais la liste complète
+final class KeysetPage {
+    static final int DEFAULT_LIMIT = 100;
+    static final int MAX_LIMIT = 1000;
+    static final String NEXT_CURSOR = "X-Next-Cursor";
+
+    private KeysetPage() {
+    }
+
+    static boolean isValidLimit(int limit) {
+        return limit >= 1 && limit <= MAX_LIMIT;
+    }
+
+    // une page pleine annonce la suivante (Link rel="next" et curseur) ; une page incomplète est la dernière
+    static <T> ResponseEntity<List<T>> response(String path, int limit, List<T> page, Function<T, Long> idOf) {
+        if (page.size() < limit) {
+            return ResponseEntity.ok(page);
+        }
+        Long last = idOf.apply(page.get(page.size() - 1));
+        String next = UriComponentsBuilder.fromPath(path)
+                .queryParam("after", last)
+                .queryParam("limit", limit)
+                .build()
+                .toUriString();
+        return ResponseEntity.ok()
+                .header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"")
+                .header(NEXT_CURSOR, String.valueOf(last))
+                .body(page);
+    }
+}
@@ -1,12 +1,20 @@
 package com.safetynet.alerts.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safetynet.alerts.dto.BatchItemStatus;
 import com.safetynet.alerts.model.MedicalRecord;
 import com.safetynet.alerts.service.MedicalRecordService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,16 +23,41 @@ import java.util.Optional;
 public class MedicalRecordController {
     private static final Logger logger = LoggerFactory.getLogger(MedicalRecordController.class);
     private final MedicalRecordService medicalRecordService;
+    private final ObjectMapper objectMapper;
         
-        public MedicalRecordController(MedicalRecordService medicalRecordService) {
+        public MedicalRecordController(MedicalRecordService medicalRecordService, ObjectMapper objectMapper) {
             this.medicalRecordService = medicalRecordService;
+            this.objectMapper = objectMapper;
         }
     
 
+    // écrit en flux, une page de dossiers à la fois
     @GetMapping
-    public ResponseEntity<List<MedicalRecord>> getAllMedicalRecords() {
+    public ResponseEntity<StreamingResponseBody> getAllMedicalRecords() {
         logger.info("GET /medicalRecords");
-        return ResponseEntity.ok(medicalRecordService.getAllMedicalRecords());
+        return JsonStreaming.response(objectMapper, generator -> {
+            generator.writeStartArray();
+            medicalRecordService.forEachMedicalRecordPage(page -> JsonStreaming.writeItems(generator, page));
+            generator.writeEndArray();
+        });
+    }
+
+    // page de dossiers après le curseur after, sans OFFSET
+    @GetMapping(params = "limit")
+    public ResponseEntity<List<MedicalRecord>> getMedicalRecordsPage(@RequestParam(required = false) Long after,
+                                                                     @RequestParam int limit) {
+        logger.info("GET /medicalRecords?after={}&limit={}", after, limit);
+        if (!KeysetPage.isValidLimit(limit)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return KeysetPage.response("/medicalRecords", limit, medicalRecordService.getMedicalRecordsPage(after, limit),
+                MedicalRecord::getId);
+    }
+
+    // curseur seul : page de taille par défaut (voir KeysetPage)
+    @GetMapping(params = {"after", "!limit"})
+    public ResponseEntity<List<MedicalRecord>> getMedicalRecordsAfter(@RequestParam Long after) {
+        return getMedicalRecordsPage(after, KeysetPage.DEFAULT_LIMIT);
     }
 
     @GetMapping("/{id}")
@@ -40,6 +73,19 @@ public class MedicalRecordController {
         return ResponseEntity.ok(medicalRecordService.saveMedicalRecord(medicalRecord));
     }
 
+    // envoi groupé en tableau JSON ou NDJSON, lu au fil de l'eau ; un statut par élément dans l'ordre de l'envoi
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<List<BatchItemStatus>> upsertMedicalRecords(InputStream body) throws IOException {
+        logger.info("POST /medicalRecords/batch");
+        try (MappingIterator<MedicalRecord> items = JsonStreaming.readValues(objectMapper, body, MedicalRecord.class)) {
+            return ResponseEntity.ok(medicalRecordService.upsertMedicalRecords(items));
+        } catch (JsonProcessingException e) {
+            // corps illisible dès son début : rien n'a été écrit
+            logger.warn("POST /medicalRecords/batch - corps invalide : {}", e.getOriginalMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteMedicalRecord(@PathVariable Long id) {
         logger.info("DELETE /medicalRecords/{}", id);
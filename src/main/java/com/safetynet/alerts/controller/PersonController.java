@@ -1,12 +1,25 @@
 package com.safetynet.alerts.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safetynet.alerts.dto.BatchItemStatus;
+import com.safetynet.alerts.dto.ChildAlert;
+import com.safetynet.alerts.dto.FireResident;
+import com.safetynet.alerts.dto.FloodResident;
+import com.safetynet.alerts.dto.PersonInfo;
+import com.safetynet.alerts.dto.PhoneAlert;
 import com.safetynet.alerts.model.Person;
 import com.safetynet.alerts.service.PersonService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -17,15 +30,36 @@ import java.util.Optional;
 public class PersonController {
     private static final Logger logger = LoggerFactory.getLogger(PersonController.class);
     private final PersonService personService;
+    private final ObjectMapper objectMapper;
     
-    public PersonController(PersonService personService) {
+    public PersonController(PersonService personService, ObjectMapper objectMapper) {
         this.personService = personService;
+        this.objectMapper = objectMapper;
     }
 
+    // écrit en flux : la liste complète n'est jamais construite en mémoire
     @GetMapping
-    public ResponseEntity<List<Person>> getAllPersons() {
+    public ResponseEntity<StreamingResponseBody> getAllPersons() {
         logger.info("GET /persons");
-        return ResponseEntity.ok(personService.getAllPersons());
+        return JsonStreaming.response(objectMapper, generator -> personService.streamAllPersons(
+                persons -> JsonStreaming.writeArray(generator, persons.iterator(), null)));
+    }
+
+    // page de personnes après le curseur after, sans OFFSET
+    @GetMapping(params = "limit")
+    public ResponseEntity<List<Person>> getPersonsPage(@RequestParam(required = false) Long after,
+                                                       @RequestParam int limit) {
+        logger.info("GET /person?after={}&limit={}", after, limit);
+        if (!KeysetPage.isValidLimit(limit)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return KeysetPage.response("/person", limit, personService.getPersonsPage(after, limit), Person::getId);
+    }
+
+    // curseur sans limit : page de taille par défaut, sans quoi after serait ignoré par la liste complète
+    @GetMapping(params = {"after", "!limit"})
+    public ResponseEntity<List<Person>> getPersonsAfter(@RequestParam Long after) {
+        return getPersonsPage(after, KeysetPage.DEFAULT_LIMIT);
     }
 
     @GetMapping("/{id}")
@@ -41,6 +75,19 @@ public class PersonController {
         return ResponseEntity.ok(personService.savePerson(person));
     }
 
+    // envoi groupé en tableau JSON ou NDJSON, lu au fil de l'eau ; un statut par élément dans l'ordre de l'envoi
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<List<BatchItemStatus>> upsertPersons(InputStream body) throws IOException {
+        logger.info("POST /person/batch");
+        try (MappingIterator<Person> items = JsonStreaming.readValues(objectMapper, body, Person.class)) {
+            return ResponseEntity.ok(personService.upsertPersons(items));
+        } catch (JsonProcessingException e) {
+            // corps illisible dès son début : rien n'a été écrit
+            logger.warn("POST /person/batch - corps invalide : {}", e.getOriginalMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deletePerson(@PathVariable Long id) {
         logger.info("DELETE /persons/{}", id);
@@ -48,9 +95,9 @@ public class PersonController {
         return ResponseEntity.noContent().build();
     }
     @GetMapping("/childAlert")
-    public ResponseEntity<List<Map<String, Object>>> getChildrenByAddress(@RequestParam String address) {
+    public ResponseEntity<List<?>> getChildrenByAddress(@RequestParam String address) {
         logger.info("GET /childAlert?address={}", address);
-        List<Map<String, Object>> children = personService.getChildrenByAddress(address);
+        List<ChildAlert> children = personService.getChildrenByAddress(address);
 
         if (children.isEmpty()) {
             return ResponseEntity.ok(Collections.singletonList(Map.of("message", "Aucun enfant trouvé à cette adresse.")));
@@ -60,9 +107,9 @@ public class PersonController {
     }
     
     @GetMapping("/phoneAlert")
-    public ResponseEntity<List<Map<String, Object>>> getPhoneNumbersByStation(@RequestParam int firestation) {
+    public ResponseEntity<List<?>> getPhoneNumbersByStation(@RequestParam int firestation) {
         logger.info("GET /phoneAlert?firestation={}", firestation);
-        List<Map<String, Object>> phones = personService.getPhoneNumbersByStation(firestation);
+        List<PhoneAlert> phones = personService.getPhoneNumbersByStation(firestation);
 
         if (phones.isEmpty()) {
             return ResponseEntity.ok(Collections.singletonList(Map.of("message", "Aucun numéro trouvé pour cette station.")));
@@ -72,23 +119,23 @@ public class PersonController {
     }
     
     @GetMapping("/fire")
-    public ResponseEntity<List<Map<String, Object>>> getPersonsAndStationByAddress(@RequestParam String address) {
+    public ResponseEntity<List<FireResident>> getPersonsAndStationByAddress(@RequestParam String address) {
         logger.info("GET /fire?address={}", address);
-        List<Map<String, Object>> response = personService.getPersonsAndStationByAddress(address);
+        List<FireResident> response = personService.getPersonsAndStationByAddress(address);
         return ResponseEntity.ok(response);
     }
     
     @GetMapping("/flood/stations")
-    public ResponseEntity<Map<String, List<Map<String, Object>>>> getHouseholdsByStations(@RequestParam List<Integer> stations) {
+    public ResponseEntity<Map<String, List<FloodResident>>> getHouseholdsByStations(@RequestParam List<Integer> stations) {
         logger.info("GET /flood/stations?stations={}", stations);
-        Map<String, List<Map<String, Object>>> response = personService.getHouseholdsByStations(stations);
+        Map<String, List<FloodResident>> response = personService.getHouseholdsByStations(stations);
         return ResponseEntity.ok(response);
     }
     
     @GetMapping("/personInfo")
-    public ResponseEntity<List<Map<String, Object>>> getPersonInfoByLastName(@RequestParam String lastName) {
+    public ResponseEntity<List<?>> getPersonInfoByLastName(@RequestParam String lastName) {
         logger.info("GET /personInfo?lastName={}", lastName);
-        List<Map<String, Object>> response = personService.getPersonInfoByLastName(lastName);
+        List<PersonInfo> response = personService.getPersonInfoByLastName(lastName);
 
         if (response.isEmpty()) {
             return ResponseEntity.ok(Collections.singletonList(Map.of("message", "Aucune personne trouvée avec ce nom.")));
@@ -98,14 +145,10 @@ public class PersonController {
     }
     
     @GetMapping("/communityEmail")
-    public ResponseEntity<List<Map<String, Object>>> getCommunityEmailsByCity(@RequestParam String city) {
+    public ResponseEntity<StreamingResponseBody> getCommunityEmailsByCity(@RequestParam String city) {
         logger.info("GET /communityEmail?city={}", city);
-        List<Map<String, Object>> emails = personService.getCommunityEmailsByCity(city);
-
-        if (emails.isEmpty()) {
-            return ResponseEntity.ok(Collections.singletonList(Map.of("message", "Aucun email trouvé pour cette ville.")));
-        }
-
-        return ResponseEntity.ok(emails);
+        return JsonStreaming.response(objectMapper, generator -> personService.streamCommunityEmailsByCity(city,
+                emails -> JsonStreaming.writeArray(generator, emails.iterator(),
+                        Collections.singletonList(Map.of("message", "Aucun email trouvé pour cette ville.")))));
     }
-}
\ No newline at end of file
+}
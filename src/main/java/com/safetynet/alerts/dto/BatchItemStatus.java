@@ -0,0 +1,26 @@
+package com.safetynet.alerts.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+// résultat d'un élément d'un envoi groupé (POST .../batch), index à partir de 0 dans l'ordre du corps
+@JsonPropertyOrder({"index", "status", "id", "error"})
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchItemStatus(int index, Status status, Long id, String error) {
+
+    public enum Status {
+        CREATED, UPDATED, FAILED
+    }
+
+    public static BatchItemStatus created(int index, Long id) {
+        return new BatchItemStatus(index, Status.CREATED, id, null);
+    }
+
+    public static BatchItemStatus updated(int index, Long id) {
+        return new BatchItemStatus(index, Status.UPDATED, id, null);
+    }
+
+    public static BatchItemStatus failed(int index, String error) {
+        return new BatchItemStatus(index, Status.FAILED, null, error);
+    }
+}
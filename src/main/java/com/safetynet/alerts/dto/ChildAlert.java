@@ -0,0 +1,8 @@
+package com.safetynet.alerts.dto;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+// enfant d'une adresse (GET /person/childAlert)
+@JsonPropertyOrder({"firstName", "lastName", "age"})
+public record ChildAlert(String firstName, String lastName, int age) {
+}
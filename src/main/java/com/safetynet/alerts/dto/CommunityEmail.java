@@ -0,0 +1,5 @@
+package com.safetynet.alerts.dto;
+
+// email d'un habitant d'une ville (GET /person/communityEmail)
+public record CommunityEmail(String email) {
+}
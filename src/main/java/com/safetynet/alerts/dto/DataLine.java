@@ -0,0 +1,23 @@
+package com.safetynet.alerts.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.safetynet.alerts.model.Firestation;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+
+// une ligne de l'export NDJSON (GET /admin/export, POST /admin/import) : un seul des trois champs est renseigné
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record DataLine(Person person, Firestation firestation, MedicalRecord medicalrecord) {
+
+    public static DataLine of(Person person) {
+        return new DataLine(person, null, null);
+    }
+
+    public static DataLine of(Firestation firestation) {
+        return new DataLine(null, firestation, null);
+    }
+
+    public static DataLine of(MedicalRecord medicalRecord) {
+        return new DataLine(null, null, medicalRecord);
+    }
+}
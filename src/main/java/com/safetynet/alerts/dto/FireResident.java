@@ -0,0 +1,12 @@
+package com.safetynet.alerts.dto;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.util.List;
+
+// habitant d'une adresse et sa station (GET /person/fire)
+// l'ordre des champs est celui des anciennes réponses construites avec des HashMap
+@JsonPropertyOrder({"allergies", "lastName", "stationNumber", "phone", "medications", "age"})
+public record FireResident(String lastName, String phone, int age, List<String> medications, List<String> allergies,
+                           int stationNumber) {
+}
@@ -0,0 +1,10 @@
+package com.safetynet.alerts.dto;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.util.List;
+
+// habitant d'un foyer couvert par les stations demandées (GET /person/flood/stations)
+@JsonPropertyOrder({"allergies", "lastName", "phone", "medications", "age"})
+public record FloodResident(String lastName, String phone, int age, List<String> medications, List<String> allergies) {
+}
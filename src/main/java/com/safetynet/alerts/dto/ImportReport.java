@@ -0,0 +1,7 @@
+package com.safetynet.alerts.dto;
+
+import java.util.List;
+
+// bilan d'un import NDJSON (POST /admin/import) ; failures ne garde que les premiers échecs
+public record ImportReport(long created, long updated, long failed, List<BatchItemStatus> failures) {
+}
@@ -0,0 +1,11 @@
+package com.safetynet.alerts.dto;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.util.List;
+
+// fiche d'une personne recherchée par nom (GET /person/personInfo)
+@JsonPropertyOrder({"allergies", "lastName", "address", "medications", "email", "age"})
+public record PersonInfo(String lastName, String address, int age, List<String> medications, List<String> allergies,
+                         String email) {
+}
@@ -0,0 +1,5 @@
+package com.safetynet.alerts.dto;
+
+// téléphone d'un habitant couvert par une station (GET /person/phoneAlert)
+public record PhoneAlert(String phone) {
+}
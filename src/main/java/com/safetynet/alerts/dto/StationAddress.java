@@ -0,0 +1,8 @@
+package com.safetynet.alerts.dto;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+// adresse couverte par une station (GET /firestations/firestation)
+@JsonPropertyOrder({"address", "station"})
+public record StationAddress(String address, int station) {
+}
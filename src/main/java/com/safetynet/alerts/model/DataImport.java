@@ -0,0 +1,37 @@
+package com.safetynet.alerts.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+
+import java.time.Instant;
+
+// Dernier fichier de données appliqué à une base persistante : source et somme de contrôle de son contenu
+@Entity
+public class DataImport {
+    @Id
+    private String source;
+    private long checksum;
+    private Instant importedAt;
+
+    // Constructeur vide requis pas JPA
+    public DataImport() {
+    }
+
+    public DataImport(String source, long checksum, Instant importedAt) {
+        this.source = source;
+        this.checksum = checksum;
+        this.importedAt = importedAt;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public long getChecksum() {
+        return checksum;
+    }
+
+    public Instant getImportedAt() {
+        return importedAt;
+    }
+}
@@ -6,7 +6,8 @@ import jakarta.persistence.*;
 @Entity
 public class Firestation {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "firestation_seq")
+    @SequenceGenerator(name = "firestation_seq", sequenceName = "firestation_seq", allocationSize = 100)
     private Long id;
     private String address;
     private int station;
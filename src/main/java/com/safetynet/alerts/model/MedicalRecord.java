@@ -1,21 +1,40 @@
 package com.safetynet.alerts.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 
 @Entity
+// index sur (nom, prénom) : clé d'association avec Person ; le nom en tête, plus sélectif qu'un prénom courant
+@Table(indexes = @Index(name = "idx_medical_record_last_first_name", columnList = "lastName, firstName"))
 public class MedicalRecord {
+    public static final DateTimeFormatter BIRTHDATE_FORMAT = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "medical_record_seq")
+    @SequenceGenerator(name = "medical_record_seq", sequenceName = "medical_record_seq", allocationSize = 100)
     private Long id;
     private String firstName;
     private String lastName;
     private String birthdate;
 
+    // date de naissance analysée une seule fois à l'écriture (null si illisible)
+    @JsonIgnore
+    private Long birthdateEpochDay;
+
+    // chargées en subselect : une requête par collection pour tous les dossiers d'un même chargement
     @ElementCollection
+    @Fetch(FetchMode.SUBSELECT)
     private List<String> medications;
 
     @ElementCollection
+    @Fetch(FetchMode.SUBSELECT)
     private List<String> allergies;
 
     public MedicalRecord() {
@@ -25,7 +44,7 @@ public class MedicalRecord {
         this.id = id;
         this.firstName = firstName;
         this.lastName = lastName;
-        this.birthdate = birthdate;
+        setBirthdate(birthdate);
         this.medications = medications;
         this.allergies = allergies;
     }
@@ -60,6 +79,22 @@ public class MedicalRecord {
 
     public void setBirthdate(String birthdate) {
         this.birthdate = birthdate;
+        this.birthdateEpochDay = toEpochDay(birthdate);
+    }
+
+    public Long getBirthdateEpochDay() {
+        return birthdateEpochDay;
+    }
+
+    private static Long toEpochDay(String birthdate) {
+        if (birthdate == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(birthdate, BIRTHDATE_FORMAT).toEpochDay();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
     }
 
     public List<String> getMedications() {
@@ -2,10 +2,18 @@ package com.safetynet.alerts.model;
 
 import jakarta.persistence.*;
 
+import java.util.Locale;
+
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_person_last_name_key", columnList = "lastNameKey"),
+        @Index(name = "idx_person_city_key", columnList = "cityKey"),
+        @Index(name = "idx_person_address", columnList = "address")
+})
 public class Person {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "person_seq")
+    @SequenceGenerator(name = "person_seq", sequenceName = "person_seq", allocationSize = 100)
     private Long id;
     private String firstName;
     private String lastName;
@@ -14,6 +22,9 @@ public class Person {
     private String zip;
     private String phone;
     private String email;
+    // nom et ville en minuscules, tenus à jour à chaque écriture : recherches sans casse servies par les index
+    private String lastNameKey;
+    private String cityKey;
 
     public Person() {
     }
@@ -93,6 +104,18 @@ public class Person {
         this.email = email;
     }
 
+    // forme des colonnes lastNameKey et cityKey, à appliquer aussi aux paramètres de recherche
+    public static String normalize(String value) {
+        return value != null ? value.toLowerCase(Locale.ROOT) : null;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void updateKeys() {
+        lastNameKey = normalize(lastName);
+        cityKey = normalize(city);
+    }
+
     @Override
     public String toString() {
         return "Person{" +
@@ -0,0 +1,9 @@
+package com.safetynet.alerts.repository;
+
+import com.safetynet.alerts.model.DataImport;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DataImportRepository extends JpaRepository<DataImport, String> {
+}
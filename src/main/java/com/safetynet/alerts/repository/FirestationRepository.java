@@ -1,11 +1,20 @@
 package com.safetynet.alerts.repository;
 
 import com.safetynet.alerts.model.Firestation;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 // l'inteface manipule des entités de type Firestation 
 // l'interface FirestationRepository hérite de JpaRepository
 @Repository
 public interface FirestationRepository extends JpaRepository<Firestation, Long> {
-}
\ No newline at end of file
+    // page de casernes après un id donné (parcours par clé, sans OFFSET)
+    List<Firestation> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    // casernes de ces adresses, pour rapprocher un envoi groupé par adresse
+    List<Firestation> findByAddressIn(Collection<String> addresses);
+}
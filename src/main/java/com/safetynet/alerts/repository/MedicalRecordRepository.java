@@ -1,9 +1,19 @@
 package com.safetynet.alerts.repository;
 
 import com.safetynet.alerts.model.MedicalRecord;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface MedicalRecordRepository extends JpaRepository<MedicalRecord, Long> {
-}
\ No newline at end of file
+    // page de dossiers après un id donné (parcours par clé, sans OFFSET)
+    List<MedicalRecord> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    // candidats d'un envoi groupé rapproché par (prénom, nom), cherchés par nom dans idx_medical_record_last_first_name :
+    // un prénom courant ne ramène pas tous les dossiers qui le portent
+    List<MedicalRecord> findByLastNameInAndFirstNameIn(Collection<String> lastNames, Collection<String> firstNames);
+}
@@ -1,12 +1,41 @@
 package com.safetynet.alerts.repository;
 
 import com.safetynet.alerts.model.Person;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface PersonRepository extends JpaRepository<Person, Long> {
     List<Person> findByLastName(String lastName);
+
+    // personnes portant l'un de ces noms (clés déjà normalisées), pour rapprocher un envoi groupé par (prénom, nom)
+    @Query("select p from Person p where p.lastNameKey in :lastNameKeys order by p.id")
+    List<Person> findByLastNameKeyIn(@Param("lastNameKeys") Collection<String> lastNameKeys);
+
+    // page de personnes après un id donné (parcours par clé, sans OFFSET)
+    List<Person> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    // toutes les personnes lues au fil d'un curseur ; le constructeur renvoie des instances non gérées,
+    // le contexte de persistance ne grossit pas avec le nombre de lignes
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.safetynet.alerts.model.Person(p.id, p.firstName, p.lastName, p.address, p.city, p.zip, "
+            + "p.phone, p.email) from Person p order by p.id")
+    Stream<Person> streamAll();
+
+    // emails distincts (en minuscules) des habitants d'une ville, lus au fil d'un curseur :
+    // une famille qui partage une adresse n'est listée qu'une fois ; cityKey est attendu déjà normalisé
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select distinct lower(p.email) from Person p where p.cityKey = :cityKey and p.email is not null "
+            + "order by lower(p.email)")
+    Stream<String> streamEmailsByCityKey(@Param("cityKey") String cityKey);
 }
@@ -0,0 +1,84 @@
+package com.safetynet.alerts.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+// Découpe un ensemble d'adresses en paquets traités en parallèle, le thread appelant compris
+// parallelism borne les cœurs occupés par une requête : le thread appelant plus parallelism - 1 threads d'un pool
+// partagé par toutes les requêtes ; parallelism=1 traite tous les paquets dans le thread appelant
+@Component
+public class AddressFanOut {
+    private final int chunkSize;
+    private final ExecutorService executor; // null si parallelism=1
+
+    public AddressFanOut(@Value("${safetynet.flood.parallelism:4}") int parallelism,
+                         @Value("${safetynet.flood.chunk-size:256}") int chunkSize) {
+        this.chunkSize = chunkSize;
+        if (parallelism <= 1) {
+            this.executor = null;
+            return;
+        }
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(parallelism - 1, runnable -> {
+            Thread thread = new Thread(runnable, "address-fan-out-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // résultats dans l'ordre des paquets ; le premier paquet est traité par le thread appelant,
+    // une requête qui tient en un paquet ne change donc pas de thread
+    public <T> List<T> map(Collection<String> addresses, Function<List<String>, T> loader) {
+        List<List<String>> chunks = chunks(addresses);
+        List<T> results = new ArrayList<>(chunks.size());
+        if (executor == null) {
+            chunks.forEach(chunk -> results.add(loader.apply(chunk)));
+            return results;
+        }
+        List<CompletableFuture<T>> others = new ArrayList<>(chunks.size());
+        for (List<String> chunk : chunks.subList(Math.min(1, chunks.size()), chunks.size())) {
+            others.add(CompletableFuture.supplyAsync(() -> loader.apply(chunk), executor));
+        }
+        try {
+            if (!chunks.isEmpty()) {
+                results.add(loader.apply(chunks.get(0)));
+            }
+            for (CompletableFuture<T> result : others) {
+                results.add(result.join());
+            }
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        } finally {
+            // en cas d'échec, les paquets pas encore commencés sont abandonnés
+            others.forEach(result -> result.cancel(false));
+        }
+        return results;
+    }
+
+    private List<List<String>> chunks(Collection<String> addresses) {
+        List<String> all = new ArrayList<>(addresses);
+        List<List<String>> chunks = new ArrayList<>((all.size() + chunkSize - 1) / chunkSize);
+        for (int from = 0; from < all.size(); from += chunkSize) {
+            chunks.add(all.subList(from, Math.min(all.size(), from + chunkSize)));
+        }
+        return chunks;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.safetynet.alerts.service;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.Period;
+
+// Calcul des âges à partir de la date de naissance en jours epoch
+// La date du jour et le seuil enfant sont calculés une fois par jour et partagés par toutes les requêtes
+@Component
+public class AgeCalculator {
+    // 18 ans ou moins : né strictement après aujourd'hui moins 19 ans
+    private static final int CHILD_MAX_AGE = 18;
+
+    private final Clock clock;
+    private volatile Today today;
+
+    public AgeCalculator() {
+        this(Clock.systemDefaultZone());
+    }
+
+    public AgeCalculator(Clock clock) {
+        this.clock = clock;
+    }
+
+    // âge en années révolues ; 0 si la date de naissance est inconnue ou illisible
+    public int ageOf(Long birthdateEpochDay) {
+        if (birthdateEpochDay == null) {
+            return 0;
+        }
+        LocalDate now = today().date();
+        LocalDate birthdate = LocalDate.ofEpochDay(birthdateEpochDay);
+        if (birthdate.isAfter(now)) {
+            return Period.between(birthdate, now).getYears();
+        }
+        int age = now.getYear() - birthdate.getYear();
+        if (now.getMonthValue() < birthdate.getMonthValue()
+                || (now.getMonthValue() == birthdate.getMonthValue() && now.getDayOfMonth() < birthdate.getDayOfMonth())) {
+            age--;
+        }
+        return age;
+    }
+
+    // jour epoch après lequel une personne est considérée comme un enfant
+    public long childBornAfterEpochDay() {
+        return today().childBornAfterEpochDay();
+    }
+
+    private Today today() {
+        long nowMillis = clock.millis();
+        Today current = today;
+        if (current == null || nowMillis >= current.validUntilMillis()) {
+            LocalDate date = LocalDate.now(clock);
+            long validUntil = date.plusDays(1).atStartOfDay(clock.getZone()).toInstant().toEpochMilli();
+            current = new Today(date, date.minusYears(CHILD_MAX_AGE + 1).toEpochDay(), validUntil);
+            today = current;
+        }
+        return current;
+    }
+
+    private record Today(LocalDate date, long childBornAfterEpochDay, long validUntilMillis) {
+    }
+}
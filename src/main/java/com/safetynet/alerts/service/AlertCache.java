@@ -0,0 +1,156 @@
+package com.safetynet.alerts.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Cache borné des réponses d'alerte (childAlert, phoneAlert, fire, flood)
+// Une écriture sur une personne n'invalide que les entrées de son adresse et des stations qui la couvrent
+// Chaque invalidation avance une génération : une réponse calculée pendant qu'une écriture était publiée
+// n'est pas gardée, l'éviction de cette écriture a pu passer avant qu'elle soit insérée
+// La génération de la dernière éviction de chaque adresse et station est retenue et comparée à chaque lecture :
+// une telle réponse n'est jamais servie depuis le cache, même dans le court instant où elle y figure
+// Une réponse garde aussi la version de l'instantané du modèle de lecture : un rechargement ou un changement de
+// couverture l'écarte dès sa publication, sans attendre le vidage du cache
+@Component
+public class AlertCache implements MeterBinder {
+    private static final Logger logger = LoggerFactory.getLogger(AlertCache.class);
+    private final ReadModel readModel;
+    private final Cache<Key, Entry> cache;
+    // avancée par chaque invalidation, après la publication de l'écriture qui l'a provoquée
+    private final AtomicLong generation = new AtomicLong();
+    // génération du dernier invalidateAll : une entrée chargée avant est périmée
+    private volatile long validFrom;
+    // génération de la dernière éviction par adresse (String) et par station (Integer) ; bornée par les données
+    private final Map<Object, Long> evictedAt = new ConcurrentHashMap<>();
+
+    public AlertCache(ReadModel readModel,
+                      @Value("${safetynet.alert-cache.maximum-size:10000}") long maximumSize,
+                      @Value("${safetynet.alert-cache.expire-after-write:5m}") Duration expireAfterWrite) {
+        this.readModel = readModel;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    // taille, succès, échecs et évictions publiés sous cache.*{cache="alerts"}
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "alerts");
+    }
+
+    public enum Kind { CHILD_ALERT, PHONE_ALERT, FIRE, FLOOD }
+
+    // les alertes par adresse ont l'adresse pour argument, les alertes par station la liste triée des stations
+    private record Key(Kind kind, Object argument) {
+    }
+
+    // réponse, génération et version de l'instantané lues avant de la calculer
+    private record Entry(long generation, long version, Object value) {
+    }
+
+    public <T> T getByAddress(Kind kind, String address, Supplier<T> loader) {
+        return get(new Key(kind, address), loader);
+    }
+
+    public <T> T getByStation(Kind kind, int stationNumber, Supplier<T> loader) {
+        return get(new Key(kind, List.of(stationNumber)), loader);
+    }
+
+    // l'ordre et les doublons des stations demandées ne changent pas la réponse
+    public <T> T getByStations(Kind kind, Collection<Integer> stationNumbers, Supplier<T> loader) {
+        TreeSet<Integer> stations = new TreeSet<>();
+        stationNumbers.stream().filter(Objects::nonNull).forEach(stations::add);
+        return get(new Key(kind, List.copyOf(stations)), loader);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T get(Key key, Supplier<T> loader) {
+        while (true) {
+            long loadedAt = generation.get();
+            long version = readModel.current().version();
+            boolean[] loaded = new boolean[1];
+            Entry entry = cache.get(key, k -> {
+                loaded[0] = true;
+                return new Entry(loadedAt, version, loader.get());
+            });
+            if (loaded[0]) {
+                if (generation.get() != loadedAt) {
+                    // une invalidation a eu lieu pendant le calcul : la réponse sert cet appel sans être gardée
+                    cache.asMap().remove(key, entry);
+                }
+                return (T) entry.value();
+            }
+            if (entry.generation() >= validFrom && entry.version() == readModel.current().version()
+                    && entry.generation() >= evictedAt(key)) {
+                return (T) entry.value();
+            }
+            // calculée avant le dernier invalidateAll, avant une éviction de son adresse ou de ses stations,
+            // ou sur un instantané remplacé depuis
+            cache.asMap().remove(key, entry);
+        }
+    }
+
+    private long evictedAt(Key key) {
+        return switch (key.kind()) {
+            case CHILD_ALERT, FIRE -> evictedAt.getOrDefault(key.argument(), 0L);
+            case PHONE_ALERT, FLOOD -> {
+                long last = 0;
+                for (Object station : (List<?>) key.argument()) {
+                    last = Math.max(last, evictedAt.getOrDefault(station, 0L));
+                }
+                yield last;
+            }
+        };
+    }
+
+    // retire les entrées qui dépendent d'une adresse : alertes de l'adresse et des stations qui la couvrent
+    public void evictAddress(String address) {
+        if (address == null) {
+            return;
+        }
+        long evicted = generation.incrementAndGet();
+        ReadModel.Snapshot snapshot = readModel.current();
+        evictedAt.merge(address, evicted, Math::max);
+        snapshot.stations(address).forEach(station -> evictedAt.merge(station, evicted, Math::max));
+        cache.asMap().keySet().removeIf(key -> switch (key.kind()) {
+            case CHILD_ALERT, FIRE -> address.equals(key.argument());
+            case PHONE_ALERT, FLOOD -> ((List<?>) key.argument()).stream()
+                    .anyMatch(station -> snapshot.addresses((Integer) station).contains(address));
+        });
+    }
+
+    // vide le cache (changement de couverture des casernes ou de dossier médical)
+    public void invalidateAll() {
+        validFrom = generation.incrementAndGet();
+        cache.invalidateAll();
+        logger.debug("Alert cache cleared");
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+}
@@ -0,0 +1,113 @@
+package com.safetynet.alerts.service;
+
+import com.safetynet.alerts.dto.BatchItemStatus;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// Envoi groupé lu au fil de l'eau et écrit par paquets de chunkSize éléments, une transaction par paquet :
+// la mémoire et la durée des verrous ne dépendent pas de la taille de l'envoi, les insertions d'un paquet
+// partent en lots JDBC (hibernate.jdbc.batch_size)
+// Un paquet en échec est annulé et signalé élément par élément, les suivants sont tout de même écrits ;
+// un corps illisible arrête la lecture, les paquets déjà validés restent acquis
+@Component
+public class BatchUpsert {
+    private static final Logger logger = LoggerFactory.getLogger(BatchUpsert.class);
+    private final TransactionTemplate transaction;
+    private final EntityManager entityManager;
+    private final int chunkSize;
+
+    public BatchUpsert(PlatformTransactionManager transactionManager, EntityManager entityManager,
+                       @Value("${safetynet.batch.chunk-size:500}") int chunkSize) {
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.entityManager = entityManager;
+        this.chunkSize = chunkSize;
+    }
+
+    // élément d'un paquet et sa position dans l'envoi
+    public record Item<T>(int index, T value) {
+    }
+
+    // action exécutée une fois le paquet en cours validé (tout de suite hors transaction),
+    // pour reporter ses écritures dans les vues en mémoire sans y publier un paquet ensuite annulé
+    public static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // writer écrit un paquet dans la transaction et renvoie un statut par élément, dans l'ordre du paquet
+    public <T> List<BatchItemStatus> run(Iterator<T> items, Function<List<Item<T>>, List<BatchItemStatus>> writer) {
+        List<BatchItemStatus> statuses = new ArrayList<>();
+        run(items, writer, statuses::add);
+        return statuses;
+    }
+
+    // statuts remis à sink paquet par paquet : un envoi de taille quelconque tient en mémoire constante
+    public <T> void run(Iterator<T> items, Function<List<Item<T>>, List<BatchItemStatus>> writer,
+                        Consumer<BatchItemStatus> sink) {
+        int index = 0;
+        while (true) {
+            List<Item<T>> chunk = new ArrayList<>(chunkSize);
+            try {
+                while (chunk.size() < chunkSize && items.hasNext()) {
+                    T value = items.next();
+                    chunk.add(new Item<>(index++, value));
+                }
+            } catch (RuntimeException e) {
+                // position du flux perdue : la suite du corps n'est pas lue
+                write(chunk, writer).forEach(sink);
+                sink.accept(BatchItemStatus.failed(index, "Élément illisible : " + e.getMessage()));
+                logger.warn("Envoi groupé interrompu à l'élément {} : {}", index, e.getMessage());
+                break;
+            }
+            if (chunk.isEmpty()) {
+                break;
+            }
+            write(chunk, writer).forEach(sink);
+        }
+    }
+
+    private <T> List<BatchItemStatus> write(List<Item<T>> chunk, Function<List<Item<T>>, List<BatchItemStatus>> writer) {
+        if (chunk.isEmpty()) {
+            return List.of();
+        }
+        try {
+            return transaction.execute(status -> {
+                List<BatchItemStatus> statuses = writer.apply(chunk);
+                // avec open-in-view, le contexte de persistance de la requête survit au commit : vidé à chaque paquet,
+                // sinon chaque flush revérifierait toutes les entités des paquets précédents
+                entityManager.flush();
+                entityManager.clear();
+                return statuses;
+            });
+        } catch (RuntimeException e) {
+            logger.error("Paquet {}..{} annulé : {}", chunk.get(0).index(), chunk.get(chunk.size() - 1).index(),
+                    e.getMessage(), e);
+            List<BatchItemStatus> failed = new ArrayList<>(chunk.size());
+            for (Item<T> item : chunk) {
+                failed.add(BatchItemStatus.failed(item.index(), "Paquet annulé : " + e.getMessage()));
+            }
+            return failed;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.safetynet.alerts.service;
+
+import com.safetynet.alerts.dto.BatchItemStatus;
+import com.safetynet.alerts.dto.DataLine;
+import com.safetynet.alerts.dto.ImportReport;
+import com.safetynet.alerts.model.Firestation;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.FirestationRepository;
+import com.safetynet.alerts.repository.PersonRepository;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Export et import du jeu de données complet, une ligne NDJSON par enregistrement (voir DataLine)
+// L'export relit les tables page par page dans l'ordre des ids, l'import écrit le flux par paquets (voir BatchUpsert) :
+// la mémoire occupée ne dépend pas de la taille du jeu de données
+@Service
+public class DataTransfer {
+    private static final Logger logger = LoggerFactory.getLogger(DataTransfer.class);
+    private static final int PAGE_SIZE = 500;
+    private static final int MAX_REPORTED_FAILURES = 100;
+
+    private final PersonRepository personRepository;
+    private final FirestationRepository firestationRepository;
+    private final PersonService personService;
+    private final FirestationService firestationService;
+    private final MedicalRecordService medicalRecordService;
+    private final BatchUpsert batchUpsert;
+    private final FirestationCoverage firestationCoverage;
+    private final AlertCache alertCache;
+    private final EntityManager entityManager;
+
+    public DataTransfer(PersonRepository personRepository, FirestationRepository firestationRepository,
+                        PersonService personService, FirestationService firestationService,
+                        MedicalRecordService medicalRecordService, BatchUpsert batchUpsert,
+                        FirestationCoverage firestationCoverage, AlertCache alertCache,
+                        EntityManager entityManager) {
+        this.personRepository = personRepository;
+        this.firestationRepository = firestationRepository;
+        this.personService = personService;
+        this.firestationService = firestationService;
+        this.medicalRecordService = medicalRecordService;
+        this.batchUpsert = batchUpsert;
+        this.firestationCoverage = firestationCoverage;
+        this.alertCache = alertCache;
+        this.entityManager = entityManager;
+    }
+
+    // personnes, casernes puis dossiers, dans l'ordre des sections de data.json
+    public void forEachLine(Consumer<DataLine> consumer) {
+        logger.info("Exporting dataset");
+        try {
+            long after = Long.MIN_VALUE;
+            List<Person> persons;
+            while (!(persons = personRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(PAGE_SIZE))).isEmpty()) {
+                persons.forEach(person -> consumer.accept(DataLine.of(person)));
+                after = persons.get(persons.size() - 1).getId();
+                // page écrite : le contexte de persistance de la requête (open-in-view) ne la garde pas
+                entityManager.clear();
+            }
+            after = Long.MIN_VALUE;
+            List<Firestation> firestations;
+            while (!(firestations = firestationRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(PAGE_SIZE)))
+                    .isEmpty()) {
+                firestations.forEach(firestation -> consumer.accept(DataLine.of(firestation)));
+                after = firestations.get(firestations.size() - 1).getId();
+                entityManager.clear();
+            }
+            medicalRecordService.forEachMedicalRecordPage(page -> {
+                page.forEach(record -> consumer.accept(DataLine.of(record)));
+                entityManager.clear();
+            });
+        } catch (Exception e) {
+            logger.error("Error exporting dataset: {}", e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    // chaque ligne est rapprochée par clé naturelle comme dans les envois groupés ; rien n'est supprimé
+    public ImportReport importLines(Iterator<DataLine> lines) {
+        logger.info("Importing dataset");
+        try {
+            Report report = new Report();
+            batchUpsert.run(lines, this::importChunk, report);
+            // le modèle de lecture a reçu chaque paquet à son commit ; couverture et cache republiés une fois
+            firestationCoverage.refresh();
+            alertCache.invalidateAll();
+            logger.info("Import terminé : {} créations, {} modifications, {} échecs", report.created, report.updated,
+                    report.failed);
+            return new ImportReport(report.created, report.updated, report.failed, report.failures);
+        } catch (Exception e) {
+            logger.error("Error importing dataset: {}", e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    // un paquet mêle les trois types : chacun est confié à son service, les statuts reprennent l'ordre du flux
+    private List<BatchItemStatus> importChunk(List<BatchUpsert.Item<DataLine>> chunk) {
+        List<BatchUpsert.Item<Person>> persons = new ArrayList<>();
+        List<BatchUpsert.Item<Firestation>> firestations = new ArrayList<>();
+        List<BatchUpsert.Item<MedicalRecord>> records = new ArrayList<>();
+        List<BatchItemStatus> statuses = new ArrayList<>(chunk.size());
+        for (BatchUpsert.Item<DataLine> item : chunk) {
+            DataLine line = item.value();
+            int kinds = (line.person() != null ? 1 : 0) + (line.firestation() != null ? 1 : 0)
+                    + (line.medicalrecord() != null ? 1 : 0);
+            if (kinds != 1) {
+                statuses.add(BatchItemStatus.failed(item.index(),
+                        "une ligne porte exactement un champ person, firestation ou medicalrecord"));
+            } else if (line.person() != null) {
+                persons.add(new BatchUpsert.Item<>(item.index(), line.person()));
+            } else if (line.firestation() != null) {
+                firestations.add(new BatchUpsert.Item<>(item.index(), line.firestation()));
+            } else {
+                records.add(new BatchUpsert.Item<>(item.index(), line.medicalrecord()));
+            }
+        }
+        if (!persons.isEmpty()) {
+            statuses.addAll(personService.upsertPersonChunk(persons));
+        }
+        if (!firestations.isEmpty()) {
+            statuses.addAll(firestationService.upsertFirestationChunk(firestations));
+        }
+        if (!records.isEmpty()) {
+            statuses.addAll(medicalRecordService.upsertMedicalRecordChunk(records));
+        }
+        statuses.sort(Comparator.comparingInt(BatchItemStatus::index));
+        return statuses;
+    }
+
+    // totaux de l'import, les statuts eux-mêmes ne sont pas conservés
+    private static final class Report implements Consumer<BatchItemStatus> {
+        private long created;
+        private long updated;
+        private long failed;
+        private final List<BatchItemStatus> failures = new ArrayList<>();
+
+        @Override
+        public void accept(BatchItemStatus status) {
+            switch (status.status()) {
+                case CREATED -> created++;
+                case UPDATED -> updated++;
+                case FAILED -> {
+                    failed++;
+                    if (failures.size() < MAX_REPORTED_FAILURES) {
+                        failures.add(status);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.safetynet.alerts.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.Set;
+
+// Couverture des casernes : numéro de station -> adresses et adresse -> station
+// Portée par l'instantané du modèle de lecture (voir ReadModel) : elle est publiée avec les habitants,
+// une alerte qui lit les deux doit prendre un seul instantané plutôt que passer par cette classe
+@Component
+public class FirestationCoverage {
+    private final ReadModel readModel;
+
+    public FirestationCoverage(ReadModel readModel) {
+        this.readModel = readModel;
+    }
+
+    // adresses couvertes par une station, dans l'ordre de la table
+    public Set<String> getAddresses(int stationNumber) {
+        return readModel.current().addresses(stationNumber);
+    }
+
+    // adresses couvertes par plusieurs stations
+    public Set<String> getAddresses(Collection<Integer> stationNumbers) {
+        return readModel.current().addresses(stationNumbers);
+    }
+
+    // station d'une adresse (la première déclarée si l'adresse est couverte deux fois)
+    public Optional<Integer> getStation(String address) {
+        return readModel.current().station(address);
+    }
+
+    // reconstruit la couverture depuis la base si elle a déjà été chargée
+    public void refresh() {
+        readModel.refreshCoverage();
+    }
+}
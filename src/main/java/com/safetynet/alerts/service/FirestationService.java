@@ -1,25 +1,38 @@
 package com.safetynet.alerts.service;
 
+import com.safetynet.alerts.dto.BatchItemStatus;
+import com.safetynet.alerts.dto.StationAddress;
 import com.safetynet.alerts.model.Firestation;
 import com.safetynet.alerts.repository.FirestationRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 @Service
 public class FirestationService {
     private static final Logger logger = LoggerFactory.getLogger(FirestationService.class);
     private final FirestationRepository firestationRepository;
+    private final FirestationCoverage firestationCoverage;
+    private final AlertCache alertCache;
+    private final BatchUpsert batchUpsert;
     
-    public FirestationService(FirestationRepository firestationRepository) {
+    public FirestationService(FirestationRepository firestationRepository, FirestationCoverage firestationCoverage,
+                              AlertCache alertCache, BatchUpsert batchUpsert) {
         this.firestationRepository = firestationRepository;
+        this.firestationCoverage = firestationCoverage;
+        this.alertCache = alertCache;
+        this.batchUpsert = batchUpsert;
     }
 
  // méthode pour récupérer toutes les casernes
@@ -27,7 +40,7 @@ public class FirestationService {
         logger.info("Fetching all firestations");
         try {
             List<Firestation> firestations = firestationRepository.findAll();
-            logger.debug("Number of firestations fetched: {}", firestations.size());
+            logger.atDebug().addArgument(firestations::size).log("Number of firestations fetched: {}");
             return firestations;
         } catch (Exception e) {
             logger.error("Error fetching all firestations: {}", e.getMessage(), e);
@@ -35,12 +48,26 @@ public class FirestationService {
         }
     }
 
+    // page de casernes d'id strictement supérieur à after (depuis le début si after est null)
+    public List<Firestation> getFirestationsPage(Long after, int limit) {
+        logger.info("Fetching {} firestations after id {}", limit, after);
+        try {
+            List<Firestation> firestations = firestationRepository.findByIdGreaterThanOrderByIdAsc(
+                    after != null ? after : Long.MIN_VALUE, Limit.of(limit));
+            logger.atDebug().addArgument(firestations::size).log("Number of firestations fetched: {}");
+            return firestations;
+        } catch (Exception e) {
+            logger.error("Error fetching firestations after id {}: {}", after, e.getMessage(), e);
+            throw e;
+        }
+    }
+
     // recherche une firestation par son id
     public Optional<Firestation> getFirestationById(Long id) {
         logger.info("Fetching firestation with id: {}", id);
         try {
             Optional<Firestation> result = firestationRepository.findById(id);
-            logger.debug("Firestation found: {}", result.isPresent());
+            logger.atDebug().addArgument(result::isPresent).log("Firestation found: {}");
             return result;
         } catch (Exception e) {
             logger.error("Error fetching firestation with id {}: {}", id, e.getMessage(), e);
@@ -55,7 +82,10 @@ public class FirestationService {
             logger.debug("Validating firestation before save");
             // ici tu pourrais ajouter une logique métier de validation
             Firestation saved = firestationRepository.save(firestation);
-            logger.debug("Firestation saved successfully with id: {}", saved.getId());
+            firestationCoverage.refresh();
+            // la couverture a changé : toutes les alertes peuvent être touchées
+            alertCache.invalidateAll();
+            logger.atDebug().addArgument(saved::getId).log("Firestation saved successfully with id: {}");
             return saved;
         } catch (Exception e) {
             logger.error("Error saving firestation: {}", e.getMessage(), e);
@@ -68,6 +98,8 @@ public class FirestationService {
         logger.info("Deleting firestation with id: {}", id);
         try {
             firestationRepository.deleteById(id);
+            firestationCoverage.refresh();
+            alertCache.invalidateAll();
             logger.debug("Firestation with id {} deleted successfully", id);
         } catch (Exception e) {
             logger.error("Error deleting firestation with id {}: {}", id, e.getMessage(), e);
@@ -75,20 +107,85 @@ public class FirestationService {
         }
     }
 
-    public List<Map<String, Object>> getPersonsCoveredByStation(int stationNumber) {
-        List<Firestation> firestations = firestationRepository.findAll().stream()
-                .filter(f -> f.getStation() == stationNumber)
-                .collect(Collectors.toList());
+    // envoi groupé : chaque caserne est rapprochée par le couple (adresse, station), comme DataSync
+    // une adresse peut relever de plusieurs stations : un couple connu est retrouvé, un couple nouveau est créé
+    public List<BatchItemStatus> upsertFirestations(Iterator<Firestation> firestations) {
+        logger.info("Upserting firestations");
+        try {
+            List<BatchItemStatus> statuses = batchUpsert.run(firestations, this::upsertFirestationChunk);
+            firestationCoverage.refresh();
+            alertCache.invalidateAll();
+            logger.atDebug().addArgument(statuses::size).log("Firestations upserted: {}");
+            return statuses;
+        } catch (Exception e) {
+            logger.error("Error upserting firestations: {}", e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    // paquet de upsertFirestations ou de l'import complet (DataTransfer), sans republier la couverture
+    public List<BatchItemStatus> upsertFirestationChunk(List<BatchUpsert.Item<Firestation>> chunk) {
+        Set<String> addresses = new HashSet<>();
+        for (BatchUpsert.Item<Firestation> item : chunk) {
+            if (item.value().getAddress() != null) {
+                addresses.add(item.value().getAddress());
+            }
+        }
+        Map<List<Object>, Firestation> byKey = new HashMap<>();
+        if (!addresses.isEmpty()) {
+            for (Firestation existing : firestationRepository.findByAddressIn(addresses)) {
+                // un couple en double garde sa première ligne
+                byKey.merge(key(existing), existing, (first, other) -> first.getId() <= other.getId() ? first : other);
+            }
+        }
+
+        Firestation[] targets = new Firestation[chunk.size()];
+        boolean[] created = new boolean[chunk.size()];
+        List<Firestation> inserts = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            Firestation firestation = chunk.get(i).value();
+            if (firestation.getAddress() == null) {
+                continue;
+            }
+            // un couple déjà présent, en base ou plus tôt dans le paquet, n'a rien à modifier
+            Firestation current = byKey.get(key(firestation));
+            if (current != null) {
+                targets[i] = current;
+            } else {
+                firestation.setId(null);
+                inserts.add(firestation);
+                byKey.put(key(firestation), firestation);
+                targets[i] = firestation;
+                created[i] = true;
+            }
+        }
+        firestationRepository.saveAll(inserts);
+
+        List<BatchItemStatus> statuses = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            int index = chunk.get(i).index();
+            if (targets[i] == null) {
+                statuses.add(BatchItemStatus.failed(index, "address est requis"));
+            } else {
+                statuses.add(created[i] ? BatchItemStatus.created(index, targets[i].getId())
+                        : BatchItemStatus.updated(index, targets[i].getId()));
+            }
+        }
+        return statuses;
+    }
+
+    private static List<Object> key(Firestation firestation) {
+        return Arrays.asList(firestation.getAddress(), firestation.getStation());
+    }
 
-        List<Map<String, Object>> personsInfo = new ArrayList<>();
+    public List<StationAddress> getPersonsCoveredByStation(int stationNumber) {
+        Set<String> addresses = firestationCoverage.getAddresses(stationNumber);
+        List<StationAddress> personsInfo = new ArrayList<>(addresses.size());
 
-        for (Firestation firestation : firestations) {
-            Map<String, Object> personData = new HashMap<>();
-            personData.put("address", firestation.getAddress());
-            personData.put("station", firestation.getStation());
-            personsInfo.add(personData);
+        for (String address : addresses) {
+            personsInfo.add(new StationAddress(address, stationNumber));
         }
 
         return personsInfo;
     }
-}
\ No newline at end of file
+}
@@ -1,28 +1,55 @@
 package com.safetynet.alerts.service;
 
+import com.safetynet.alerts.dto.BatchItemStatus;
 import com.safetynet.alerts.model.MedicalRecord;
 import com.safetynet.alerts.repository.MedicalRecordRepository;
+import org.hibernate.Hibernate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Service
 public class MedicalRecordService {
     private static final Logger logger = LoggerFactory.getLogger(MedicalRecordService.class);
+    // dossiers lus par page lors d'un parcours complet
+    private static final int PAGE_SIZE = 500;
     private final MedicalRecordRepository medicalRecordRepository;
+    private final ReadModel readModel;
+    private final AlertCache alertCache;
+    private final BatchUpsert batchUpsert;
+    private final TransactionTemplate readOnlyTransaction;
     
-    public MedicalRecordService(MedicalRecordRepository medicalRecordRepository) {
+    public MedicalRecordService(MedicalRecordRepository medicalRecordRepository, ReadModel readModel,
+                                AlertCache alertCache, BatchUpsert batchUpsert,
+                                PlatformTransactionManager transactionManager) {
     	this.medicalRecordRepository = medicalRecordRepository;
+    	this.readModel = readModel;
+    	this.alertCache = alertCache;
+    	this.batchUpsert = batchUpsert;
+    	this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+    	this.readOnlyTransaction.setReadOnly(true);
     }
 
     public List<MedicalRecord> getAllMedicalRecords() {
         logger.info("Fetching all medical records");
         try {
             List<MedicalRecord> records = medicalRecordRepository.findAll();
-            logger.debug("Number of medical records fetched: {}", records.size());
+            logger.atDebug().addArgument(records::size).log("Number of medical records fetched: {}");
             return records;
         } catch (Exception e) {
             logger.error("Error fetching medical records: {}", e.getMessage(), e);
@@ -34,7 +61,7 @@ public class MedicalRecordService {
         logger.info("Fetching medical record with id: {}", id);
         try {
             Optional<MedicalRecord> result = medicalRecordRepository.findById(id);
-            logger.debug("Medical record found: {}", result.isPresent());
+            logger.atDebug().addArgument(result::isPresent).log("Medical record found: {}");
             return result;
         } catch (Exception e) {
             logger.error("Error fetching medical record with id {}: {}", id, e.getMessage(), e);
@@ -47,7 +74,10 @@ public class MedicalRecordService {
         try {
             logger.debug("Validating medical record before save");
             MedicalRecord saved = medicalRecordRepository.save(medicalRecord);
-            logger.debug("Medical record saved with id: {}", saved.getId());
+            // âges, médicaments et allergies des alertes déjà calculées ne sont plus à jour
+            readModel.putRecords(List.of(saved));
+            alertCache.invalidateAll();
+            logger.atDebug().addArgument(saved::getId).log("Medical record saved with id: {}");
             return saved;
         } catch (Exception e) {
             logger.error("Error saving medical record: {}", e.getMessage(), e);
@@ -59,10 +89,140 @@ public class MedicalRecordService {
         logger.info("Deleting medical record with id: {}", id);
         try {
             medicalRecordRepository.deleteById(id);
+            readModel.removeRecord(id);
+            alertCache.invalidateAll();
             logger.debug("Medical record with id {} deleted", id);
         } catch (Exception e) {
             logger.error("Error deleting medical record with id {}: {}", id, e.getMessage(), e);
             throw e;
         }
     }
-}
\ No newline at end of file
+
+    // envoi groupé : chaque dossier est rapproché par (prénom, nom), mis à jour s'il existe, créé sinon
+    public List<BatchItemStatus> upsertMedicalRecords(Iterator<MedicalRecord> medicalRecords) {
+        logger.info("Upserting medical records");
+        try {
+            List<BatchItemStatus> statuses = batchUpsert.run(medicalRecords, this::upsertMedicalRecordChunk);
+            alertCache.invalidateAll();
+            logger.atDebug().addArgument(statuses::size).log("Medical records upserted: {}");
+            return statuses;
+        } catch (Exception e) {
+            logger.error("Error upserting medical records: {}", e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    // paquet de upsertMedicalRecords ou de l'import complet (DataTransfer), reporté dans le modèle de lecture à son commit
+    public List<BatchItemStatus> upsertMedicalRecordChunk(List<BatchUpsert.Item<MedicalRecord>> chunk) {
+        Set<String> firstNames = new HashSet<>();
+        Set<String> lastNames = new HashSet<>();
+        for (BatchUpsert.Item<MedicalRecord> item : chunk) {
+            if (item.value().getFirstName() != null && item.value().getLastName() != null) {
+                firstNames.add(item.value().getFirstName());
+                lastNames.add(item.value().getLastName());
+            }
+        }
+        // premier dossier (id croissant) de chaque couple (prénom, nom), celui que lisent les alertes
+        Map<List<String>, MedicalRecord> byName = new HashMap<>();
+        if (!firstNames.isEmpty()) {
+            for (MedicalRecord existing : medicalRecordRepository.findByLastNameInAndFirstNameIn(lastNames, firstNames)) {
+                if (existing.getLastName() != null) {
+                    byName.merge(List.of(existing.getFirstName(), existing.getLastName()), existing,
+                            (first, other) -> first.getId() <= other.getId() ? first : other);
+                }
+            }
+        }
+
+        MedicalRecord[] targets = new MedicalRecord[chunk.size()];
+        boolean[] created = new boolean[chunk.size()];
+        List<MedicalRecord> inserts = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            MedicalRecord record = chunk.get(i).value();
+            if (record.getFirstName() == null || record.getLastName() == null) {
+                continue;
+            }
+            List<String> name = List.of(record.getFirstName(), record.getLastName());
+            MedicalRecord current = byName.get(name);
+            if (current != null) {
+                current.setBirthdate(record.getBirthdate());
+                // une liste remplacée est réécrite entièrement (DELETE puis INSERT) : seulement si son contenu change
+                if (!sameValues(current.getMedications(), record.getMedications())) {
+                    current.setMedications(record.getMedications() != null ? new ArrayList<>(record.getMedications()) : null);
+                }
+                if (!sameValues(current.getAllergies(), record.getAllergies())) {
+                    current.setAllergies(record.getAllergies() != null ? new ArrayList<>(record.getAllergies()) : null);
+                }
+                targets[i] = current;
+            } else {
+                record.setId(null);
+                inserts.add(record);
+                byName.put(name, record);
+                targets[i] = record;
+                created[i] = true;
+            }
+        }
+        medicalRecordRepository.saveAll(inserts);
+        List<MedicalRecord> written = Arrays.stream(targets).filter(Objects::nonNull).toList();
+        BatchUpsert.afterCommit(() -> readModel.putRecords(written));
+
+        List<BatchItemStatus> statuses = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            int index = chunk.get(i).index();
+            if (targets[i] == null) {
+                statuses.add(BatchItemStatus.failed(index, "firstName et lastName sont requis"));
+            } else {
+                statuses.add(created[i] ? BatchItemStatus.created(index, targets[i].getId())
+                        : BatchItemStatus.updated(index, targets[i].getId()));
+            }
+        }
+        return statuses;
+    }
+
+    // une liste absente est relue vide depuis la base
+    private static boolean sameValues(List<String> current, List<String> next) {
+        return (current != null ? new ArrayList<>(current) : List.of())
+                .equals(next != null ? new ArrayList<>(next) : List.of());
+    }
+
+    // page de dossiers d'id strictement supérieur à after (depuis le début si after est null)
+    public List<MedicalRecord> getMedicalRecordsPage(Long after, int limit) {
+        logger.info("Fetching {} medical records after id {}", limit, after);
+        try {
+            List<MedicalRecord> records = loadPage(after != null ? after : Long.MIN_VALUE, limit);
+            logger.atDebug().addArgument(records::size).log("Number of medical records fetched: {}");
+            return records;
+        } catch (Exception e) {
+            logger.error("Error fetching medical records after id {}: {}", after, e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    // tous les dossiers transmis page par page, dans l'ordre des ids
+    // chaque page est lue dans sa propre transaction puis abandonnée :
+    // un curseur sur l'entité garderait tous les dossiers et leurs listes dans le contexte de persistance
+    public void forEachMedicalRecordPage(Consumer<List<MedicalRecord>> consumer) {
+        logger.info("Streaming all medical records");
+        long after = Long.MIN_VALUE;
+        while (true) {
+            List<MedicalRecord> page = loadPage(after, PAGE_SIZE);
+            if (page.isEmpty()) {
+                return;
+            }
+            consumer.accept(page);
+            after = page.get(page.size() - 1).getId();
+        }
+    }
+
+    // une page lue dans une transaction, médicaments et allergies chargés en subselect pour toute la page
+    private List<MedicalRecord> loadPage(long after, int limit) {
+        List<MedicalRecord> page = readOnlyTransaction.execute(status -> {
+            List<MedicalRecord> records = medicalRecordRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(limit));
+            records.forEach(record -> {
+                Hibernate.initialize(record.getMedications());
+                Hibernate.initialize(record.getAllergies());
+            });
+            return records;
+        });
+        return page != null ? page : List.of();
+    }
+}
@@ -1,43 +1,65 @@
 package com.safetynet.alerts.service;
 
-import com.safetynet.alerts.model.Firestation;
-import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.dto.BatchItemStatus;
+import com.safetynet.alerts.dto.ChildAlert;
+import com.safetynet.alerts.dto.CommunityEmail;
+import com.safetynet.alerts.dto.FireResident;
+import com.safetynet.alerts.dto.FloodResident;
+import com.safetynet.alerts.dto.PersonInfo;
+import com.safetynet.alerts.dto.PhoneAlert;
 import com.safetynet.alerts.model.Person;
-import com.safetynet.alerts.repository.FirestationRepository;
-import com.safetynet.alerts.repository.MedicalRecordRepository;
 import com.safetynet.alerts.repository.PersonRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.time.LocalDate;
-import java.time.Period;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class PersonService {
     private static final Logger logger = LoggerFactory.getLogger(PersonService.class);
     private final PersonRepository personRepository;
-    private final MedicalRecordRepository medicalRecordRepository;
-    private final FirestationRepository firestationRepository;
+    private final ReadModel readModel;
+    private final AgeCalculator ageCalculator;
+    private final AlertCache alertCache;
+    private final AddressFanOut addressFanOut;
+    private final BatchUpsert batchUpsert;
+    // transaction de lecture ouverte le temps des parcours en flux
+    private final TransactionTemplate readOnlyTransaction;
     
-    public PersonService(PersonRepository personRepository, MedicalRecordRepository medicalRecordRepository, FirestationRepository firestationRepository) {
+    public PersonService(PersonRepository personRepository, ReadModel readModel, AgeCalculator ageCalculator,
+                         AlertCache alertCache, AddressFanOut addressFanOut, BatchUpsert batchUpsert,
+                         PlatformTransactionManager transactionManager) {
         this.personRepository = personRepository;
-        this.medicalRecordRepository = medicalRecordRepository;
-        this.firestationRepository = firestationRepository;
+        this.readModel = readModel;
+        this.ageCalculator = ageCalculator;
+        this.alertCache = alertCache;
+        this.addressFanOut = addressFanOut;
+        this.batchUpsert = batchUpsert;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
     }
 
     public List<Person> getAllPersons() {
         logger.info("Fetching all persons");
         try {
             List<Person> persons = personRepository.findAll();
-            logger.debug("Number of persons fetched: {}", persons.size());
+            logger.atDebug().addArgument(persons::size).log("Number of persons fetched: {}");
             return persons;
         } catch (Exception e) {
             logger.error("Error fetching persons: {}", e.getMessage(), e);
@@ -45,11 +67,25 @@ public class PersonService {
         }
     }
 
+    // page de personnes d'id strictement supérieur à after (depuis le début si after est null)
+    public List<Person> getPersonsPage(Long after, int limit) {
+        logger.info("Fetching {} persons after id {}", limit, after);
+        try {
+            List<Person> persons = personRepository.findByIdGreaterThanOrderByIdAsc(after != null ? after : Long.MIN_VALUE,
+                    Limit.of(limit));
+            logger.atDebug().addArgument(persons::size).log("Number of persons fetched: {}");
+            return persons;
+        } catch (Exception e) {
+            logger.error("Error fetching persons after id {}: {}", after, e.getMessage(), e);
+            throw e;
+        }
+    }
+
     public Optional<Person> getPersonById(Long id) {
         logger.info("Fetching person with id: {}", id);
         try {
             Optional<Person> result = personRepository.findById(id);
-            logger.debug("Person found: {}", result.isPresent());
+            logger.atDebug().addArgument(result::isPresent).log("Person found: {}");
             return result;
         } catch (Exception e) {
             logger.error("Error fetching person with id {}: {}", id, e.getMessage(), e);
@@ -61,8 +97,14 @@ public class PersonService {
         logger.info("Saving person: {}", person);
         try {
             logger.debug("Validating person before save");
+            // ancienne adresse en cas de déménagement
+            String previousAddress = person.getId() != null ? readModel.current().addressOf(person.getId()) : null;
             Person saved = personRepository.save(person);
-            logger.debug("Person saved successfully with id: {}", saved.getId());
+            // modèle republié avant l'éviction : une alerte recalculée ensuite voit déjà l'écriture
+            readModel.putPersons(List.of(saved));
+            alertCache.evictAddress(previousAddress);
+            alertCache.evictAddress(saved.getAddress());
+            logger.atDebug().addArgument(saved::getId).log("Person saved successfully with id: {}");
             return saved;
         } catch (Exception e) {
             logger.error("Error saving person: {}", e.getMessage(), e);
@@ -73,225 +115,228 @@ public class PersonService {
     public void deletePerson(Long id) {
         logger.info("Deleting person with id: {}", id);
         try {
+            String address = readModel.current().addressOf(id);
             personRepository.deleteById(id);
+            readModel.removePerson(id);
+            alertCache.evictAddress(address);
             logger.debug("Person with id {} deleted successfully", id);
         } catch (Exception e) {
             logger.error("Error deleting person with id {}: {}", id, e.getMessage(), e);
             throw e;
         }
     }
-    
-    public List<Map<String, Object>> getChildrenByAddress(String address) {
-        List<Person> personsAtAddress = personRepository.findAll().stream()
-                .filter(p -> address.equals(p.getAddress()))
-                .collect(Collectors.toList());
 
-        List<Map<String, Object>> childrenInfo = new ArrayList<>();
+    // envoi groupé : chaque personne est rapprochée par (prénom, nom), mise à jour si elle existe, créée sinon
+    public List<BatchItemStatus> upsertPersons(Iterator<Person> persons) {
+        logger.info("Upserting persons");
+        try {
+            List<BatchItemStatus> statuses = batchUpsert.run(persons, this::upsertPersonChunk);
+            // chaque paquet est reporté dans le modèle à son commit ; une seule purge du cache pour tout l'envoi
+            alertCache.invalidateAll();
+            logger.atDebug().addArgument(statuses::size).log("Persons upserted: {}");
+            return statuses;
+        } catch (Exception e) {
+            logger.error("Error upserting persons: {}", e.getMessage(), e);
+            throw e;
+        }
+    }
 
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM/dd/yyyy");
-        LocalDate today = LocalDate.now();
+    // un paquet, dans la transaction ouverte par BatchUpsert : une requête pour retrouver les personnes existantes,
+    // les nouvelles insérées en lots JDBC ; le modèle de lecture reçoit le paquet à son commit
+    public List<BatchItemStatus> upsertPersonChunk(List<BatchUpsert.Item<Person>> chunk) {
+        Set<String> lastNameKeys = new HashSet<>();
+        for (BatchUpsert.Item<Person> item : chunk) {
+            if (item.value().getLastName() != null) {
+                lastNameKeys.add(Person.normalize(item.value().getLastName()));
+            }
+        }
+        Map<List<String>, Person> byName = new HashMap<>();
+        if (!lastNameKeys.isEmpty()) {
+            for (Person existing : personRepository.findByLastNameKeyIn(lastNameKeys)) {
+                if (existing.getFirstName() != null && existing.getLastName() != null) {
+                    byName.putIfAbsent(List.of(existing.getFirstName(), existing.getLastName()), existing);
+                }
+            }
+        }
 
-        for (Person person : personsAtAddress) {
-            Optional<MedicalRecord> recordOpt = medicalRecordRepository.findById(person.getId());
+        Person[] targets = new Person[chunk.size()];
+        boolean[] created = new boolean[chunk.size()];
+        List<Person> inserts = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            Person person = chunk.get(i).value();
+            if (person.getFirstName() == null || person.getLastName() == null) {
+                continue;
+            }
+            List<String> name = List.of(person.getFirstName(), person.getLastName());
+            Person current = byName.get(name);
+            if (current != null) {
+                // entité gérée : l'UPDATE part au commit du paquet
+                current.setAddress(person.getAddress());
+                current.setCity(person.getCity());
+                current.setZip(person.getZip());
+                current.setPhone(person.getPhone());
+                current.setEmail(person.getEmail());
+                targets[i] = current;
+            } else {
+                person.setId(null);
+                inserts.add(person);
+                byName.put(name, person);
+                targets[i] = person;
+                created[i] = true;
+            }
+        }
+        personRepository.saveAll(inserts);
+        List<Person> written = Arrays.stream(targets).filter(Objects::nonNull).toList();
+        BatchUpsert.afterCommit(() -> readModel.putPersons(written));
+
+        List<BatchItemStatus> statuses = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            int index = chunk.get(i).index();
+            if (targets[i] == null) {
+                statuses.add(BatchItemStatus.failed(index, "firstName et lastName sont requis"));
+            } else {
+                statuses.add(created[i] ? BatchItemStatus.created(index, targets[i].getId())
+                        : BatchItemStatus.updated(index, targets[i].getId()));
+            }
+        }
+        return statuses;
+    }
 
-            if (recordOpt.isPresent()) {
-                MedicalRecord record = recordOpt.get();
-                int age = 0;
-                try {
-                    LocalDate birthDate = LocalDate.parse(record.getBirthdate(), formatter);
-                    age = Period.between(birthDate, today).getYears();
-                } catch (Exception ignored) {}
+    // les alertes sont calculées sur un seul instantané du modèle de lecture, sans accès à la base
+    public List<ChildAlert> getChildrenByAddress(String address) {
+        return alertCache.getByAddress(AlertCache.Kind.CHILD_ALERT, address, () -> loadChildrenByAddress(address));
+    }
 
-                if (age <= 18) {
-                    Map<String, Object> childData = new HashMap<>();
-                    childData.put("firstName", person.getFirstName());
-                    childData.put("lastName", person.getLastName());
-                    childData.put("age", age);
-                    childrenInfo.add(childData);
-                }
+    private List<ChildAlert> loadChildrenByAddress(String address) {
+        // un enfant a un dossier et est né après le seuil ; une date illisible compte comme 0 an
+        long bornAfter = ageCalculator.childBornAfterEpochDay();
+        List<ChildAlert> childrenInfo = new ArrayList<>();
+        for (ReadModel.Resident resident : readModel.current().residentsAt(address)) {
+            if (resident.hasRecord()
+                    && (resident.birthdateEpochDay() == null || resident.birthdateEpochDay() > bornAfter)) {
+                childrenInfo.add(new ChildAlert(resident.firstName(), resident.lastName(), ageOf(resident)));
             }
         }
 
         return childrenInfo;
     }
     
-    public List<Map<String, Object>> getPhoneNumbersByStation(int stationNumber) {
-        List<String> addresses = firestationRepository.findAll().stream()
-                .filter(f -> f.getStation() == stationNumber)
-                .map(Firestation::getAddress)
-                .collect(Collectors.toList());
-
-        return personRepository.findAll().stream()
-                .filter(p -> addresses.contains(p.getAddress()))
-                .map(p -> {
-                    Map<String, Object> phoneData = new HashMap<>();
-                    phoneData.put("phone", p.getPhone());
-                    return phoneData;
-                })
-                .collect(Collectors.toList());
+    public List<PhoneAlert> getPhoneNumbersByStation(int stationNumber) {
+        return alertCache.getByStation(AlertCache.Kind.PHONE_ALERT, stationNumber,
+                () -> loadPhoneNumbersByStation(stationNumber));
     }
-    
-    public List<Map<String, Object>> getPersonsAndStationByAddress(String address) {
-        List<Map<String, Object>> personsInfo = new ArrayList<>();
-
-        Optional<Firestation> firestationOpt = firestationRepository.findAll().stream()
-                .filter(f -> address.equals(f.getAddress()))
-                .findFirst();
 
-        if (firestationOpt.isEmpty()) {
-            return personsInfo; // retourne une liste vide si aucune caserne
+    private List<PhoneAlert> loadPhoneNumbersByStation(int stationNumber) {
+        ReadModel.Snapshot snapshot = readModel.current();
+        List<ReadModel.Resident> residents = new ArrayList<>();
+        for (String address : snapshot.addresses(stationNumber)) {
+            residents.addAll(snapshot.residentsAt(address));
         }
+        // même ordre que l'ancien parcours de la table des personnes
+        residents.sort(Comparator.comparing(ReadModel.Resident::id, Comparator.nullsLast(Comparator.naturalOrder())));
 
-        int stationNumber = firestationOpt.get().getStation();
-
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM/dd/yyyy");
-        LocalDate today = LocalDate.now();
-
-        List<Person> persons = personRepository.findAll().stream()
-                .filter(p -> address.equals(p.getAddress()))
-                .collect(Collectors.toList());
-
-        for (Person p : persons) {
-            Map<String, Object> personData = new HashMap<>();
+        List<PhoneAlert> phones = new ArrayList<>(residents.size());
+        for (ReadModel.Resident resident : residents) {
+            phones.add(new PhoneAlert(resident.phone()));
+        }
+        return phones;
+    }
+    
+    public List<FireResident> getPersonsAndStationByAddress(String address) {
+        return alertCache.getByAddress(AlertCache.Kind.FIRE, address, () -> loadPersonsAndStationByAddress(address));
+    }
 
-            Optional<MedicalRecord> recordOpt = medicalRecordRepository.findById(p.getId());
-            int age = 0;
-            List<String> medications = new ArrayList<>();
-            List<String> allergies = new ArrayList<>();
+    private List<FireResident> loadPersonsAndStationByAddress(String address) {
+        // station et habitants lus dans le même instantané
+        ReadModel.Snapshot snapshot = readModel.current();
+        Optional<Integer> stationOpt = snapshot.station(address);
 
-            if (recordOpt.isPresent()) {
-                MedicalRecord record = recordOpt.get();
-                try {
-                    LocalDate birthDate = LocalDate.parse(record.getBirthdate(), formatter);
-                    age = Period.between(birthDate, today).getYears();
-                } catch (Exception ignored) {}
+        if (stationOpt.isEmpty()) {
+            return List.of(); // retourne une liste vide si aucune caserne
+        }
 
-                medications = record.getMedications();
-                allergies = record.getAllergies();
-            }
+        int stationNumber = stationOpt.get();
 
-            personData.put("lastName", p.getLastName());
-            personData.put("phone", p.getPhone());
-            personData.put("age", age);
-            personData.put("medications", medications);
-            personData.put("allergies", allergies);
-            personData.put("stationNumber", stationNumber);
+        List<ReadModel.Resident> residents = snapshot.residentsAt(address);
 
-            personsInfo.add(personData);
+        List<FireResident> personsInfo = new ArrayList<>(residents.size());
+        for (ReadModel.Resident resident : residents) {
+            personsInfo.add(new FireResident(resident.lastName(), resident.phone(), ageOf(resident),
+                    resident.medications(), resident.allergies(), stationNumber));
         }
 
         return personsInfo;
     }
     
-    public Map<String, List<Map<String, Object>>> getHouseholdsByStations(List<Integer> stationNumbers) {
-        Map<String, List<Map<String, Object>>> households = new HashMap<>();
-
-        // Trouver toutes les adresses couvertes par les stations demandées
-        List<String> addresses = firestationRepository.findAll().stream()
-                .filter(f -> stationNumbers.contains(f.getStation()))
-                .map(Firestation::getAddress)
-                .collect(Collectors.toList());
-
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM/dd/yyyy");
-        LocalDate today = LocalDate.now();
-
-        // Pour chaque adresse
-        for (String address : addresses) {
-            List<Map<String, Object>> personsAtAddress = new ArrayList<>();
-
-            List<Person> persons = personRepository.findAll().stream()
-                    .filter(p -> address.equals(p.getAddress()))
-                    .collect(Collectors.toList());
-
-            for (Person person : persons) {
-                Map<String, Object> personData = new HashMap<>();
+    public Map<String, List<FloodResident>> getHouseholdsByStations(List<Integer> stationNumbers) {
+        return alertCache.getByStations(AlertCache.Kind.FLOOD, stationNumbers, () -> loadHouseholdsByStations(stationNumbers));
+    }
 
-                Optional<MedicalRecord> recordOpt = medicalRecordRepository.findById(person.getId());
-                int age = 0;
-                List<String> medications = new ArrayList<>();
-                List<String> allergies = new ArrayList<>();
+    // le foyer reste une entrée adresse -> habitants : la réponse est un objet JSON indexé par adresse
+    private Map<String, List<FloodResident>> loadHouseholdsByStations(List<Integer> stationNumbers) {
+        Map<String, List<FloodResident>> households = new HashMap<>();
 
-                if (recordOpt.isPresent()) {
-                    MedicalRecord record = recordOpt.get();
-                    try {
-                        LocalDate birthDate = LocalDate.parse(record.getBirthdate(), formatter);
-                        age = Period.between(birthDate, today).getYears();
-                    } catch (Exception ignored) {}
+        // un seul instantané pour toute la réponse, même si les paquets d'adresses sont traités en parallèle
+        ReadModel.Snapshot snapshot = readModel.current();
 
-                    medications = record.getMedications();
-                    allergies = record.getAllergies();
-                }
+        // Trouver toutes les adresses couvertes par les stations demandées
+        Set<String> addresses = snapshot.addresses(stationNumbers);
+        if (addresses.isEmpty()) {
+            return households;
+        }
+        for (Map<String, List<FloodResident>> chunk : addressFanOut.map(addresses, chunk -> households(snapshot, chunk))) {
+            households.putAll(chunk);
+        }
 
-                personData.put("lastName", person.getLastName());
-                personData.put("phone", person.getPhone());
-                personData.put("age", age);
-                personData.put("medications", medications);
-                personData.put("allergies", allergies);
+        return households;
+    }
 
-                personsAtAddress.add(personData);
+    private Map<String, List<FloodResident>> households(ReadModel.Snapshot snapshot, List<String> addresses) {
+        Map<String, List<FloodResident>> households = new HashMap<>();
+        for (String address : addresses) {
+            List<FloodResident> household = new ArrayList<>();
+            for (ReadModel.Resident resident : snapshot.residentsAt(address)) {
+                household.add(new FloodResident(resident.lastName(), resident.phone(), ageOf(resident),
+                        resident.medications(), resident.allergies()));
             }
-
-            households.put(address, personsAtAddress);
+            households.put(address, household);
         }
-
         return households;
     }
     
-    public List<Map<String, Object>> getPersonInfoByLastName(String lastName) {
-        List<Map<String, Object>> personsInfo = new ArrayList<>();
-
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM/dd/yyyy");
-        LocalDate today = LocalDate.now();
-
-        List<Person> persons = personRepository.findAll().stream()
-                .filter(p -> lastName.equalsIgnoreCase(p.getLastName()))
-                .collect(Collectors.toList());
-
-        for (Person p : persons) {
-            Map<String, Object> personData = new HashMap<>();
-
-            Optional<MedicalRecord> recordOpt = medicalRecordRepository.findById(p.getId());
-            int age = 0;
-            List<String> medications = new ArrayList<>();
-            List<String> allergies = new ArrayList<>();
-
-            if (recordOpt.isPresent()) {
-                MedicalRecord record = recordOpt.get();
-                try {
-                    LocalDate birthDate = LocalDate.parse(record.getBirthdate(), formatter);
-                    age = Period.between(birthDate, today).getYears();
-                } catch (Exception ignored) {}
-
-                medications = record.getMedications();
-                allergies = record.getAllergies();
-            }
-
-            personData.put("lastName", p.getLastName());
-            personData.put("address", p.getAddress());
-            personData.put("email", p.getEmail());
-            personData.put("age", age);
-            personData.put("medications", medications);
-            personData.put("allergies", allergies);
+    public List<PersonInfo> getPersonInfoByLastName(String lastName) {
+        List<ReadModel.Resident> residents = readModel.current().residentsNamed(lastName);
 
-            personsInfo.add(personData);
+        List<PersonInfo> personsInfo = new ArrayList<>(residents.size());
+        for (ReadModel.Resident resident : residents) {
+            personsInfo.add(new PersonInfo(resident.lastName(), resident.address(), ageOf(resident),
+                    resident.medications(), resident.allergies(), resident.email()));
         }
 
         return personsInfo;
     }
     
-    public List<Map<String, Object>> getCommunityEmailsByCity(String city) {
-        List<Map<String, Object>> emails = new ArrayList<>();
-
-        List<Person> persons = personRepository.findAll().stream()
-                .filter(p -> city.equalsIgnoreCase(p.getCity()))
-                .collect(Collectors.toList());
-
-        for (Person person : persons) {
-            Map<String, Object> emailData = new HashMap<>();
-            emailData.put("email", person.getEmail());
-            emails.add(emailData);
-        }
+    // âge d'après le dossier (0 si la personne n'a pas de dossier ou une date illisible)
+    private int ageOf(ReadModel.Resident resident) {
+        return ageCalculator.ageOf(resident.birthdateEpochDay());
+    }
+    
+    // emails d'une ville transmis au fil de la lecture, dans une transaction ouverte le temps du parcours
+    public void streamCommunityEmailsByCity(String city, Consumer<Stream<CommunityEmail>> consumer) {
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<String> emails = personRepository.streamEmailsByCityKey(Person.normalize(city))) {
+                consumer.accept(emails.map(CommunityEmail::new));
+            }
+        });
+    }
 
-        return emails;
+    // toutes les personnes transmises au fil de la lecture, sans construire la liste complète
+    public void streamAllPersons(Consumer<Stream<Person>> consumer) {
+        logger.info("Streaming all persons");
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<Person> persons = personRepository.streamAll()) {
+                consumer.accept(persons);
+            }
+        });
     }
-}
\ No newline at end of file
+}
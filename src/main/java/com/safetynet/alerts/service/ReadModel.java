@@ -0,0 +1,505 @@
+package com.safetynet.alerts.service;
+
+import com.safetynet.alerts.model.Firestation;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.FirestationRepository;
+import com.safetynet.alerts.repository.MedicalRecordRepository;
+import com.safetynet.alerts.repository.PersonRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+// Modèle de lecture des alertes : personnes et dossiers médicaux associés par (prénom, nom), figés en mémoire,
+// et couverture des casernes (station -> adresses, adresse -> station)
+// Construit entièrement au chargement puis publié d'un bloc par une seule référence volatile : une lecture prend
+// un instantané et n'y voit jamais une écriture à moitié appliquée, ni des habitants et une couverture de deux états différents
+// Une écriture validée y est reportée en delta (voir put/remove) : seules les sous-tables qu'elle touche sont recopiées
+// La version de l'instantané change à chaque reconstruction et à chaque changement de couverture : le cache des
+// alertes écarte les réponses d'une autre version dès la publication (voir AlertCache)
+@Component
+public class ReadModel {
+    private static final Logger logger = LoggerFactory.getLogger(ReadModel.class);
+    private final PersonRepository personRepository;
+    private final MedicalRecordRepository medicalRecordRepository;
+    private final FirestationRepository firestationRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private volatile Snapshot snapshot; // null tant que non construit
+
+    public ReadModel(PersonRepository personRepository, MedicalRecordRepository medicalRecordRepository,
+                     FirestationRepository firestationRepository, PlatformTransactionManager transactionManager) {
+        this.personRepository = personRepository;
+        this.medicalRecordRepository = medicalRecordRepository;
+        this.firestationRepository = firestationRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    // instantané courant, construit depuis la base au premier appel
+    public Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    rebuild();
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    // reconstruit entièrement le modèle depuis la base : chargement initial et rechargement du fichier de données
+    // tout est relu avant d'être publié, habitants et couverture changent ensemble
+    public synchronized void rebuild() {
+        long version = snapshot != null ? snapshot.version + 1 : 0;
+        Snapshot next = readOnlyTransaction.execute(status -> load(version));
+        snapshot = next;
+        logger.atDebug().addArgument(() -> next.byAddress.size()).log("Read model rebuilt with {} addresses");
+    }
+
+    // relit la couverture après une écriture de casernes, les habitants sont repris tels quels
+    // sans effet tant que le modèle n'a pas été construit
+    public synchronized void refreshCoverage() {
+        if (snapshot == null) {
+            return;
+        }
+        Coverage coverage = readOnlyTransaction.execute(status -> Coverage.of(firestationRepository.findAll()));
+        snapshot = snapshot.withCoverage(coverage);
+        logger.debug("Firestation coverage rebuilt with {} stations", coverage.addressesByStation().size());
+    }
+
+    // personnes enregistrées (ids attribués), à appeler une fois l'écriture validée
+    // sans effet tant que le modèle n'a pas été construit : il lira alors la base
+    public synchronized void putPersons(Collection<Person> persons) {
+        if (snapshot == null || persons.isEmpty()) {
+            return;
+        }
+        Delta delta = new Delta(snapshot);
+        for (Person person : persons) {
+            if (person.getId() == null) {
+                continue;
+            }
+            delta.removeResident(person.getId());
+            delta.addResident(Resident.of(person, delta.recordFor(person.getFirstName(), person.getLastName())));
+        }
+        snapshot = delta.build();
+    }
+
+    public synchronized void removePerson(Long id) {
+        if (snapshot == null || id == null) {
+            return;
+        }
+        Delta delta = new Delta(snapshot);
+        delta.removeResident(id);
+        snapshot = delta.build();
+    }
+
+    // dossiers enregistrés : les habitants de leur ancien et de leur nouveau nom sont rattachés à nouveau
+    public synchronized void putRecords(Collection<MedicalRecord> records) {
+        if (snapshot == null || records.isEmpty()) {
+            return;
+        }
+        Delta delta = new Delta(snapshot);
+        for (MedicalRecord record : records) {
+            if (record.getId() == null) {
+                continue;
+            }
+            delta.relink(delta.removeRecord(record.getId()));
+            if (record.getFirstName() != null && record.getLastName() != null) {
+                List<String> name = List.of(record.getFirstName(), record.getLastName());
+                delta.addRecord(name, Medical.of(record));
+                delta.relink(name);
+            }
+        }
+        snapshot = delta.build();
+    }
+
+    public synchronized void removeRecord(Long id) {
+        if (snapshot == null || id == null) {
+            return;
+        }
+        Delta delta = new Delta(snapshot);
+        delta.relink(delta.removeRecord(id));
+        snapshot = delta.build();
+    }
+
+    private Snapshot load(long version) {
+        // dossiers de chaque couple (prénom, nom) par id croissant : le premier est celui des alertes
+        Map<List<String>, List<Medical>> recordsByName = new HashMap<>();
+        Map<Long, List<String>> nameByRecordId = new HashMap<>();
+        for (MedicalRecord record : medicalRecordRepository.findAll(Sort.by("id"))) {
+            if (record.getFirstName() != null && record.getLastName() != null) {
+                List<String> name = List.of(record.getFirstName(), record.getLastName());
+                recordsByName.computeIfAbsent(name, n -> new ArrayList<>()).add(Medical.of(record));
+                nameByRecordId.put(record.getId(), name);
+            }
+        }
+
+        Map<String, List<Resident>> byAddress = new HashMap<>();
+        Map<String, List<Resident>> byLastNameKey = new HashMap<>();
+        Map<Long, Resident> byId = new HashMap<>();
+        for (Person person : personRepository.findAll(Sort.by("id"))) {
+            List<Medical> records = person.getFirstName() != null && person.getLastName() != null
+                    ? recordsByName.get(List.of(person.getFirstName(), person.getLastName())) : null;
+            Resident resident = Resident.of(person, records != null ? records.get(0) : null);
+            byId.put(person.getId(), resident);
+            if (person.getAddress() != null) {
+                byAddress.computeIfAbsent(person.getAddress(), a -> new ArrayList<>()).add(resident);
+            }
+            if (person.getLastName() != null) {
+                byLastNameKey.computeIfAbsent(Person.normalize(person.getLastName()), n -> new ArrayList<>()).add(resident);
+            }
+        }
+        byAddress.replaceAll((address, residents) -> List.copyOf(residents));
+        byLastNameKey.replaceAll((lastName, residents) -> List.copyOf(residents));
+        recordsByName.replaceAll((name, records) -> List.copyOf(records));
+        return new Snapshot(version, Index.of(byAddress), Index.of(byLastNameKey), Index.of(byId),
+                Index.of(recordsByName), Index.of(nameByRecordId), Coverage.of(firestationRepository.findAll()));
+    }
+
+    // habitants rangés par id croissant ; listes immuables
+    public static final class Snapshot {
+        private final long version;
+        private final Index<String, List<Resident>> byAddress;
+        private final Index<String, List<Resident>> byLastNameKey;
+        private final Index<Long, Resident> byId;
+        private final Index<List<String>, List<Medical>> recordsByName;
+        private final Index<Long, List<String>> nameByRecordId;
+        private final Coverage coverage;
+
+        private Snapshot(long version, Index<String, List<Resident>> byAddress,
+                         Index<String, List<Resident>> byLastNameKey, Index<Long, Resident> byId,
+                         Index<List<String>, List<Medical>> recordsByName, Index<Long, List<String>> nameByRecordId,
+                         Coverage coverage) {
+            this.version = version;
+            this.byAddress = byAddress;
+            this.byLastNameKey = byLastNameKey;
+            this.byId = byId;
+            this.recordsByName = recordsByName;
+            this.nameByRecordId = nameByRecordId;
+            this.coverage = coverage;
+        }
+
+        private Snapshot withCoverage(Coverage next) {
+            return new Snapshot(version + 1, byAddress, byLastNameKey, byId, recordsByName, nameByRecordId, next);
+        }
+
+        public long version() {
+            return version;
+        }
+
+        // adresses couvertes par une station, dans l'ordre de la table
+        public Set<String> addresses(int stationNumber) {
+            return coverage.addressesByStation().getOrDefault(stationNumber, Set.of());
+        }
+
+        // adresses couvertes par plusieurs stations
+        public Set<String> addresses(Collection<Integer> stationNumbers) {
+            Set<String> addresses = new LinkedHashSet<>();
+            for (Integer stationNumber : stationNumbers) {
+                if (stationNumber != null) {
+                    addresses.addAll(addresses(stationNumber));
+                }
+            }
+            return addresses;
+        }
+
+        // station d'une adresse (la première déclarée si l'adresse est couverte deux fois)
+        public Optional<Integer> station(String address) {
+            return address != null ? Optional.ofNullable(coverage.stationByAddress().get(address)) : Optional.empty();
+        }
+
+        // toutes les stations qui couvrent une adresse
+        public Set<Integer> stations(String address) {
+            Set<Integer> stations = new HashSet<>();
+            coverage.addressesByStation().forEach((station, addresses) -> {
+                if (addresses.contains(address)) {
+                    stations.add(station);
+                }
+            });
+            return stations;
+        }
+
+        public List<Resident> residentsAt(String address) {
+            List<Resident> residents = address != null ? byAddress.get(address) : null;
+            return residents != null ? residents : List.of();
+        }
+
+        // nom comparé sans tenir compte de la casse
+        public List<Resident> residentsNamed(String lastName) {
+            List<Resident> residents = lastName != null ? byLastNameKey.get(Person.normalize(lastName)) : null;
+            return residents != null ? residents : List.of();
+        }
+
+        // adresse d'une personne dans cet instantané (null si inconnue)
+        public String addressOf(Long id) {
+            Resident resident = id != null ? byId.get(id) : null;
+            return resident != null ? resident.address() : null;
+        }
+    }
+
+    // copie figée d'une personne et de son dossier ; hasRecord est faux si aucun dossier ne porte ses nom et prénom
+    public record Resident(Long id, String firstName, String lastName, String address, String phone, String email,
+                           boolean hasRecord, Long birthdateEpochDay, List<String> medications, List<String> allergies) {
+
+        static Resident of(Person person, Medical record) {
+            return new Resident(person.getId(), person.getFirstName(), person.getLastName(), person.getAddress(),
+                    person.getPhone(), person.getEmail(), record != null,
+                    record != null ? record.birthdateEpochDay() : null,
+                    record != null ? record.medications() : List.of(),
+                    record != null ? record.allergies() : List.of());
+        }
+
+        private Resident withRecord(Medical record) {
+            return new Resident(id, firstName, lastName, address, phone, email, record != null,
+                    record != null ? record.birthdateEpochDay() : null,
+                    record != null ? record.medications() : List.of(),
+                    record != null ? record.allergies() : List.of());
+        }
+    }
+
+    // couverture des casernes figée
+    private record Coverage(Map<Integer, Set<String>> addressesByStation, Map<String, Integer> stationByAddress) {
+
+        static Coverage of(List<Firestation> firestations) {
+            Map<Integer, Set<String>> addressesByStation = new HashMap<>();
+            Map<String, Integer> stationByAddress = new HashMap<>();
+            for (Firestation firestation : firestations) {
+                if (firestation.getAddress() == null) {
+                    continue;
+                }
+                addressesByStation.computeIfAbsent(firestation.getStation(), s -> new LinkedHashSet<>())
+                        .add(firestation.getAddress());
+                stationByAddress.putIfAbsent(firestation.getAddress(), firestation.getStation());
+            }
+            addressesByStation.replaceAll((station, addresses) -> Collections.unmodifiableSet(addresses));
+            return new Coverage(Map.copyOf(addressesByStation), Map.copyOf(stationByAddress));
+        }
+    }
+
+    // copie figée d'un dossier médical
+    private record Medical(Long id, Long birthdateEpochDay, List<String> medications, List<String> allergies) {
+
+        static Medical of(MedicalRecord record) {
+            return new Medical(record.getId(), record.getBirthdateEpochDay(), frozen(record.getMedications()),
+                    frozen(record.getAllergies()));
+        }
+
+        private static List<String> frozen(List<String> values) {
+            return values == null || values.isEmpty() ? List.of() : Collections.unmodifiableList(new ArrayList<>(values));
+        }
+    }
+
+    // modifications d'un instantané, publiées d'un bloc par build()
+    // la version et la couverture de l'instantané sont reprises telles quelles
+    private static final class Delta {
+        private final Snapshot base;
+        private final Index.Editor<String, List<Resident>> byAddress;
+        private final Index.Editor<String, List<Resident>> byLastNameKey;
+        private final Index.Editor<Long, Resident> byId;
+        private final Index.Editor<List<String>, List<Medical>> recordsByName;
+        private final Index.Editor<Long, List<String>> nameByRecordId;
+
+        Delta(Snapshot snapshot) {
+            base = snapshot;
+            byAddress = snapshot.byAddress.edit();
+            byLastNameKey = snapshot.byLastNameKey.edit();
+            byId = snapshot.byId.edit();
+            recordsByName = snapshot.recordsByName.edit();
+            nameByRecordId = snapshot.nameByRecordId.edit();
+        }
+
+        Medical recordFor(String firstName, String lastName) {
+            if (firstName == null || lastName == null) {
+                return null;
+            }
+            List<Medical> records = recordsByName.get(List.of(firstName, lastName));
+            return records != null ? records.get(0) : null;
+        }
+
+        void removeResident(Long id) {
+            Resident previous = byId.remove(id);
+            if (previous == null) {
+                return;
+            }
+            if (previous.address() != null) {
+                without(byAddress, previous.address(), id);
+            }
+            if (previous.lastName() != null) {
+                without(byLastNameKey, Person.normalize(previous.lastName()), id);
+            }
+        }
+
+        void addResident(Resident resident) {
+            byId.put(resident.id(), resident);
+            if (resident.address() != null) {
+                with(byAddress, resident.address(), resident);
+            }
+            if (resident.lastName() != null) {
+                with(byLastNameKey, Person.normalize(resident.lastName()), resident);
+            }
+        }
+
+        // retire un dossier et renvoie le nom qu'il portait (null si inconnu)
+        List<String> removeRecord(Long id) {
+            List<String> name = nameByRecordId.remove(id);
+            if (name != null) {
+                List<Medical> records = new ArrayList<>(recordsByName.get(name));
+                records.removeIf(record -> id.equals(record.id()));
+                if (records.isEmpty()) {
+                    recordsByName.remove(name);
+                } else {
+                    recordsByName.put(name, List.copyOf(records));
+                }
+            }
+            return name;
+        }
+
+        void addRecord(List<String> name, Medical record) {
+            List<Medical> records = new ArrayList<>(recordsByName.getOrDefault(name, List.of()));
+            records.add(record);
+            records.sort(Comparator.comparing(Medical::id));
+            recordsByName.put(name, List.copyOf(records));
+            nameByRecordId.put(record.id(), name);
+        }
+
+        // habitants de ce nom rattachés au premier dossier qui le porte désormais
+        void relink(List<String> name) {
+            if (name == null) {
+                return;
+            }
+            Medical record = recordFor(name.get(0), name.get(1));
+            for (Resident resident : byLastNameKey.getOrDefault(Person.normalize(name.get(1)), List.of())) {
+                if (name.get(0).equals(resident.firstName()) && name.get(1).equals(resident.lastName())) {
+                    removeResident(resident.id());
+                    addResident(resident.withRecord(record));
+                }
+            }
+        }
+
+        Snapshot build() {
+            return new Snapshot(base.version, byAddress.build(), byLastNameKey.build(), byId.build(),
+                    recordsByName.build(), nameByRecordId.build(), base.coverage);
+        }
+
+        private static <K> void without(Index.Editor<K, List<Resident>> index, K key, Long id) {
+            List<Resident> residents = new ArrayList<>(index.getOrDefault(key, List.of()));
+            residents.removeIf(resident -> id.equals(resident.id()));
+            if (residents.isEmpty()) {
+                index.remove(key);
+            } else {
+                index.put(key, List.copyOf(residents));
+            }
+        }
+
+        private static <K> void with(Index.Editor<K, List<Resident>> index, K key, Resident resident) {
+            List<Resident> residents = new ArrayList<>(index.getOrDefault(key, List.of()));
+            residents.add(resident);
+            // même ordre que le chargement (id croissant)
+            residents.sort(Comparator.comparing(Resident::id));
+            index.put(key, List.copyOf(residents));
+        }
+    }
+
+    // table immuable répartie en sous-tables par hachage de la clé : un delta ne recopie que celles qu'il touche
+    private static final class Index<K, V> {
+        private static final int SHARDS = 256;
+        private final List<Map<K, V>> shards;
+
+        private Index(List<Map<K, V>> shards) {
+            this.shards = shards;
+        }
+
+        static <K, V> Index<K, V> of(Map<K, V> entries) {
+            List<Map<K, V>> split = new ArrayList<>(SHARDS);
+            for (int i = 0; i < SHARDS; i++) {
+                split.add(new HashMap<>());
+            }
+            entries.forEach((key, value) -> split.get(shard(key)).put(key, value));
+            return new Index<>(split.stream().map(Map::copyOf).toList());
+        }
+
+        private static int shard(Object key) {
+            int hash = key.hashCode();
+            return (hash ^ (hash >>> 16)) & (SHARDS - 1);
+        }
+
+        V get(K key) {
+            return shards.get(shard(key)).get(key);
+        }
+
+        int size() {
+            int size = 0;
+            for (Map<K, V> shard : shards) {
+                size += shard.size();
+            }
+            return size;
+        }
+
+        Editor<K, V> edit() {
+            return new Editor<>(new ArrayList<>(shards));
+        }
+
+        // copie de travail : une sous-table n'est recopiée qu'à sa première modification
+        static final class Editor<K, V> {
+            private final List<Map<K, V>> shards;
+            private final boolean[] copied = new boolean[SHARDS];
+
+            private Editor(List<Map<K, V>> shards) {
+                this.shards = shards;
+            }
+
+            V get(K key) {
+                return shards.get(shard(key)).get(key);
+            }
+
+            V getOrDefault(K key, V defaultValue) {
+                V value = get(key);
+                return value != null ? value : defaultValue;
+            }
+
+            void put(K key, V value) {
+                writable(shard(key)).put(key, value);
+            }
+
+            V remove(K key) {
+                int shard = shard(key);
+                return shards.get(shard).containsKey(key) ? writable(shard).remove(key) : null;
+            }
+
+            private Map<K, V> writable(int shard) {
+                if (!copied[shard]) {
+                    shards.set(shard, new HashMap<>(shards.get(shard)));
+                    copied[shard] = true;
+                }
+                return shards.get(shard);
+            }
+
+            Index<K, V> build() {
+                for (int i = 0; i < SHARDS; i++) {
+                    if (copied[i]) {
+                        shards.set(i, Collections.unmodifiableMap(shards.get(i)));
+                    }
+                }
+                return new Index<>(List.copyOf(shards));
+            }
+        }
+    }
+}
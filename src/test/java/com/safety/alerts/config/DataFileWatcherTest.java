@@ -0,0 +1,140 @@
+package com.safety.alerts.config;
+
+import com.safetynet.alerts.config.DataFileWatcher;
+import com.safetynet.alerts.config.DataLoader;
+import com.safetynet.alerts.config.DataSnapshot;
+import com.safetynet.alerts.config.DataSync;
+import com.safetynet.alerts.service.AlertCache;
+import com.safetynet.alerts.service.ReadModel;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DataFileWatcherTest {
+
+    @Mock
+    private DataLoader dataLoader;
+
+    @Mock
+    private DataSync dataSync;
+
+    @Mock
+    private ReadModel readModel;
+
+    @Mock
+    private AlertCache alertCache;
+
+    @TempDir
+    Path tempDir;
+
+    private Path file;
+    private DataFileWatcher watcher;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = tempDir.resolve("data.json");
+        Files.writeString(file, "{\"persons\": []}");
+        watcher = new DataFileWatcher(new FileSystemResource(file), dataLoader, dataSync, readModel, alertCache,
+                true, Duration.ofMillis(50));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        watcher.stop();
+    }
+
+    private long checksum() throws IOException {
+        return DataSnapshot.checksum(new FileSystemResource(file));
+    }
+
+    @Test
+    void testReload_UnchangedFileIgnored() throws IOException {
+        when(dataLoader.getLoadedChecksum()).thenReturn(checksum());
+
+        assertEquals(Optional.empty(), watcher.reload());
+        verify(dataSync, never()).apply(any());
+        verifyNoInteractions(readModel, alertCache);
+    }
+
+    @Test
+    void testReload_AppliesDiffThenSwapsViews() throws IOException {
+        when(dataLoader.getLoadedChecksum()).thenReturn(1L);
+        when(dataSync.apply(any())).thenReturn(new DataSync.Result(1, 0, 0));
+
+        assertEquals(Optional.of(new DataSync.Result(1, 0, 0)), watcher.reload());
+
+        // habitants et couverture republiés en un seul instantané après l'écart, le cache vidé en dernier
+        InOrder inOrder = inOrder(dataSync, readModel, alertCache, dataLoader);
+        inOrder.verify(dataSync).apply(any());
+        inOrder.verify(readModel).rebuild();
+        inOrder.verify(alertCache).invalidateAll();
+        inOrder.verify(dataLoader).setLoadedChecksum(checksum());
+        verify(dataSync, never()).recordImport(any(), anyLong());
+    }
+
+    @Test
+    void testReload_PersistentBaseRecordsChecksum() throws IOException {
+        when(dataLoader.getLoadedChecksum()).thenReturn(1L);
+        when(dataSync.apply(any())).thenReturn(new DataSync.Result(0, 1, 0));
+        when(dataSync.isPersistent()).thenReturn(true);
+
+        watcher.reload();
+
+        verify(dataSync).recordImport(new FileSystemResource(file).getDescription(), checksum());
+    }
+
+    @Test
+    void testReload_FailedApplyKeepsCurrentViews() throws IOException {
+        when(dataLoader.getLoadedChecksum()).thenReturn(1L);
+        when(dataSync.apply(any())).thenThrow(new IOException("JSON invalide"));
+
+        assertThrows(IOException.class, () -> watcher.reload());
+        verifyNoInteractions(readModel, alertCache);
+        verify(dataLoader, never()).setLoadedChecksum(anyLong());
+    }
+
+    @Test
+    void testReload_BeforeInitialLoadIgnored() throws IOException {
+        when(dataLoader.getLoadedChecksum()).thenReturn(null);
+
+        assertEquals(Optional.empty(), watcher.reload());
+        verifyNoInteractions(dataSync);
+    }
+
+    // sans inotify, le JDK sonde le dossier toutes les 10 s : délai d'attente large
+    @Test
+    void testWatch_ReplacedFileReloaded() throws IOException {
+        when(dataLoader.getLoadedChecksum()).thenReturn(checksum());
+        when(dataSync.apply(any())).thenReturn(new DataSync.Result(1, 0, 0));
+        watcher.start();
+
+        // un autre fichier du dossier ne déclenche rien ; le nouveau fichier arrive par renommage, comme du flux amont
+        Files.writeString(tempDir.resolve("other.json"), "{}");
+        Path next = tempDir.resolve("data.json.tmp");
+        Files.writeString(next, "{\"persons\": [{\"firstName\": \"John\", \"lastName\": \"Boyd\"}]}");
+        Files.move(next, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        verify(alertCache, timeout(30_000)).invalidateAll();
+        verify(dataSync, times(1)).apply(any());
+        verify(readModel).rebuild();
+    }
+}
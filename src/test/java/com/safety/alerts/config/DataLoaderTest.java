@@ -0,0 +1,398 @@
+package com.safety.alerts.config;
+
+import com.safetynet.alerts.SafetynetAlertsApplication;
+import com.safetynet.alerts.config.DataLoader;
+import com.safetynet.alerts.config.DataSnapshot;
+import com.safetynet.alerts.config.DataSync;
+import com.safetynet.alerts.model.Firestation;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.FirestationRepository;
+import com.safetynet.alerts.repository.MedicalRecordRepository;
+import com.safetynet.alerts.repository.PersonRepository;
+import com.safetynet.alerts.service.ReadModel;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.LivenessState;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DataLoaderTest {
+
+    @Mock
+    private PersonRepository personRepository;
+
+    @Mock
+    private FirestationRepository firestationRepository;
+
+    @Mock
+    private MedicalRecordRepository medicalRecordRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    // base non persistante par défaut (isPersistent() vaut false)
+    @Mock
+    private DataSync dataSync;
+
+    @TempDir
+    Path tempDir;
+
+    private final List<Integer> personBatches = new ArrayList<>();
+    private final AtomicInteger firestations = new AtomicInteger();
+    private final AtomicInteger medicalRecords = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        // les lots sont comptés puis abandonnés, comme après le commit de saveAll
+        lenient().when(personRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            personBatches.add(invocation.<List<Person>>getArgument(0).size());
+            return List.of();
+        });
+        lenient().when(firestationRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            firestations.addAndGet(invocation.<List<Firestation>>getArgument(0).size());
+            return List.of();
+        });
+        lenient().when(medicalRecordRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            medicalRecords.addAndGet(invocation.<List<MedicalRecord>>getArgument(0).size());
+            return List.of();
+        });
+    }
+
+    private DataLoader loader(Resource resource, int batchSize) {
+        return loader(resource, batchSize, snapshot(""));
+    }
+
+    private DataLoader loader(Resource resource, int batchSize, DataSnapshot dataSnapshot) {
+        return new DataLoader(personRepository, firestationRepository, medicalRecordRepository,
+                new ReadModel(personRepository, medicalRecordRepository, firestationRepository,
+                        mock(PlatformTransactionManager.class)),
+                resource, batchSize, 3, eventPublisher, dataSnapshot, dataSync);
+    }
+
+    private DataSnapshot snapshot(String location) {
+        return new DataSnapshot(personRepository, firestationRepository, medicalRecordRepository,
+                mock(PlatformTransactionManager.class), jdbcTemplate, mock(EntityManager.class), location);
+    }
+
+    @Test
+    void testLoadData_ClasspathFile() {
+        loader(new ClassPathResource("data.json"), 1000).loadData();
+
+        assertEquals(List.of(23), personBatches);
+        assertEquals(13, firestations.get());
+        assertEquals(23, medicalRecords.get());
+    }
+
+    @Test
+    void testLoadData_SavesInFixedSizeBatches() throws IOException {
+        Path file = tempDir.resolve("data.json");
+        SyntheticDataGenerator.write(file, 2500);
+
+        loader(new FileSystemResource(file), 1000).loadData();
+
+        assertEquals(List.of(1000, 1000, 500), personBatches);
+        assertEquals(SyntheticDataGenerator.addressCount(2500), firestations.get());
+        assertEquals(2500, medicalRecords.get());
+    }
+
+    @Test
+    void testLoadData_SectionsLoadedConcurrently() throws IOException {
+        Path file = tempDir.resolve("data.json");
+        SyntheticDataGenerator.write(file, 10);
+
+        // les personnes ne peuvent se terminer que si les casernes sont enregistrées en même temps
+        CountDownLatch firestationsSaved = new CountDownLatch(1);
+        AtomicBoolean personsWaited = new AtomicBoolean();
+        when(firestationRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            firestationsSaved.countDown();
+            return List.of();
+        });
+        when(personRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            personsWaited.set(firestationsSaved.await(10, TimeUnit.SECONDS));
+            return List.of();
+        });
+
+        loader(new FileSystemResource(file), 1000).loadData();
+
+        assertTrue(personsWaited.get());
+        assertEquals(10, medicalRecords.get());
+    }
+
+    @Test
+    void testLoadData_EachSectionReadOnce() throws IOException {
+        Path file = tempDir.resolve("data.json");
+        SyntheticDataGenerator.write(file, 20_000);
+        long fileSize = Files.size(file);
+        AtomicLong bytesRead = new AtomicLong();
+        Resource counted = new FileSystemResource(file) {
+            @Override
+            public InputStream getInputStream() throws IOException {
+                return new FilterInputStream(super.getInputStream()) {
+                    @Override
+                    public int read() throws IOException {
+                        int read = super.read();
+                        if (read >= 0) {
+                            bytesRead.incrementAndGet();
+                        }
+                        return read;
+                    }
+
+                    @Override
+                    public int read(byte[] buffer, int offset, int length) throws IOException {
+                        int read = super.read(buffer, offset, length);
+                        if (read > 0) {
+                            bytesRead.addAndGet(read);
+                        }
+                        return read;
+                    }
+                };
+            }
+        };
+
+        loader(counted, 1000).loadData();
+
+        assertEquals(20_000, personBatches.stream().mapToInt(Integer::intValue).sum());
+        assertEquals(20_000, medicalRecords.get());
+        // somme de contrôle et repérage des sections : deux lectures complètes ; puis chaque section une fois
+        // (au tampon de lecture près), au lieu de relire les sections précédentes depuis le début du fichier
+        assertTrue(bytesRead.get() <= 3 * fileSize + 3 * 64 * 1024,
+                bytesRead.get() + " octets lus pour un fichier de " + fileSize);
+    }
+
+    @Test
+    void testLoadData_ReadinessPublishedAfterAllSections() {
+        loader(new ClassPathResource("data.json"), 1000).loadData();
+
+        ArgumentCaptor<AvailabilityChangeEvent<?>> events = ArgumentCaptor.forClass(AvailabilityChangeEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        assertEquals(List.of(ReadinessState.REFUSING_TRAFFIC, ReadinessState.ACCEPTING_TRAFFIC),
+                events.getAllValues().stream().map(AvailabilityChangeEvent::getState).toList());
+    }
+
+    @Test
+    void testLoadData_UnknownSectionSkipped() throws IOException {
+        Path file = tempDir.resolve("data.json");
+        Files.writeString(file, """
+                {"metadata": {"version": 2, "tags": [1, 2]},
+                 "firestations": [{"address": "1509 Culver St", "station": "3"}],
+                 "persons": []}
+                """);
+
+        loader(new FileSystemResource(file), 1000).loadData();
+
+        assertEquals(1, firestations.get());
+        assertTrue(personBatches.isEmpty());
+        verify(medicalRecordRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void testLoadData_MalformedFile_FailsAndMarksBroken() throws IOException {
+        Path file = tempDir.resolve("data.json");
+        Files.writeString(file, "{\"persons\": [{\"firstName\": \"John\"}, 42]}");
+        DataLoader loader = loader(new FileSystemResource(file), 1000);
+
+        IllegalStateException error = assertThrows(IllegalStateException.class, loader::loadData);
+        assertInstanceOf(IOException.class, error.getCause());
+        assertTrue(personBatches.isEmpty());
+        assertNull(loader.getLoadedChecksum());
+        // le trafic n'est jamais déclaré accepté, l'application est déclarée hors service
+        ArgumentCaptor<AvailabilityChangeEvent<?>> events = ArgumentCaptor.forClass(AvailabilityChangeEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        assertEquals(List.of(ReadinessState.REFUSING_TRAFFIC, LivenessState.BROKEN),
+                events.getAllValues().stream().map(AvailabilityChangeEvent::getState).toList());
+    }
+
+    @Test
+    void testStartup_MalformedFile_Fails() throws IOException {
+        Path file = tempDir.resolve("data.json");
+        Files.writeString(file, "{\"persons\": [{\"firstName\": \"John\"}, 42]}");
+
+        // le contexte n'est pas démarré : pas de serveur qui renverrait 503 indéfiniment
+        Exception error = assertThrows(IllegalStateException.class, () -> new SpringApplicationBuilder(SafetynetAlertsApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:" + UUID.randomUUID(),
+                        "--safetynet.data.location=file:" + file.toAbsolutePath(),
+                        "--spring.main.banner-mode=off").close());
+        assertInstanceOf(IOException.class, error.getCause());
+    }
+
+    @Test
+    void testLoadData_ReadsMatchingSnapshotInsteadOfJson() throws IOException {
+        Path snapshotFile = tempDir.resolve("data.snapshot");
+        ClassPathResource dataFile = new ClassPathResource("data.json");
+        // instantané de deux personnes écrit pour ce fichier : le JSON (23 personnes) n'est pas relu
+        List<Person> persons = List.of(
+                new Person(4L, "John", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6512", "jaboyd@email.com"),
+                new Person(9L, "Jacob", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6513", "drk@email.com"));
+        when(personRepository.findByIdGreaterThanOrderByIdAsc(any(), any())).thenReturn(persons).thenReturn(List.of());
+        snapshot(snapshotFile.toString()).save(DataSnapshot.checksum(dataFile));
+
+        loader(dataFile, 1000, snapshot(snapshotFile.toString())).loadData();
+
+        // lignes réinsérées avec leurs ids, pas par le générateur des entités
+        ArgumentCaptor<List<Person>> inserted = ArgumentCaptor.captor();
+        verify(jdbcTemplate).batchUpdate(startsWith("insert into person "), inserted.capture(), eq(2), any());
+        assertEquals(List.of(4L, 9L), inserted.getValue().stream().map(Person::getId).toList());
+        verify(jdbcTemplate).queryForObject("select max(id) from person", Long.class);
+        assertEquals(List.of(), personBatches);
+        assertEquals(0, firestations.get());
+        assertEquals(0, medicalRecords.get());
+    }
+
+    @Test
+    void testLoadData_StaleSnapshotFallsBackToJson() throws IOException {
+        Path snapshotFile = tempDir.resolve("data.snapshot");
+        snapshot(snapshotFile.toString()).save(42L);
+
+        loader(new ClassPathResource("data.json"), 1000, snapshot(snapshotFile.toString())).loadData();
+
+        assertEquals(List.of(23), personBatches);
+        assertEquals(13, firestations.get());
+    }
+
+    @Test
+    void testSaveSnapshot_RequiresLoadedData() {
+        DataLoader loader = loader(new ClassPathResource("data.json"), 1000,
+                snapshot(tempDir.resolve("data.snapshot").toString()));
+
+        assertThrows(IllegalStateException.class, loader::saveSnapshot);
+        // à l'arrêt, rien n'est écrit pour un chargement qui n'a pas eu lieu
+        loader.saveSnapshotOnShutdown();
+        assertFalse(Files.exists(tempDir.resolve("data.snapshot")));
+    }
+
+    @Test
+    void testSaveSnapshotOnShutdown_WritesLoadedData() throws IOException {
+        Path snapshotFile = tempDir.resolve("data.snapshot");
+        DataLoader loader = loader(new ClassPathResource("data.json"), 1000, snapshot(snapshotFile.toString()));
+        loader.loadData();
+
+        loader.saveSnapshotOnShutdown();
+
+        assertTrue(snapshot(snapshotFile.toString()).open(DataSnapshot.checksum(new ClassPathResource("data.json")))
+                .isPresent());
+    }
+
+    @Test
+    void testLoadData_PersistentBaseUpToDate_SkipsImport() throws IOException {
+        ClassPathResource dataFile = new ClassPathResource("data.json");
+        long checksum = DataSnapshot.checksum(dataFile);
+        when(dataSync.isPersistent()).thenReturn(true);
+        when(dataSync.hasData()).thenReturn(true);
+        when(dataSync.isUpToDate(dataFile.getDescription(), checksum)).thenReturn(true);
+
+        loader(dataFile, 1000).loadData();
+
+        assertTrue(personBatches.isEmpty());
+        verify(dataSync, never()).apply(any());
+        verify(dataSync).recordImport(dataFile.getDescription(), checksum);
+        // la couverture est relue depuis la base conservée
+        verify(firestationRepository).findAll();
+    }
+
+    @Test
+    void testLoadData_PersistentBaseChanged_AppliesDiff() throws IOException {
+        ClassPathResource dataFile = new ClassPathResource("data.json");
+        when(dataSync.isPersistent()).thenReturn(true);
+        when(dataSync.hasData()).thenReturn(true);
+
+        loader(dataFile, 1000).loadData();
+
+        assertTrue(personBatches.isEmpty());
+        verify(dataSync).apply(dataFile);
+        verify(dataSync).recordImport(dataFile.getDescription(), DataSnapshot.checksum(dataFile));
+    }
+
+    @Test
+    void testLoadData_PersistentBaseEmpty_FullImport() throws IOException {
+        when(dataSync.isPersistent()).thenReturn(true);
+
+        loader(new ClassPathResource("data.json"), 1000).loadData();
+
+        assertEquals(List.of(23), personBatches);
+        verify(dataSync, never()).apply(any());
+        verify(dataSync).recordImport(any(), anyLong());
+    }
+
+    // Fichier de plusieurs centaines de Mo : mvn test -Dsafetynet.largeDataTest=true
+    @Test
+    @EnabledIfSystemProperty(named = "safetynet.largeDataTest", matches = "true")
+    void testLoadData_LargeFile_HeapStaysBounded() throws IOException {
+        Path file = tempDir.resolve("large.json");
+        SyntheticDataGenerator.write(file, 1_500_000);
+        long fileSize = Files.size(file);
+        assertTrue(fileSize > 300L * 1024 * 1024, "fichier de " + fileSize + " octets");
+
+        // mocks sans historique d'appels : Mockito garderait sinon chaque lot en mémoire
+        personRepository = mock(PersonRepository.class, withSettings().stubOnly());
+        firestationRepository = mock(FirestationRepository.class, withSettings().stubOnly());
+        medicalRecordRepository = mock(MedicalRecordRepository.class, withSettings().stubOnly());
+        setUp();
+
+        // mesure de la mémoire vivante (après GC) pendant le chargement, tous les 100 lots
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long baseline = memory.getHeapMemoryUsage().getUsed();
+        AtomicLong peak = new AtomicLong();
+        AtomicInteger calls = new AtomicInteger();
+        when(medicalRecordRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            if (calls.incrementAndGet() % 100 == 0) {
+                System.gc();
+                peak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed() - baseline, Math::max);
+            }
+            return List.of();
+        });
+
+        loader(new FileSystemResource(file), 1000).loadData();
+
+        assertEquals(1500, personBatches.size());
+        assertTrue(calls.get() >= 1500);
+        // quelques lots en mémoire, sans rapport avec la taille du fichier
+        assertTrue(peak.get() < 64L * 1024 * 1024, "mémoire vivante : " + peak.get() + " octets");
+    }
+}
@@ -0,0 +1,195 @@
+package com.safety.alerts.config;
+
+import com.safetynet.alerts.config.DataSnapshot;
+import com.safetynet.alerts.model.Firestation;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.FirestationRepository;
+import com.safetynet.alerts.repository.MedicalRecordRepository;
+import com.safetynet.alerts.repository.PersonRepository;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DataSnapshotTest {
+
+    @Mock
+    private PersonRepository personRepository;
+
+    @Mock
+    private FirestationRepository firestationRepository;
+
+    @Mock
+    private MedicalRecordRepository medicalRecordRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @TempDir
+    Path tempDir;
+
+    private Path file;
+    private DataSnapshot dataSnapshot;
+
+    @BeforeEach
+    void setUp() {
+        file = tempDir.resolve("data.snapshot");
+        dataSnapshot = new DataSnapshot(personRepository, firestationRepository, medicalRecordRepository,
+                mock(PlatformTransactionManager.class), jdbcTemplate, entityManager, file.toString());
+    }
+
+    // une page par table, puis une page vide
+    private void givenTables() {
+        List<Person> persons = List.of(
+                new Person(1L, "John", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6512", "jaboyd@email.com"),
+                new Person(2L, "Jacob", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6513", null),
+                new Person(5L, "Zoé", "Lefèvre", "29 15th St", "Culver", "97451", "841-874-6513", "zoé@email.com"));
+        List<Firestation> firestations = List.of(
+                new Firestation(1L, "1509 Culver St", 3), new Firestation(2L, "29 15th St", 2));
+        List<MedicalRecord> medicalRecords = List.of(
+                new MedicalRecord(1L, "John", "Boyd", "03/06/1984",
+                        new ArrayList<>(List.of("aznol:350mg", "hydrapermazol:100mg")), new ArrayList<>(List.of("nillacilan"))),
+                new MedicalRecord(2L, "Jacob", "Boyd", null, new ArrayList<>(), null));
+        when(personRepository.findByIdGreaterThanOrderByIdAsc(any(), any())).thenReturn(persons).thenReturn(List.of());
+        when(firestationRepository.findByIdGreaterThanOrderByIdAsc(any(), any())).thenReturn(firestations).thenReturn(List.of());
+        when(medicalRecordRepository.findByIdGreaterThanOrderByIdAsc(any(), any())).thenReturn(medicalRecords).thenReturn(List.of());
+    }
+
+    @Test
+    void testSaveThenOpen_RoundTrip() throws IOException {
+        givenTables();
+        dataSnapshot.save(7L);
+
+        DataSnapshot.Contents contents = dataSnapshot.open(7L).orElseThrow();
+
+        List<Person> persons = new ArrayList<>();
+        assertEquals(3, contents.forEachPersonBatch(2, persons::addAll));
+        assertEquals(List.of("John", "Jacob", "Zoé"), persons.stream().map(Person::getFirstName).toList());
+        // ids conservés, trous compris
+        assertEquals(List.of(1L, 2L, 5L), persons.stream().map(Person::getId).toList());
+        assertNull(persons.get(1).getEmail());
+        assertEquals("zoé@email.com", persons.get(2).getEmail());
+        // chaîne du dictionnaire décodée une fois puis partagée
+        assertSame(persons.get(0).getCity(), persons.get(2).getCity());
+
+        List<Firestation> firestations = new ArrayList<>();
+        contents.forEachFirestationBatch(1000, firestations::addAll);
+        assertEquals(List.of(3, 2), firestations.stream().map(Firestation::getStation).toList());
+        assertEquals("29 15th St", firestations.get(1).getAddress());
+        assertEquals(2L, firestations.get(1).getId());
+
+        List<MedicalRecord> records = new ArrayList<>();
+        contents.forEachMedicalRecordBatch(1000, records::addAll);
+        assertEquals(List.of("aznol:350mg", "hydrapermazol:100mg"), records.get(0).getMedications());
+        assertEquals(List.of("nillacilan"), records.get(0).getAllergies());
+        assertEquals(List.of(1L, 2L), records.stream().map(MedicalRecord::getId).toList());
+        assertEquals(List.of(), records.get(1).getMedications());
+        assertNull(records.get(1).getAllergies());
+        assertNull(records.get(1).getBirthdate());
+        // date de naissance analysée comme lors d'un import JSON
+        assertNotNull(records.get(0).getBirthdateEpochDay());
+    }
+
+    @Test
+    void testSave_ReadsPagesInIdOrder() throws IOException {
+        givenTables();
+        dataSnapshot.save(7L);
+
+        // la page suivante part du dernier id lu, le contexte de persistance est vidé après chaque page
+        verify(personRepository).findByIdGreaterThanOrderByIdAsc(eq(Long.MIN_VALUE), any());
+        verify(personRepository).findByIdGreaterThanOrderByIdAsc(eq(5L), any());
+        verify(entityManager, times(6)).clear();
+        verify(personRepository, never()).findAll();
+    }
+
+    @Test
+    void testRestartSequences_AboveRestoredIds() {
+        when(jdbcTemplate.queryForObject("select max(id) from person", Long.class)).thenReturn(250L);
+        when(jdbcTemplate.queryForObject("select max(id) from firestation", Long.class)).thenReturn(null);
+        when(jdbcTemplate.queryForObject("select max(id) from medical_record", Long.class)).thenReturn(3L);
+
+        dataSnapshot.restartSequences();
+
+        verify(jdbcTemplate).execute("alter sequence person_seq restart with 351");
+        verify(jdbcTemplate).execute("alter sequence medical_record_seq restart with 104");
+        verify(jdbcTemplate, never()).execute(startsWith("alter sequence firestation_seq"));
+    }
+
+    @Test
+    void testSave_BatchesRespectSize() throws IOException {
+        givenTables();
+        dataSnapshot.save(7L);
+
+        List<Integer> batches = new ArrayList<>();
+        dataSnapshot.open(7L).orElseThrow().forEachPersonBatch(2, batch -> batches.add(batch.size()));
+
+        assertEquals(List.of(2, 1), batches);
+    }
+
+    @Test
+    void testOpen_StaleChecksumIgnored() throws IOException {
+        dataSnapshot.save(7L);
+
+        assertTrue(dataSnapshot.open(7L).isPresent());
+        assertTrue(dataSnapshot.open(8L).isEmpty());
+    }
+
+    @Test
+    void testOpen_TruncatedFileIgnored() throws IOException {
+        givenTables();
+        dataSnapshot.save(7L);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 5));
+
+        assertTrue(dataSnapshot.open(7L).isEmpty());
+    }
+
+    @Test
+    void testOpen_MissingOrDisabled() {
+        assertTrue(dataSnapshot.open(7L).isEmpty());
+
+        DataSnapshot disabled = new DataSnapshot(personRepository, firestationRepository, medicalRecordRepository,
+                mock(PlatformTransactionManager.class), jdbcTemplate, entityManager, "");
+        assertFalse(disabled.isEnabled());
+        assertTrue(disabled.open(7L).isEmpty());
+        assertThrows(IllegalStateException.class, () -> disabled.save(7L));
+    }
+
+    @Test
+    void testChecksum_FollowsContent() throws IOException {
+        Path source = tempDir.resolve("data.json");
+        Files.writeString(source, "{\"persons\": []}");
+        long before = DataSnapshot.checksum(new FileSystemResource(source));
+        Files.writeString(source, "{\"persons\": [{}]}");
+
+        assertNotEquals(before, DataSnapshot.checksum(new FileSystemResource(source)));
+        assertEquals(DataSnapshot.checksum(new ClassPathResource("data.json")),
+                DataSnapshot.checksum(new ClassPathResource("data.json")));
+    }
+}
@@ -0,0 +1,124 @@
+package com.safety.alerts.config;
+
+import com.safetynet.alerts.SafetynetAlertsApplication;
+import com.safetynet.alerts.config.DataSync;
+import com.safetynet.alerts.config.JacksonConfig;
+import com.safetynet.alerts.model.Firestation;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.FirestationRepository;
+import com.safetynet.alerts.repository.MedicalRecordRepository;
+import com.safetynet.alerts.repository.PersonRepository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Un paquet en échec annule tout l'écart : sans transaction de test, chaque écriture est réellement validée ou annulée
+@DataJpaTest(properties = "safetynet.data.batch-size=1")
+@ContextConfiguration(classes = SafetynetAlertsApplication.class)
+@Import({DataSync.class, JacksonConfig.class, JacksonAutoConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DataSyncRollbackTest {
+
+    @Autowired
+    private DataSync dataSync;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private FirestationRepository firestationRepository;
+
+    @Autowired
+    private MedicalRecordRepository medicalRecordRepository;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        personRepository.save(new Person(null, "John", "Boyd", "1509 Culver St", "Culver", "97451",
+                "841-874-6512", "jaboyd@email.com"));
+        personRepository.save(new Person(null, "Jacob", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6513", "drk@email.com"));
+        firestationRepository.save(new Firestation(null, "1509 Culver St", 3));
+    }
+
+    // données validées : à retirer pour les autres tests du même contexte
+    @AfterEach
+    void tearDown() {
+        personRepository.deleteAll();
+        firestationRepository.deleteAll();
+        medicalRecordRepository.deleteAll();
+    }
+
+    private FileSystemResource file(String json) throws IOException {
+        Path file = tempDir.resolve("data.json");
+        Files.writeString(file, json);
+        return new FileSystemResource(file);
+    }
+
+    private List<String> phones() {
+        return personRepository.findAll(Sort.by("id")).stream().map(Person::getPhone).toList();
+    }
+
+    @Test
+    void testApply_FailingChunkRollsBackEarlierChunks() throws IOException {
+        // John est modifié par le premier paquet ; le second dépasse la taille de colonne et échoue à l'écriture
+        FileSystemResource file = file("""
+                {"persons": [
+                   {"firstName": "John", "lastName": "Boyd", "address": "1509 Culver St", "city": "Culver",
+                    "zip": "97451", "phone": "841-874-9999", "email": "jaboyd@email.com"},
+                   {"firstName": "Tony", "lastName": "Cooper", "address": "%s", "city": "Culver",
+                    "zip": "97451", "phone": "841-874-6874", "email": "tcoop@ymail.com"}]}
+                """.formatted("x".repeat(300)));
+
+        assertThrows(RuntimeException.class, () -> dataSync.apply(file));
+
+        assertEquals(List.of("841-874-6512", "841-874-6513"), phones());
+    }
+
+    @Test
+    void testApply_UnreadableSectionRollsBackEarlierSections() throws IOException {
+        // personnes entièrement appliquées (John modifié, Jacob retiré) avant une caserne illisible
+        FileSystemResource file = file("""
+                {"persons": [
+                   {"firstName": "John", "lastName": "Boyd", "address": "1509 Culver St", "city": "Culver",
+                    "zip": "97451", "phone": "841-874-9999", "email": "jaboyd@email.com"}],
+                 "firestations": [{"address": "1509 Culver St", "station": "3"}, {"address": "29 15th St", "station": "deux"}]}
+                """);
+
+        assertThrows(IOException.class, () -> dataSync.apply(file));
+
+        assertEquals(List.of("841-874-6512", "841-874-6513"), phones());
+        assertEquals(1, firestationRepository.count());
+    }
+
+    @Test
+    void testApply_CommitsWholeDiff() throws IOException {
+        DataSync.Result result = dataSync.apply(file("""
+                {"persons": [
+                   {"firstName": "John", "lastName": "Boyd", "address": "1509 Culver St", "city": "Culver",
+                    "zip": "97451", "phone": "841-874-9999", "email": "jaboyd@email.com"}]}
+                """));
+
+        assertEquals(new DataSync.Result(0, 1, 1), result);
+        assertEquals(List.of("841-874-9999"), phones());
+    }
+}
@@ -0,0 +1,196 @@
+package com.safety.alerts.config;
+
+import com.safetynet.alerts.SafetynetAlertsApplication;
+import com.safetynet.alerts.config.DataSync;
+import com.safetynet.alerts.config.JacksonConfig;
+import com.safetynet.alerts.model.Firestation;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.FirestationRepository;
+import com.safetynet.alerts.repository.MedicalRecordRepository;
+import com.safetynet.alerts.repository.PersonRepository;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Écart appliqué par clé naturelle sur une base déjà remplie
+// paquets d'une ligne : chaque rapprochement traverse la frontière entre paquets
+@DataJpaTest(properties = "safetynet.data.batch-size=1")
+@ContextConfiguration(classes = SafetynetAlertsApplication.class)
+@Import({DataSync.class, JacksonConfig.class, JacksonAutoConfiguration.class})
+class DataSyncTest {
+
+    @Autowired
+    private DataSync dataSync;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private FirestationRepository firestationRepository;
+
+    @Autowired
+    private MedicalRecordRepository medicalRecordRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @TempDir
+    Path tempDir;
+
+    private Long johnId;
+
+    @BeforeEach
+    void setUp() {
+        johnId = personRepository.save(new Person(null, "John", "Boyd", "1509 Culver St", "Culver", "97451",
+                "841-874-6512", "jaboyd@email.com")).getId();
+        personRepository.save(new Person(null, "Jacob", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6513", "drk@email.com"));
+        firestationRepository.save(new Firestation(null, "1509 Culver St", 3));
+        firestationRepository.save(new Firestation(null, "29 15th St", 2));
+        medicalRecordRepository.save(new MedicalRecord(null, "John", "Boyd", "03/06/1984",
+                new ArrayList<>(List.of("aznol:350mg")), new ArrayList<>(List.of("nillacilan"))));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private FileSystemResource file(String json) throws IOException {
+        Path file = tempDir.resolve("data.json");
+        Files.writeString(file, json);
+        return new FileSystemResource(file);
+    }
+
+    @Test
+    void testApply_OnlyChangedRowsWritten() throws IOException {
+        DataSync.Result result = dataSync.apply(file("""
+                {"persons": [
+                   {"firstName": "John", "lastName": "Boyd", "address": "1509 Culver St", "city": "Culver",
+                    "zip": "97451", "phone": "841-874-9999", "email": "jaboyd@email.com"},
+                   {"firstName": "Tony", "lastName": "Cooper", "address": "112 Steppes Pl", "city": "Culver",
+                    "zip": "97451", "phone": "841-874-6874", "email": "tcoop@ymail.com"}],
+                 "firestations": [{"address": "1509 Culver St", "station": "3"}, {"address": "29 15th St", "station": "4"}],
+                 "medicalrecords": [{"firstName": "John", "lastName": "Boyd", "birthdate": "03/06/1984",
+                    "medications": ["aznol:350mg"], "allergies": ["nillacilan"]}]}
+                """));
+        entityManager.flush();
+        entityManager.clear();
+
+        // John modifié, Tony ajouté, Jacob supprimé ; caserne 29 15th St remplacée ; dossier inchangé
+        assertEquals(new DataSync.Result(2, 1, 2), result);
+        List<Person> persons = personRepository.findAll(Sort.by("id"));
+        assertEquals(List.of("John", "Tony"), persons.stream().map(Person::getFirstName).toList());
+        // la ligne existante est mise à jour, pas recréée
+        assertEquals(johnId, persons.get(0).getId());
+        assertEquals("841-874-9999", persons.get(0).getPhone());
+        assertEquals(List.of(3, 4), firestationRepository.findAll(Sort.by("id")).stream().map(Firestation::getStation).toList());
+        assertEquals(1, medicalRecordRepository.count());
+    }
+
+    @Test
+    void testApply_SameContentWritesNothing() throws IOException {
+        DataSync.Result result = dataSync.apply(file("""
+                {"persons": [
+                   {"firstName": "Jacob", "lastName": "Boyd", "address": "1509 Culver St", "city": "Culver",
+                    "zip": "97451", "phone": "841-874-6513", "email": "drk@email.com"},
+                   {"firstName": "John", "lastName": "Boyd", "address": "1509 Culver St", "city": "Culver",
+                    "zip": "97451", "phone": "841-874-6512", "email": "jaboyd@email.com"}],
+                 "firestations": [{"address": "29 15th St", "station": "2"}, {"address": "1509 Culver St", "station": "3"}],
+                 "medicalrecords": [{"firstName": "John", "lastName": "Boyd", "birthdate": "03/06/1984",
+                    "medications": ["aznol:350mg"], "allergies": ["nillacilan"]}]}
+                """));
+
+        // l'ordre des lignes dans le fichier n'a pas d'importance
+        assertEquals(new DataSync.Result(0, 0, 0), result);
+    }
+
+    @Test
+    void testApply_RecordListsCompared() throws IOException {
+        DataSync.Result result = dataSync.apply(file("""
+                {"medicalrecords": [{"firstName": "John", "lastName": "Boyd", "birthdate": "03/06/1984",
+                    "medications": ["aznol:350mg", "hydrapermazol:100mg"], "allergies": ["nillacilan"]}]}
+                """));
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(new DataSync.Result(0, 1, 0), result);
+        assertEquals(List.of("aznol:350mg", "hydrapermazol:100mg"),
+                medicalRecordRepository.findAll().get(0).getMedications());
+        // sections absentes : tables laissées telles quelles
+        assertEquals(2, personRepository.count());
+        assertEquals(2, firestationRepository.count());
+    }
+
+    @Test
+    void testApply_DuplicateKeyMatchedOncePerRow() throws IOException {
+        Long secondJohnId = personRepository.save(new Person(null, "John", "Boyd", "29 15th St", "Culver", "97451",
+                "841-874-0000", "john2@email.com")).getId();
+        entityManager.flush();
+        entityManager.clear();
+
+        DataSync.Result result = dataSync.apply(file("""
+                {"persons": [
+                   {"firstName": "John", "lastName": "Boyd", "address": "1509 Culver St", "city": "Culver",
+                    "zip": "97451", "phone": "841-874-6512", "email": "jaboyd@email.com"},
+                   {"firstName": "John", "lastName": "Boyd", "address": "29 15th St", "city": "Culver",
+                    "zip": "97451", "phone": "841-874-0000", "email": "john2@email.com"},
+                   {"firstName": "Jacob", "lastName": "Boyd", "address": "1509 Culver St", "city": "Culver",
+                    "zip": "97451", "phone": "841-874-6513", "email": "drk@email.com"}]}
+                """));
+
+        // le second John n'est pas rapproché de la ligne déjà retenue par le paquet précédent
+        assertEquals(new DataSync.Result(0, 0, 0), result);
+        assertEquals(List.of(johnId, secondJohnId), personRepository.findAll(Sort.by("id")).stream()
+                .filter(person -> person.getFirstName().equals("John")).map(Person::getId).toList());
+    }
+
+    @Test
+    void testApply_IdsBeyondIntRange() throws IOException {
+        // ligne restaurée depuis un instantané avec un id au-delà de Integer.MAX_VALUE
+        long largeId = Integer.MAX_VALUE + 7L;
+        entityManager.createNativeQuery("insert into person (id, first_name, last_name, address, city, zip, phone, email, "
+                        + "last_name_key, city_key) values (?, 'Tenley', 'Boyd', '1509 Culver St', 'Culver', '97451', "
+                        + "'841-874-6512', 'tenz@email.com', 'boyd', 'culver')")
+                .setParameter(1, largeId).executeUpdate();
+        entityManager.clear();
+
+        DataSync.Result result = dataSync.apply(file("""
+                {"persons": [
+                   {"firstName": "Tenley", "lastName": "Boyd", "address": "1509 Culver St", "city": "Culver",
+                    "zip": "97451", "phone": "841-874-6512", "email": "tenz@email.com"},
+                   {"firstName": "John", "lastName": "Boyd", "address": "1509 Culver St", "city": "Culver",
+                    "zip": "97451", "phone": "841-874-6512", "email": "jaboyd@email.com"}]}
+                """));
+
+        // Jacob retiré, la ligne au grand id rapprochée et conservée
+        assertEquals(new DataSync.Result(0, 0, 1), result);
+        assertEquals(List.of(johnId, largeId), personRepository.findAll(Sort.by("id")).stream()
+                .map(Person::getId).toList());
+    }
+
+    @Test
+    void testIsUpToDate_FollowsRecordedChecksum() {
+        assertFalse(dataSync.isUpToDate("data.json", 7L));
+
+        dataSync.recordImport("data.json", 7L);
+
+        assertTrue(dataSync.isUpToDate("data.json", 7L));
+        assertFalse(dataSync.isUpToDate("data.json", 8L));
+        assertFalse(dataSync.isUpToDate("other.json", 7L));
+    }
+}
@@ -0,0 +1,83 @@
+package com.safety.alerts.config;
+
+import com.safetynet.alerts.config.InfoSamplingFilter;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InfoSamplingFilterTest {
+
+    private final LoggerContext context = new LoggerContext();
+    private InfoSamplingFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new InfoSamplingFilter();
+        filter.addMessage("Fetching person with id: {}");
+        filter.addMessage("GET /fire?address={}");
+        filter.setRate(3);
+    }
+
+    private List<FilterReply> decide(String loggerName, Level level, String format, int times) {
+        Logger logger = context.getLogger(loggerName);
+        List<FilterReply> replies = new ArrayList<>();
+        for (int i = 0; i < times; i++) {
+            replies.add(filter.decide(null, logger, level, format, new Object[]{i}, null));
+        }
+        return replies;
+    }
+
+    @Test
+    void testInfoSampledOneInRate() {
+        assertEquals(List.of(FilterReply.NEUTRAL, FilterReply.DENY, FilterReply.DENY, FilterReply.NEUTRAL),
+                decide("com.safetynet.alerts.service.PersonService", Level.INFO, "Fetching person with id: {}", 4));
+    }
+
+    @Test
+    void testCounterPerMessage() {
+        decide("com.safetynet.alerts.service.PersonService", Level.INFO, "Fetching person with id: {}", 1);
+
+        // une autre lecture fréquente garde son propre premier message
+        assertEquals(List.of(FilterReply.NEUTRAL, FilterReply.DENY),
+                decide("com.safetynet.alerts.controller.PersonController", Level.INFO, "GET /fire?address={}", 2));
+        assertEquals(List.of(FilterReply.DENY, FilterReply.DENY, FilterReply.NEUTRAL),
+                decide("com.safetynet.alerts.service.PersonService", Level.INFO, "Fetching person with id: {}", 3));
+    }
+
+    @Test
+    void testWarningsAndUnlistedMessagesNeverSampled() {
+        assertEquals(List.of(FilterReply.NEUTRAL, FilterReply.NEUTRAL, FilterReply.NEUTRAL),
+                decide("com.safetynet.alerts.service.PersonService", Level.ERROR, "Fetching person with id: {}", 3));
+        // écritures et administration du même logger
+        assertEquals(List.of(FilterReply.NEUTRAL, FilterReply.NEUTRAL, FilterReply.NEUTRAL),
+                decide("com.safetynet.alerts.service.PersonService", Level.INFO, "Saving person: {}", 3));
+        assertEquals(List.of(FilterReply.NEUTRAL, FilterReply.NEUTRAL, FilterReply.NEUTRAL),
+                decide("com.safetynet.alerts.controller.AdminController", Level.INFO, "POST /admin/import", 3));
+    }
+
+    @Test
+    void testLevelCheckDoesNotConsumeSample() {
+        Logger logger = context.getLogger("com.safetynet.alerts.controller.PersonController");
+
+        // isInfoEnabled() : pas de message
+        assertEquals(FilterReply.NEUTRAL, filter.decide(null, logger, Level.INFO, null, null, null));
+        assertEquals(FilterReply.NEUTRAL, filter.decide(null, logger, Level.INFO, "GET /fire?address={}", null, null));
+    }
+
+    @Test
+    void testRateOneKeepsEverything() {
+        filter.setRate(1);
+
+        assertEquals(List.of(FilterReply.NEUTRAL, FilterReply.NEUTRAL),
+                decide("com.safetynet.alerts.service.PersonService", Level.INFO, "Fetching person with id: {}", 2));
+    }
+}
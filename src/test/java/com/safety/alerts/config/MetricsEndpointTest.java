@@ -0,0 +1,60 @@
+package com.safety.alerts.config;
+
+import com.safetynet.alerts.SafetynetAlertsApplication;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+// Les métriques des services, des repositories et du cache sont publiées sur /actuator/prometheus
+@SpringBootTest(classes = SafetynetAlertsApplication.class)
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+class MetricsEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private String scrape() throws Exception {
+        return mockMvc.perform(get("/actuator/prometheus")).andReturn().getResponse().getContentAsString();
+    }
+
+    @Test
+    void testServiceCallsTimedWithResultSize() throws Exception {
+        mockMvc.perform(get("/person/personInfo").param("lastName", "Boyd"));
+
+        String metrics = scrape();
+
+        assertTrue(metrics.contains("safetynet_service_calls_seconds_count{class=\"PersonService\",exception=\"none\","
+                + "method=\"getPersonInfoByLastName\"}"), metrics);
+        assertTrue(metrics.contains("safetynet_service_calls_seconds_bucket{class=\"PersonService\""));
+        assertTrue(metrics.contains("safetynet_service_result_size_sum{class=\"PersonService\","
+                + "method=\"getPersonInfoByLastName\"}"));
+    }
+
+    @Test
+    void testRepositoryCallsCountedPerRequest() throws Exception {
+        mockMvc.perform(get("/person/{id}", 1));
+        mockMvc.perform(get("/person/personInfo").param("lastName", "Boyd"));
+
+        String metrics = scrape();
+
+        // un seul appel pour lire une personne, aucun pour personInfo servi par le modèle de lecture
+        assertTrue(metrics.contains("safetynet_request_repository_calls_max{uri=\"/person/{id}\"} 1.0"), metrics);
+        assertTrue(metrics.contains("safetynet_request_repository_calls_max{uri=\"/person/personInfo\"} 0.0"), metrics);
+        assertTrue(metrics.contains("spring_data_repository_invocations_seconds_count{"));
+    }
+
+    @Test
+    void testAlertCacheMetrics() throws Exception {
+        mockMvc.perform(get("/person/fire").param("address", "1509 Culver St"));
+
+        assertTrue(scrape().contains("cache_gets_total{cache=\"alerts\""));
+    }
+}
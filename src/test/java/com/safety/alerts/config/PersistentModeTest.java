@@ -0,0 +1,67 @@
+package com.safety.alerts.config;
+
+import com.safetynet.alerts.SafetynetAlertsApplication;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.PersonRepository;
+import com.safetynet.alerts.service.PersonService;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Profil persistent : la base survit au redémarrage et le fichier de données n'est réappliqué que s'il change
+class PersistentModeTest {
+
+    @TempDir
+    Path tempDir;
+
+    // arguments de ligne de commande : prioritaires sur application.properties
+    private ConfigurableApplicationContext start(Path dataFile) {
+        return new SpringApplicationBuilder(SafetynetAlertsApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("persistent")
+                .run("--safetynet.data.location=file:" + dataFile.toAbsolutePath(),
+                        "--safetynet.persistence.directory=" + tempDir.resolve("db").toAbsolutePath(),
+                        "--spring.main.banner-mode=off");
+    }
+
+    @Test
+    void testRestart_KeepsMutationsAndAppliesOnlyFileChanges() throws IOException {
+        Path dataFile = tempDir.resolve("data.json");
+        try (InputStream in = new ClassPathResource("data.json").getInputStream()) {
+            Files.copy(in, dataFile);
+        }
+
+        try (ConfigurableApplicationContext context = start(dataFile)) {
+            assertEquals(23, context.getBean(PersonRepository.class).count());
+            // modification faite par l'API
+            context.getBean(PersonService.class).savePerson(new Person(null, "Ada", "Lovelace", "1 New St", "Culver",
+                    "97451", "841-874-0000", "ada@email.com"));
+        }
+
+        // fichier inchangé : la base est reprise telle quelle, modification comprise
+        try (ConfigurableApplicationContext context = start(dataFile)) {
+            assertEquals(24, context.getBean(PersonRepository.class).count());
+            assertEquals(1, context.getBean(PersonService.class).getPersonInfoByLastName("lovelace").size());
+        }
+
+        // le fichier change : seul l'écart est appliqué, la personne absente du fichier est retirée
+        Files.writeString(dataFile, Files.readString(dataFile).replace("\"841-874-6512\"", "\"841-874-0001\""));
+        try (ConfigurableApplicationContext context = start(dataFile)) {
+            PersonRepository personRepository = context.getBean(PersonRepository.class);
+            assertEquals(23, personRepository.count());
+            assertTrue(personRepository.findAll().stream().noneMatch(person -> "841-874-6512".equals(person.getPhone())));
+            assertTrue(context.getBean(PersonService.class).getPersonInfoByLastName("lovelace").isEmpty());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.safety.alerts.config;
+
+import com.safetynet.alerts.config.ReadinessFilter;
+
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReadinessFilterTest {
+
+    @Mock
+    private ApplicationAvailability applicationAvailability;
+
+    @Mock
+    private FilterChain filterChain;
+
+    @Test
+    void testRefusingTraffic_Returns503() throws Exception {
+        when(applicationAvailability.getReadinessState()).thenReturn(ReadinessState.REFUSING_TRAFFIC);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/flood/stations");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        new ReadinessFilter(applicationAvailability).doFilter(request, response, filterChain);
+
+        assertEquals(503, response.getStatus());
+        assertEquals("1", response.getHeader("Retry-After"));
+        verifyNoInteractions(filterChain);
+    }
+
+    @Test
+    void testAcceptingTraffic_PassesThrough() throws Exception {
+        when(applicationAvailability.getReadinessState()).thenReturn(ReadinessState.ACCEPTING_TRAFFIC);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/flood/stations");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        new ReadinessFilter(applicationAvailability).doFilter(request, response, filterChain);
+
+        assertEquals(200, response.getStatus());
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    void testActuatorServedWhileLoading() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/actuator/health");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        new ReadinessFilter(applicationAvailability).doFilter(request, response, filterChain);
+
+        assertEquals(200, response.getStatus());
+        verify(filterChain).doFilter(request, response);
+        verifyNoInteractions(applicationAvailability);
+    }
+}
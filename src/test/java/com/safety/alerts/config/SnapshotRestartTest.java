@@ -0,0 +1,86 @@
+package com.safety.alerts.config;
+
+import com.safetynet.alerts.SafetynetAlertsApplication;
+import com.safetynet.alerts.model.Firestation;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.FirestationRepository;
+import com.safetynet.alerts.repository.MedicalRecordRepository;
+import com.safetynet.alerts.repository.PersonRepository;
+import com.safetynet.alerts.service.PersonService;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Redémarrage depuis l'instantané binaire : chaque base en mémoire est neuve, les ids doivent survivre
+class SnapshotRestartTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(SafetynetAlertsApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:" + UUID.randomUUID(),
+                        "--safetynet.snapshot.location=" + tempDir.resolve("data.snapshot").toAbsolutePath(),
+                        "--spring.main.banner-mode=off");
+    }
+
+    private static Map<Long, String> persons(ConfigurableApplicationContext context) {
+        return context.getBean(PersonRepository.class).findAll(Sort.by("id")).stream()
+                .collect(Collectors.toMap(Person::getId, person -> person.getFirstName() + " " + person.getLastName()));
+    }
+
+    private static Map<Long, List<String>> medications(ConfigurableApplicationContext context) {
+        return new TransactionTemplate(context.getBean(PlatformTransactionManager.class)).execute(status ->
+                context.getBean(MedicalRecordRepository.class).findAll().stream()
+                        .collect(Collectors.toMap(MedicalRecord::getId, record -> List.copyOf(record.getMedications()))));
+    }
+
+    @Test
+    void testRestart_KeepsIdsAndAllocatesAboveThem() {
+        Map<Long, String> persons;
+        Map<Long, List<String>> medications;
+        List<Long> firestationIds;
+        try (ConfigurableApplicationContext context = start()) {
+            PersonService personService = context.getBean(PersonService.class);
+            // un trou dans les ids et une ligne ajoutée après l'import
+            personService.deletePerson(persons(context).keySet().stream().min(Long::compare).orElseThrow());
+            personService.savePerson(new Person(null, "Ada", "Lovelace", "1 New St", "Culver", "97451",
+                    "841-874-0000", "ada@email.com"));
+            persons = persons(context);
+            medications = medications(context);
+            firestationIds = context.getBean(FirestationRepository.class).findAll().stream()
+                    .map(Firestation::getId).sorted().toList();
+        }
+        // instantané écrit à l'arrêt
+        assertTrue(Files.exists(tempDir.resolve("data.snapshot")));
+
+        try (ConfigurableApplicationContext context = start()) {
+            assertEquals(persons, persons(context));
+            assertEquals(medications, medications(context));
+            assertEquals(firestationIds, context.getBean(FirestationRepository.class).findAll().stream()
+                    .map(Firestation::getId).sorted().toList());
+            assertEquals(1, context.getBean(PersonService.class).getPersonInfoByLastName("lovelace").size());
+
+            Person added = context.getBean(PersonService.class).savePerson(new Person(null, "Grace", "Hopper",
+                    "2 New St", "Culver", "97451", "841-874-0001", "grace@email.com"));
+            assertTrue(added.getId() > persons.keySet().stream().max(Long::compare).orElseThrow());
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.safety.alerts.config;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+// Génère un fichier au format de data.json avec un nombre arbitraire de personnes
+// Les valeurs sont déterministes : les benchmarks et les tests peuvent recalculer adresses, noms et stations
+public final class SyntheticDataGenerator {
+    public static final int RESIDENTS_PER_ADDRESS = 4;
+    public static final int ADDRESSES_PER_STATION = 250;
+    public static final String[] CITIES = {"Culver", "Springfield", "Riverside", "Fairview", "Madison",
+            "Georgetown", "Franklin", "Clinton", "Salem", "Arlington"};
+    private static final String[] FIRST_NAMES = {"John", "Jacob", "Tenley", "Roger", "Felicia", "Tessa",
+            "Peter", "Foster", "Lily", "Sophia", "Warren", "Zach", "Reginold", "Jamie", "Ron", "Allison",
+            "Brian", "Shawna", "Kendrik", "Clive", "Eric"};
+    private static final String[] MEDICATIONS = {"aznol:350mg", "hydrapermazol:100mg", "pharmacol:5000mg",
+            "terazine:10mg", "noznazol:250mg", "thradox:700mg", "dodoxadin:30mg"};
+    private static final String[] ALLERGIES = {"nillacilan", "peanut", "shellfish", "xilliathal"};
+
+    private SyntheticDataGenerator() {
+    }
+
+    public static int addressCount(int persons) {
+        return Math.max(1, (persons + RESIDENTS_PER_ADDRESS - 1) / RESIDENTS_PER_ADDRESS);
+    }
+
+    public static int stationCount(int persons) {
+        return Math.max(3, addressCount(persons) / ADDRESSES_PER_STATION);
+    }
+
+    public static String address(int addressIndex) {
+        return addressIndex + " Synthetic St";
+    }
+
+    // un foyer par adresse, chaque foyer porte son propre nom de famille
+    public static String lastName(int addressIndex) {
+        return "Family" + addressIndex;
+    }
+
+    public static String city(int addressIndex) {
+        return CITIES[addressIndex % CITIES.length];
+    }
+
+    public static int station(int addressIndex, int persons) {
+        return addressIndex % stationCount(persons) + 1;
+    }
+
+    public static void write(Path file, int persons) throws IOException {
+        JsonFactory factory = new JsonFactory();
+        try (JsonGenerator generator = factory.createGenerator(file.toFile(), JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+
+            generator.writeArrayFieldStart("persons");
+            for (int i = 0; i < persons; i++) {
+                int addressIndex = i / RESIDENTS_PER_ADDRESS;
+                generator.writeStartObject();
+                generator.writeStringField("firstName", firstName(i));
+                generator.writeStringField("lastName", lastName(addressIndex));
+                generator.writeStringField("address", address(addressIndex));
+                generator.writeStringField("city", city(addressIndex));
+                generator.writeStringField("zip", String.valueOf(97451 + addressIndex % CITIES.length));
+                generator.writeStringField("phone", String.format("841-%03d-%04d", addressIndex / 10000 % 1000, addressIndex % 10000));
+                generator.writeStringField("email", "family" + addressIndex + "@email.com");
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+
+            generator.writeArrayFieldStart("firestations");
+            for (int a = 0; a < addressCount(persons); a++) {
+                generator.writeStartObject();
+                generator.writeStringField("address", address(a));
+                generator.writeStringField("station", String.valueOf(station(a, persons)));
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+
+            generator.writeArrayFieldStart("medicalrecords");
+            for (int i = 0; i < persons; i++) {
+                generator.writeStartObject();
+                generator.writeStringField("firstName", firstName(i));
+                generator.writeStringField("lastName", lastName(i / RESIDENTS_PER_ADDRESS));
+                generator.writeStringField("birthdate", birthdate(i));
+                generator.writeArrayFieldStart("medications");
+                for (int m = 0; m < i % 3; m++) {
+                    generator.writeString(MEDICATIONS[(i + m) % MEDICATIONS.length]);
+                }
+                generator.writeEndArray();
+                generator.writeArrayFieldStart("allergies");
+                if (i % 4 == 0) {
+                    generator.writeString(ALLERGIES[i % ALLERGIES.length]);
+                }
+                generator.writeEndArray();
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+
+            generator.writeEndObject();
+        }
+    }
+
+    // prénom unique au sein d'un foyer : (prénom, nom) reste une clé naturelle
+    private static String firstName(int personIndex) {
+        return FIRST_NAMES[personIndex % RESIDENTS_PER_ADDRESS * 5 % FIRST_NAMES.length];
+    }
+
+    // environ un quart d'enfants par foyer
+    private static String birthdate(int personIndex) {
+        int month = personIndex % 12 + 1;
+        int day = personIndex % 28 + 1;
+        int year = personIndex % RESIDENTS_PER_ADDRESS == 3 ? 2010 + personIndex % 12 : 1950 + personIndex % 50;
+        return String.format("%02d/%02d/%d", month, day, year);
+    }
+}
@@ -0,0 +1,118 @@
+package com.safety.alerts.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safetynet.alerts.config.DataLoader;
+import com.safetynet.alerts.controller.AdminController;
+import com.safetynet.alerts.dto.DataLine;
+import com.safetynet.alerts.dto.ImportReport;
+import com.safetynet.alerts.model.Firestation;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.service.DataTransfer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AdminControllerTest {
+
+    @Mock
+    private DataLoader dataLoader;
+
+    @Mock
+    private DataTransfer dataTransfer;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private AdminController adminController;
+
+    @Test
+    void testSaveSnapshot() throws IOException {
+        when(dataLoader.saveSnapshot()).thenReturn(Path.of("data.snapshot"));
+
+        ResponseEntity<Map<String, String>> response = adminController.saveSnapshot();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("data.snapshot", response.getBody().get("location"));
+    }
+
+    @Test
+    void testSaveSnapshot_Disabled() throws IOException {
+        when(dataLoader.saveSnapshot()).thenThrow(new IllegalStateException("Aucun instantané à écrire"));
+
+        ResponseEntity<Map<String, String>> response = adminController.saveSnapshot();
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+    }
+
+    @Test
+    void testExportData_OneLinePerRecord() throws IOException {
+        doAnswer(invocation -> {
+            Consumer<DataLine> consumer = invocation.getArgument(0);
+            consumer.accept(DataLine.of(new Person(1L, "John", "Boyd", "1509 Culver St", "Culver", "97451",
+                    "841-874-6512", "jaboyd@email.com")));
+            consumer.accept(DataLine.of(new Firestation(2L, "1509 Culver St", 3)));
+            return null;
+        }).when(dataTransfer).forEachLine(any());
+
+        ResponseEntity<StreamingResponseBody> response = adminController.exportData();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+
+        assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"person\":{"));
+        assertEquals("{\"firestation\":{\"id\":2,\"address\":\"1509 Culver St\",\"station\":3}}", lines[1]);
+    }
+
+    @Test
+    void testImportData_LinesReadOneByOne() throws IOException {
+        List<DataLine> received = new ArrayList<>();
+        when(dataTransfer.importLines(any())).thenAnswer(invocation -> {
+            invocation.<Iterator<DataLine>>getArgument(0).forEachRemaining(received::add);
+            return new ImportReport(1, 1, 0, List.of());
+        });
+        String ndjson = "{\"person\":{\"firstName\":\"John\",\"lastName\":\"Boyd\"}}\n"
+                + "{\"firestation\":{\"address\":\"1509 Culver St\",\"station\":\"3\"}}\n";
+
+        ResponseEntity<ImportReport> response = adminController.importData(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("John", received.get(0).person().getFirstName());
+        assertEquals(3, received.get(1).firestation().getStation());
+        assertEquals(1, response.getBody().created());
+    }
+
+    @Test
+    void testImportData_UnreadableBody() throws IOException {
+        ResponseEntity<ImportReport> response = adminController.importData(
+                new ByteArrayInputStream("}".getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(dataTransfer, never()).importLines(any());
+    }
+}
@@ -0,0 +1,41 @@
+package com.safety.alerts.controller;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.safetynet.alerts.controller.AlertCacheController;
+import com.safetynet.alerts.service.AlertCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AlertCacheControllerTest {
+
+    @Mock
+    private AlertCache alertCache;
+
+    @InjectMocks
+    private AlertCacheController alertCacheController;
+
+    @Test
+    void testGetStats() {
+        when(alertCache.stats()).thenReturn(CacheStats.of(3, 1, 1, 0, 10, 2, 2));
+        when(alertCache.size()).thenReturn(4L);
+
+        ResponseEntity<Map<String, Object>> response = alertCacheController.getStats();
+
+        assertNotNull(response.getBody());
+        assertEquals(4L, response.getBody().get("size"));
+        assertEquals(3L, response.getBody().get("hitCount"));
+        assertEquals(1L, response.getBody().get("missCount"));
+        assertEquals(0.75, response.getBody().get("hitRate"));
+        assertEquals(2L, response.getBody().get("evictionCount"));
+    }
+}
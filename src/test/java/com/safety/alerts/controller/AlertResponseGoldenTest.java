@@ -0,0 +1,82 @@
+package com.safety.alerts.controller;
+
+import com.safetynet.alerts.SafetynetAlertsApplication;
+import com.safetynet.alerts.service.AgeCalculator;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+// Les réponses des alertes sont comparées octet par octet à des fichiers de référence
+// Régénérer les fichiers : mvn test -Dtest=AlertResponseGoldenTest -Dsafetynet.updateGolden=true
+@SpringBootTest(classes = SafetynetAlertsApplication.class)
+@AutoConfigureMockMvc
+class AlertResponseGoldenTest {
+
+    private static final Path GOLDEN = Path.of("src/test/resources/golden");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    // date figée : les âges des fichiers de référence ne changent pas avec le temps
+    @TestConfiguration
+    static class FixedClock {
+        @Bean
+        @Primary
+        AgeCalculator fixedAgeCalculator() {
+            return new AgeCalculator(Clock.fixed(Instant.parse("2025-04-01T10:00:00Z"), ZoneOffset.UTC));
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "childAlert.json           | /person/childAlert?address=1509 Culver St",
+            "childAlert-none.json      | /person/childAlert?address=644 Gershwin Cir",
+            "phoneAlert.json           | /person/phoneAlert?firestation=3",
+            "fire.json                 | /person/fire?address=1509 Culver St",
+            "fire-unknown.json         | /person/fire?address=1 Nowhere Rd",
+            "flood.json                | /person/flood/stations?stations=1,2",
+            "personInfo.json           | /person/personInfo?lastName=Boyd",
+            "communityEmail.json       | /person/communityEmail?city=Culver",
+            "firestation.json          | /firestations/firestation?stationNumber=2",
+            "persons.json              | /person",
+            "medicalRecords.json       | /medicalRecords",
+            "communityEmail-none.json  | /person/communityEmail?city=Nowhere",
+            "persons-page.json         | /person?after=3&limit=5",
+            // curseur seul : page après l'id 20, pas la liste complète
+            "persons-after.json        | /person?after=20"
+    })
+    void testResponseMatchesGoldenFile(String file, String url) throws Exception {
+        MvcResult result = mockMvc.perform(get(url)).andReturn();
+        // réponses écrites en flux : le corps est produit après la fin du traitement initial
+        if (result.getRequest().isAsyncStarted()) {
+            result = mockMvc.perform(asyncDispatch(result)).andReturn();
+        }
+        byte[] body = result.getResponse().getContentAsByteArray();
+        Path golden = GOLDEN.resolve(file);
+
+        if (Boolean.getBoolean("safetynet.updateGolden")) {
+            Files.write(golden, body);
+        }
+
+        assertEquals(Files.readString(golden, StandardCharsets.UTF_8), new String(body, StandardCharsets.UTF_8));
+    }
+}
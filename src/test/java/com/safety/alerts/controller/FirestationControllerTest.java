@@ -1,6 +1,9 @@
 package com.safety.alerts.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.safetynet.alerts.controller.FirestationController;
+import com.safetynet.alerts.dto.BatchItemStatus;
+import com.safetynet.alerts.dto.StationAddress;
 import com.safetynet.alerts.model.Firestation;
 import com.safetynet.alerts.service.FirestationService;
 import org.junit.jupiter.api.BeforeEach;
@@ -9,13 +12,17 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.ResponseEntity;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -27,6 +34,9 @@ class FirestationControllerTest {
     @Mock
     private FirestationService firestationService;
 
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     private FirestationController firestationController;
 
@@ -56,6 +66,50 @@ class FirestationControllerTest {
         verify(firestationService, times(1)).getAllFirestations(); // Vérifie l'appel
     }
 
+    @Test
+    void testGetFirestationsPage_FullPageAnnouncesNext() {
+        Firestation other = new Firestation();
+        other.setId(7L);
+        when(firestationService.getFirestationsPage(null, 2)).thenReturn(List.of(firestation, other));
+
+        ResponseEntity<List<Firestation>> response = firestationController.getFirestationsPage(null, 2);
+
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(2, response.getBody().size());
+        // le curseur suivant est l'id du dernier élément de la page
+        assertEquals("</firestations?after=7&limit=2>; rel=\"next\"", response.getHeaders().getFirst("Link"));
+        assertEquals("7", response.getHeaders().getFirst("X-Next-Cursor"));
+    }
+
+    @Test
+    void testGetFirestationsPage_LastPageHasNoLink() {
+        when(firestationService.getFirestationsPage(7L, 2)).thenReturn(List.of(firestation));
+
+        ResponseEntity<List<Firestation>> response = firestationController.getFirestationsPage(7L, 2);
+
+        assertEquals(200, response.getStatusCode().value());
+        assertNull(response.getHeaders().getFirst("Link"));
+        assertNull(response.getHeaders().getFirst("X-Next-Cursor"));
+    }
+
+    @Test
+    void testGetFirestationsAfter_DefaultLimit() {
+        when(firestationService.getFirestationsPage(7L, 100)).thenReturn(List.of(firestation));
+
+        ResponseEntity<List<Firestation>> response = firestationController.getFirestationsAfter(7L);
+
+        assertEquals(List.of(firestation), response.getBody());
+        assertNull(response.getHeaders().getFirst("Link"));
+    }
+
+    @Test
+    void testGetFirestationsPage_InvalidLimit() {
+        ResponseEntity<List<Firestation>> response = firestationController.getFirestationsPage(null, 0);
+
+        assertEquals(400, response.getStatusCode().value());
+        verify(firestationService, never()).getFirestationsPage(any(), anyInt());
+    }
+
     @Test
     void testGetFirestationById_Found() {
         when(firestationService.getFirestationById(1L)).thenReturn(Optional.of(firestation));
@@ -103,21 +157,33 @@ class FirestationControllerTest {
     
     @Test
     void testGetPersonsCoveredByStation() {
-        Map<String, Object> personData = new HashMap<>();
-        personData.put("address", "123 Main St");
-        personData.put("station", 1);
-
-        List<Map<String, Object>> personsCovered = Arrays.asList(personData);
+        List<StationAddress> personsCovered = Arrays.asList(new StationAddress("123 Main St", 1));
 
         when(firestationService.getPersonsCoveredByStation(1)).thenReturn(personsCovered);
 
-        ResponseEntity<List<Map<String, Object>>> response = firestationController.getPersonsCoveredByStation(1);
+        ResponseEntity<List<StationAddress>> response = firestationController.getPersonsCoveredByStation(1);
 
         assertNotNull(response.getBody());
         assertEquals(200, response.getStatusCode().value());
         assertEquals(1, response.getBody().size());
-        assertEquals("123 Main St", response.getBody().get(0).get("address"));
-        assertEquals(1, response.getBody().get(0).get("station"));
+        assertEquals("123 Main St", response.getBody().get(0).address());
+        assertEquals(1, response.getBody().get(0).station());
         verify(firestationService, times(1)).getPersonsCoveredByStation(1);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testUpsertFirestations_JsonArray() throws IOException {
+        List<Firestation> received = new ArrayList<>();
+        when(firestationService.upsertFirestations(any())).thenAnswer(invocation -> {
+            invocation.<Iterator<Firestation>>getArgument(0).forEachRemaining(received::add);
+            return List.of(BatchItemStatus.updated(0, 1L));
+        });
+        String json = "[{\"address\":\"123 Main St\",\"station\":\"4\"}]";
+
+        ResponseEntity<List<BatchItemStatus>> response = firestationController.upsertFirestations(
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(4, received.get(0).getStation());
+    }
+}
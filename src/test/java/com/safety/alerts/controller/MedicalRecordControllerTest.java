@@ -1,6 +1,9 @@
 package com.safety.alerts.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.safetynet.alerts.controller.MedicalRecordController;
+import com.safetynet.alerts.dto.BatchItemStatus;
 import com.safetynet.alerts.model.MedicalRecord;
 import com.safetynet.alerts.service.MedicalRecordService;
 import org.junit.jupiter.api.BeforeEach;
@@ -8,13 +11,21 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.ResponseEntity;
-
-import java.util.Arrays;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -25,6 +36,9 @@ class MedicalRecordControllerTest {
     @Mock
     private MedicalRecordService medicalRecordService;
 
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     private MedicalRecordController medicalRecordController;
 
@@ -43,16 +57,47 @@ class MedicalRecordControllerTest {
     }
 
     @Test
-    void testGetAllMedicalRecords() {
-        List<MedicalRecord> medicalRecords = Arrays.asList(medicalRecord);
-        when(medicalRecordService.getAllMedicalRecords()).thenReturn(medicalRecords);
+    void testGetAllMedicalRecords() throws IOException {
+        // deux pages transmises par le service, un seul tableau JSON en sortie
+        doAnswer(invocation -> {
+            Consumer<List<MedicalRecord>> pages = invocation.getArgument(0);
+            pages.accept(List.of(medicalRecord));
+            pages.accept(List.of(medicalRecord));
+            return null;
+        }).when(medicalRecordService).forEachMedicalRecordPage(any());
+
+        ResponseEntity<StreamingResponseBody> response = medicalRecordController.getAllMedicalRecords();
+        assertNotNull(response.getBody());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        JsonNode body = objectMapper.readTree(out.toByteArray());
 
-        ResponseEntity<List<MedicalRecord>> response = medicalRecordController.getAllMedicalRecords();
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(2, body.size()); // Vérifie que la liste n'est pas vide
+        assertEquals(1L, body.get(0).get("id").asLong());
+        verify(medicalRecordService, times(1)).forEachMedicalRecordPage(any());
+    }
 
-        assertNotNull(response.getBody());
-        assertFalse(response.getBody().isEmpty()); // Vérifie que la liste n'est pas vide
-        assertEquals(1, response.getBody().size());
-        verify(medicalRecordService, times(1)).getAllMedicalRecords();
+    @Test
+    void testGetMedicalRecordsPage() {
+        when(medicalRecordService.getMedicalRecordsPage(null, 1)).thenReturn(List.of(medicalRecord));
+
+        ResponseEntity<List<MedicalRecord>> response = medicalRecordController.getMedicalRecordsPage(null, 1);
+
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals("</medicalRecords?after=1&limit=1>; rel=\"next\"", response.getHeaders().getFirst("Link"));
+        // limite au-delà du maximum refusée
+        assertEquals(400, medicalRecordController.getMedicalRecordsPage(null, 1001).getStatusCode().value());
+    }
+
+    @Test
+    void testGetMedicalRecordsAfter_DefaultLimit() {
+        when(medicalRecordService.getMedicalRecordsPage(1L, 100)).thenReturn(List.of());
+
+        ResponseEntity<List<MedicalRecord>> response = medicalRecordController.getMedicalRecordsAfter(1L);
+
+        assertEquals(List.of(), response.getBody());
+        verify(medicalRecordService, never()).forEachMedicalRecordPage(any());
     }
 
     @Test
@@ -99,4 +144,20 @@ class MedicalRecordControllerTest {
         assertEquals(204, response.getStatusCode().value());
         verify(medicalRecordService, times(1)).deleteMedicalRecord(1L);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testUpsertMedicalRecords_Ndjson() throws IOException {
+        List<MedicalRecord> received = new ArrayList<>();
+        when(medicalRecordService.upsertMedicalRecords(any())).thenAnswer(invocation -> {
+            invocation.<Iterator<MedicalRecord>>getArgument(0).forEachRemaining(received::add);
+            return List.of(BatchItemStatus.created(0, 1L));
+        });
+        String ndjson = "{\"firstName\":\"John\",\"lastName\":\"Boyd\",\"allergies\":[\"nillacilan\"]}\n";
+
+        ResponseEntity<List<BatchItemStatus>> response = medicalRecordController.upsertMedicalRecords(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(List.of("nillacilan"), received.get(0).getAllergies());
+    }
+}
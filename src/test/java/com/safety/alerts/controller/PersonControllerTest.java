@@ -1,6 +1,15 @@
 package com.safety.alerts.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.safetynet.alerts.controller.PersonController;
+import com.safetynet.alerts.dto.BatchItemStatus;
+import com.safetynet.alerts.dto.ChildAlert;
+import com.safetynet.alerts.dto.CommunityEmail;
+import com.safetynet.alerts.dto.FireResident;
+import com.safetynet.alerts.dto.FloodResident;
+import com.safetynet.alerts.dto.PersonInfo;
+import com.safetynet.alerts.dto.PhoneAlert;
 import com.safetynet.alerts.model.Person;
 import com.safetynet.alerts.service.PersonService;
 import org.junit.jupiter.api.BeforeEach;
@@ -8,15 +17,25 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.ResponseEntity;
-
-import java.util.Arrays;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -27,6 +46,9 @@ class PersonControllerTest {
     @Mock
     private PersonService personService;
 
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     private PersonController personController;
 
@@ -44,17 +66,51 @@ class PersonControllerTest {
         Mockito.reset(personService);
     }
 
+    // exécute le corps écrit en flux et relit le JSON produit
+    private JsonNode written(ResponseEntity<StreamingResponseBody> response) throws IOException {
+        assertNotNull(response.getBody());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        return objectMapper.readTree(out.toByteArray());
+    }
+
     @Test
-    void testGetAllPersons() {
-        List<Person> persons = Arrays.asList(person);
-        when(personService.getAllPersons()).thenReturn(persons);
+    void testGetAllPersons() throws IOException {
+        doAnswer(invocation -> {
+            invocation.<Consumer<Stream<Person>>>getArgument(0).accept(Stream.of(person));
+            return null;
+        }).when(personService).streamAllPersons(any());
 
-        ResponseEntity<List<Person>> response = personController.getAllPersons();
+        ResponseEntity<StreamingResponseBody> response = personController.getAllPersons();
+        JsonNode body = written(response);
 
-        assertNotNull(response.getBody());
-        assertFalse(response.getBody().isEmpty()); // Vérifie que la liste n'est pas vide
-        assertEquals(1, response.getBody().size());
-        verify(personService, times(1)).getAllPersons();
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(1, body.size()); // Vérifie que la liste n'est pas vide
+        assertEquals(1L, body.get(0).get("id").asLong());
+        verify(personService, times(1)).streamAllPersons(any());
+    }
+
+    @Test
+    void testGetPersonsPage() {
+        when(personService.getPersonsPage(3L, 5)).thenReturn(List.of(person));
+
+        ResponseEntity<List<Person>> response = personController.getPersonsPage(3L, 5);
+
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(List.of(person), response.getBody());
+        // page incomplète : dernière page
+        assertNull(response.getHeaders().getFirst("Link"));
+        verify(personService, times(1)).getPersonsPage(3L, 5);
+    }
+
+    @Test
+    void testGetPersonsAfter_DefaultLimit() {
+        when(personService.getPersonsPage(3L, 100)).thenReturn(List.of(person));
+
+        ResponseEntity<List<Person>> response = personController.getPersonsAfter(3L);
+
+        assertEquals(List.of(person), response.getBody());
+        verify(personService, never()).streamAllPersons(any());
     }
 
     @Test
@@ -104,127 +160,156 @@ class PersonControllerTest {
     
     @Test
     void testGetChildrenByAddressController() {
-        Map<String, Object> child = new HashMap<>();
-        child.put("firstName", "John");
-        child.put("lastName", "Doe");
-        child.put("age", 10);
-
-        List<Map<String, Object>> children = List.of(child);
+        List<ChildAlert> children = List.of(new ChildAlert("John", "Doe", 10));
 
         when(personService.getChildrenByAddress("123 Main St")).thenReturn(children);
 
-        ResponseEntity<List<Map<String, Object>>> response = personController.getChildrenByAddress("123 Main St");
+        ResponseEntity<List<?>> response = personController.getChildrenByAddress("123 Main St");
 
         assertNotNull(response.getBody());
         assertEquals(200, response.getStatusCode().value());
         assertEquals(1, response.getBody().size());
-        assertEquals("John", response.getBody().get(0).get("firstName"));
-        assertEquals("Doe", response.getBody().get(0).get("lastName"));
+        assertEquals("John", ((ChildAlert) response.getBody().get(0)).firstName());
+        assertEquals("Doe", ((ChildAlert) response.getBody().get(0)).lastName());
         verify(personService, times(1)).getChildrenByAddress("123 Main St");
     }
     
     @Test
     void testGetPhoneNumbersByStationController() {
-        Map<String, Object> phoneData = new HashMap<>();
-        phoneData.put("phone", "123-456-7890");
-
-        List<Map<String, Object>> phones = List.of(phoneData);
+        List<PhoneAlert> phones = List.of(new PhoneAlert("123-456-7890"));
 
         when(personService.getPhoneNumbersByStation(1)).thenReturn(phones);
 
-        ResponseEntity<List<Map<String, Object>>> response = personController.getPhoneNumbersByStation(1);
+        ResponseEntity<List<?>> response = personController.getPhoneNumbersByStation(1);
 
         assertNotNull(response.getBody());
         assertEquals(200, response.getStatusCode().value());
         assertEquals(1, response.getBody().size());
-        assertEquals("123-456-7890", response.getBody().get(0).get("phone"));
+        assertEquals("123-456-7890", ((PhoneAlert) response.getBody().get(0)).phone());
         verify(personService, times(1)).getPhoneNumbersByStation(1);
     }
     
     @Test
     void testGetPersonsAndStationByAddressController() {
-        Map<String, Object> personData = new HashMap<>();
-        personData.put("lastName", "Doe");
-        personData.put("phone", "123-456-7890");
-        personData.put("age", 34);
-        personData.put("medications", List.of("aznol:350mg"));
-        personData.put("allergies", List.of("nillacilan"));
-        personData.put("stationNumber", 1);
-
-        List<Map<String, Object>> residents = List.of(personData);
+        List<FireResident> residents = List.of(new FireResident("Doe", "123-456-7890", 34,
+                List.of("aznol:350mg"), List.of("nillacilan"), 1));
 
         when(personService.getPersonsAndStationByAddress("123 Main St")).thenReturn(residents);
 
-        ResponseEntity<List<Map<String, Object>>> response = personController.getPersonsAndStationByAddress("123 Main St");
+        ResponseEntity<List<FireResident>> response = personController.getPersonsAndStationByAddress("123 Main St");
 
         assertNotNull(response.getBody());
         assertEquals(200, response.getStatusCode().value());
         assertEquals(1, response.getBody().size());
-        assertEquals("Doe", response.getBody().get(0).get("lastName"));
+        assertEquals("Doe", response.getBody().get(0).lastName());
         verify(personService, times(1)).getPersonsAndStationByAddress("123 Main St");
     }
     
     @Test
     void testGetHouseholdsByStationsController() {
-        Map<String, Object> resident = new HashMap<>();
-        resident.put("lastName", "Doe");
-        resident.put("phone", "123-456-7890");
-        resident.put("age", 34);
-        resident.put("medications", List.of("aznol:350mg"));
-        resident.put("allergies", List.of("nillacilan"));
-
-        Map<String, List<Map<String, Object>>> households = new HashMap<>();
+        FloodResident resident = new FloodResident("Doe", "123-456-7890", 34, List.of("aznol:350mg"), List.of("nillacilan"));
+
+        Map<String, List<FloodResident>> households = new HashMap<>();
         households.put("123 Main St", List.of(resident));
 
         when(personService.getHouseholdsByStations(List.of(1))).thenReturn(households);
 
-        ResponseEntity<Map<String, List<Map<String, Object>>>> response = personController.getHouseholdsByStations(List.of(1));
+        ResponseEntity<Map<String, List<FloodResident>>> response = personController.getHouseholdsByStations(List.of(1));
 
         assertNotNull(response.getBody());
         assertEquals(200, response.getStatusCode().value());
         assertTrue(response.getBody().containsKey("123 Main St"));
-        assertEquals("Doe", response.getBody().get("123 Main St").get(0).get("lastName"));
+        assertEquals("Doe", response.getBody().get("123 Main St").get(0).lastName());
         verify(personService, times(1)).getHouseholdsByStations(List.of(1));
     }
     
     @Test
     void testGetPersonInfoByLastNameController() {
-        Map<String, Object> personInfo = new HashMap<>();
-        personInfo.put("lastName", "Doe");
-        personInfo.put("address", "123 Main St");
-        personInfo.put("email", "john.doe@example.com");
-        personInfo.put("age", 34);
-        personInfo.put("medications", List.of("aznol:350mg"));
-        personInfo.put("allergies", List.of("nillacilan"));
-
-        List<Map<String, Object>> personsInfo = List.of(personInfo);
+        List<PersonInfo> personsInfo = List.of(new PersonInfo("Doe", "123 Main St", 34, List.of("aznol:350mg"),
+                List.of("nillacilan"), "john.doe@example.com"));
 
         when(personService.getPersonInfoByLastName("Doe")).thenReturn(personsInfo);
 
-        ResponseEntity<List<Map<String, Object>>> response = personController.getPersonInfoByLastName("Doe");
+        ResponseEntity<List<?>> response = personController.getPersonInfoByLastName("Doe");
 
         assertNotNull(response.getBody());
         assertEquals(200, response.getStatusCode().value());
         assertEquals(1, response.getBody().size());
-        assertEquals("Doe", response.getBody().get(0).get("lastName"));
+        assertEquals("Doe", ((PersonInfo) response.getBody().get(0)).lastName());
         verify(personService, times(1)).getPersonInfoByLastName("Doe");
     }
     
     @Test
-    void testGetCommunityEmailsByCityController() {
-        Map<String, Object> emailData = new HashMap<>();
-        emailData.put("email", "john.doe@example.com");
+    void testGetCommunityEmailsByCityController() throws IOException {
+        doAnswer(invocation -> {
+            invocation.<Consumer<Stream<CommunityEmail>>>getArgument(1)
+                    .accept(Stream.of(new CommunityEmail("john.doe@example.com")));
+            return null;
+        }).when(personService).streamCommunityEmailsByCity(eq("Springfield"), any());
 
-        List<Map<String, Object>> emails = List.of(emailData);
+        ResponseEntity<StreamingResponseBody> response = personController.getCommunityEmailsByCity("Springfield");
+        JsonNode body = written(response);
 
-        when(personService.getCommunityEmailsByCity("Springfield")).thenReturn(emails);
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(1, body.size());
+        assertEquals("john.doe@example.com", body.get(0).get("email").asText());
+        verify(personService, times(1)).streamCommunityEmailsByCity(eq("Springfield"), any());
+    }
 
-        ResponseEntity<List<Map<String, Object>>> response = personController.getCommunityEmailsByCity("Springfield");
+    @Test
+    void testGetCommunityEmailsByCityController_Empty() throws IOException {
+        doAnswer(invocation -> {
+            invocation.<Consumer<Stream<CommunityEmail>>>getArgument(1).accept(Stream.empty());
+            return null;
+        }).when(personService).streamCommunityEmailsByCity(eq("Nowhere"), any());
+
+        JsonNode body = written(personController.getCommunityEmailsByCity("Nowhere"));
+
+        assertEquals("Aucun email trouvé pour cette ville.", body.get(0).get("message").asText());
+    }
+
+    // le service reçoit les personnes une à une, à mesure que le corps est lu
+    private List<Person> givenUpsertReads() {
+        List<Person> received = new ArrayList<>();
+        when(personService.upsertPersons(any())).thenAnswer(invocation -> {
+            invocation.<Iterator<Person>>getArgument(0).forEachRemaining(received::add);
+            return List.of(BatchItemStatus.created(0, 1L), BatchItemStatus.updated(1, 2L));
+        });
+        return received;
+    }
+
+    private static InputStream body(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testUpsertPersons_JsonArray() throws IOException {
+        List<Person> received = givenUpsertReads();
+
+        ResponseEntity<List<BatchItemStatus>> response = personController.upsertPersons(body(
+                "[{\"firstName\":\"John\",\"lastName\":\"Boyd\"},{\"firstName\":\"Jacob\",\"lastName\":\"Boyd\"}]"));
 
-        assertNotNull(response.getBody());
         assertEquals(200, response.getStatusCode().value());
-        assertEquals(1, response.getBody().size());
-        assertEquals("john.doe@example.com", response.getBody().get(0).get("email"));
-        verify(personService, times(1)).getCommunityEmailsByCity("Springfield");
+        assertEquals(List.of("John", "Jacob"), received.stream().map(Person::getFirstName).toList());
+        assertEquals(BatchItemStatus.Status.UPDATED, response.getBody().get(1).status());
+    }
+
+    @Test
+    void testUpsertPersons_Ndjson() throws IOException {
+        List<Person> received = givenUpsertReads();
+
+        ResponseEntity<List<BatchItemStatus>> response = personController.upsertPersons(body(
+                "{\"firstName\":\"John\",\"lastName\":\"Boyd\"}\n{\"firstName\":\"Jacob\",\"lastName\":\"Boyd\"}\n"));
+
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(List.of("John", "Jacob"), received.stream().map(Person::getFirstName).toList());
+    }
+
+    @Test
+    void testUpsertPersons_UnreadableBody() throws IOException {
+        ResponseEntity<List<BatchItemStatus>> response = personController.upsertPersons(body("]"));
+
+        assertEquals(400, response.getStatusCode().value());
+        verify(personService, never()).upsertPersons(any());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,120 @@
+package com.safety.alerts.service;
+
+import com.safetynet.alerts.service.AddressFanOut;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AddressFanOutTest {
+
+    private AddressFanOut fanOut;
+
+    @AfterEach
+    void tearDown() {
+        fanOut.shutdown();
+    }
+
+    private static List<String> addresses(int count) {
+        List<String> addresses = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            addresses.add(i + " Main St");
+        }
+        return addresses;
+    }
+
+    @Test
+    void testMap_ResultsInChunkOrder() {
+        fanOut = new AddressFanOut(4, 3);
+
+        List<List<String>> chunks = fanOut.map(addresses(8), chunk -> chunk);
+
+        assertEquals(List.of(addresses(8).subList(0, 3), addresses(8).subList(3, 6), addresses(8).subList(6, 8)), chunks);
+    }
+
+    @Test
+    void testMap_SingleChunkStaysOnCallerThread() {
+        fanOut = new AddressFanOut(4, 256);
+        Thread caller = Thread.currentThread();
+
+        List<Thread> threads = fanOut.map(addresses(10), chunk -> Thread.currentThread());
+
+        assertEquals(List.of(caller), threads);
+    }
+
+    @Test
+    void testMap_EmptyAddresses() {
+        fanOut = new AddressFanOut(4, 256);
+
+        assertEquals(List.of(), fanOut.map(List.of(), chunk -> chunk.size()));
+    }
+
+    @Test
+    void testMap_ParallelismOneRunsEveryChunkOnCallerThread() {
+        fanOut = new AddressFanOut(1, 1);
+        Thread caller = Thread.currentThread();
+
+        List<Thread> threads = fanOut.map(addresses(3), chunk -> Thread.currentThread());
+
+        assertEquals(List.of(caller, caller, caller), threads);
+    }
+
+    @Test
+    void testMap_ChunksRunConcurrently() {
+        fanOut = new AddressFanOut(3, 1);
+        // chaque paquet attend les deux autres : la rafale ne se termine que si les trois tournent en même temps
+        CountDownLatch allStarted = new CountDownLatch(3);
+
+        List<Boolean> released = fanOut.map(addresses(3), chunk -> {
+            allStarted.countDown();
+            try {
+                return allStarted.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        });
+
+        assertEquals(List.of(true, true, true), released);
+    }
+
+    @Test
+    void testMap_ParallelismIsBounded() {
+        fanOut = new AddressFanOut(2, 1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        fanOut.map(addresses(20), chunk -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return running.decrementAndGet();
+        });
+
+        // le thread appelant plus un thread du pool
+        assertTrue(maxRunning.get() <= 2);
+    }
+
+    @Test
+    void testMap_FailurePropagated() {
+        fanOut = new AddressFanOut(2, 1);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> fanOut.map(addresses(3), chunk -> {
+            if (chunk.get(0).startsWith("2")) {
+                throw new IllegalStateException("chunk failed");
+            }
+            return chunk;
+        }));
+        assertEquals("chunk failed", e.getMessage());
+    }
+}
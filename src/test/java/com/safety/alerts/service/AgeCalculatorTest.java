@@ -0,0 +1,95 @@
+package com.safety.alerts.service;
+
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.service.AgeCalculator;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AgeCalculatorTest {
+
+    private static final ZoneId ZONE = ZoneOffset.UTC;
+
+    private static Clock clockAt(String isoDate) {
+        return Clock.fixed(LocalDate.parse(isoDate).atTime(12, 0).atZone(ZONE).toInstant(), ZONE);
+    }
+
+    private static Long epochDay(String birthdate) {
+        return LocalDate.parse(birthdate, MedicalRecord.BIRTHDATE_FORMAT).toEpochDay();
+    }
+
+    @Test
+    void testAgeOf_MatchesPeriodBetween() {
+        AgeCalculator ageCalculator = new AgeCalculator(clockAt("2024-03-01"));
+        LocalDate today = LocalDate.parse("2024-03-01");
+
+        for (String birthdate : new String[]{"03/06/1984", "02/29/2000", "03/01/2006", "03/02/2006", "12/31/2023", "03/01/2024"}) {
+            LocalDate parsed = LocalDate.parse(birthdate, MedicalRecord.BIRTHDATE_FORMAT);
+            assertEquals(Period.between(parsed, today).getYears(), ageCalculator.ageOf(epochDay(birthdate)), birthdate);
+        }
+    }
+
+    @Test
+    void testAgeOf_UnknownBirthdate() {
+        AgeCalculator ageCalculator = new AgeCalculator(clockAt("2024-03-01"));
+
+        assertEquals(0, ageCalculator.ageOf(null));
+    }
+
+    @Test
+    void testChildBornAfterEpochDay_EighteenIsStillAChild() {
+        AgeCalculator ageCalculator = new AgeCalculator(clockAt("2024-03-01"));
+        long bornAfter = ageCalculator.childBornAfterEpochDay();
+
+        // 18 ans la veille de ses 19 ans : enfant
+        assertTrue(epochDay("03/02/2005") > bornAfter);
+        // 19 ans aujourd'hui : adulte
+        assertFalse(epochDay("03/01/2005") > bornAfter);
+    }
+
+    @Test
+    void testToday_RefreshedAtMidnight() {
+        AtomicReference<Instant> now = new AtomicReference<>(LocalDate.parse("2024-03-01").atTime(23, 59).atZone(ZONE).toInstant());
+        Clock clock = new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZONE;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return now.get();
+            }
+        };
+        AgeCalculator ageCalculator = new AgeCalculator(clock);
+
+        assertEquals(17, ageCalculator.ageOf(epochDay("03/02/2006")));
+
+        now.set(LocalDate.parse("2024-03-02").atTime(0, 1).atZone(ZONE).toInstant());
+        assertEquals(18, ageCalculator.ageOf(epochDay("03/02/2006")));
+    }
+
+    @Test
+    void testMedicalRecord_BirthdateParsedOnWrite() {
+        MedicalRecord record = new MedicalRecord();
+        record.setBirthdate("03/06/1984");
+        assertEquals(LocalDate.of(1984, 3, 6).toEpochDay(), record.getBirthdateEpochDay());
+
+        record.setBirthdate("not a date");
+        assertNull(record.getBirthdateEpochDay());
+    }
+}
@@ -0,0 +1,220 @@
+package com.safety.alerts.service;
+
+import com.safetynet.alerts.model.Firestation;
+import com.safetynet.alerts.repository.FirestationRepository;
+import com.safetynet.alerts.repository.MedicalRecordRepository;
+import com.safetynet.alerts.repository.PersonRepository;
+import com.safetynet.alerts.service.AlertCache;
+import com.safetynet.alerts.service.ReadModel;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AlertCacheTest {
+
+    @Mock
+    private FirestationRepository firestationRepository;
+
+    private ReadModel readModel;
+
+    private AlertCache alertCache;
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(firestationRepository.findAll()).thenReturn(List.of(
+                new Firestation(1L, "1509 Culver St", 3),
+                new Firestation(2L, "29 15th St", 2),
+                new Firestation(3L, "834 Binoc Ave", 3)));
+        readModel = new ReadModel(mock(PersonRepository.class), mock(MedicalRecordRepository.class), firestationRepository,
+                mock(PlatformTransactionManager.class));
+        alertCache = new AlertCache(readModel, 100, Duration.ofMinutes(5));
+    }
+
+    private String load() {
+        return "v" + loads.incrementAndGet();
+    }
+
+    @Test
+    void testGet_SecondCallIsHit() {
+        assertEquals("v1", alertCache.getByAddress(AlertCache.Kind.FIRE, "1509 Culver St", this::load));
+        assertEquals("v1", alertCache.getByAddress(AlertCache.Kind.FIRE, "1509 Culver St", this::load));
+
+        assertEquals(1, alertCache.stats().hitCount());
+        assertEquals(1, alertCache.stats().missCount());
+    }
+
+    @Test
+    void testGet_RebuiltReadModelDropsAnswersWithoutInvalidation() {
+        assertEquals("v1", alertCache.getByStation(AlertCache.Kind.PHONE_ALERT, 3, this::load));
+
+        // rechargement du fichier : la publication du nouvel instantané suffit, avant tout vidage du cache
+        readModel.rebuild();
+
+        assertEquals("v2", alertCache.getByStation(AlertCache.Kind.PHONE_ALERT, 3, this::load));
+        assertEquals("v2", alertCache.getByStation(AlertCache.Kind.PHONE_ALERT, 3, this::load));
+    }
+
+    @Test
+    void testGetByStations_OrderAndDuplicatesIgnored() {
+        alertCache.getByStations(AlertCache.Kind.FLOOD, List.of(3, 2), this::load);
+        alertCache.getByStations(AlertCache.Kind.FLOOD, List.of(2, 3, 3), this::load);
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testEvictAddress_OnlyAddressAndItsStations() {
+        alertCache.getByAddress(AlertCache.Kind.FIRE, "1509 Culver St", this::load);
+        alertCache.getByAddress(AlertCache.Kind.CHILD_ALERT, "1509 Culver St", this::load);
+        alertCache.getByAddress(AlertCache.Kind.FIRE, "834 Binoc Ave", this::load);
+        alertCache.getByStation(AlertCache.Kind.PHONE_ALERT, 3, this::load);
+        alertCache.getByStation(AlertCache.Kind.PHONE_ALERT, 2, this::load);
+        alertCache.getByStations(AlertCache.Kind.FLOOD, List.of(2, 3), this::load);
+        alertCache.getByStations(AlertCache.Kind.FLOOD, List.of(2), this::load);
+
+        alertCache.evictAddress("1509 Culver St");
+
+        // fire et childAlert de l'adresse, phoneAlert station 3, flood 2+3
+        assertEquals(3, alertCache.size());
+        int before = loads.get();
+        alertCache.getByAddress(AlertCache.Kind.FIRE, "834 Binoc Ave", this::load);
+        alertCache.getByStation(AlertCache.Kind.PHONE_ALERT, 2, this::load);
+        alertCache.getByStations(AlertCache.Kind.FLOOD, List.of(2), this::load);
+        assertEquals(before, loads.get());
+    }
+
+    @Test
+    void testInvalidateAll() {
+        alertCache.getByAddress(AlertCache.Kind.FIRE, "1509 Culver St", this::load);
+
+        alertCache.invalidateAll();
+
+        assertEquals("v2", alertCache.getByAddress(AlertCache.Kind.FIRE, "1509 Culver St", this::load));
+    }
+
+    // Une réponse calculée sur l'état d'avant une écriture ne doit pas être réinsérée après l'éviction de cette écriture
+    @Test
+    void testEvictAddress_DuringLoadStaleValueNotKept() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch evicted = new CountDownLatch(1);
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> stale = reader.submit(() -> alertCache.getByAddress(AlertCache.Kind.FIRE, "1509 Culver St", () -> {
+                // l'état lu ici précède l'écriture
+                loading.countDown();
+                try {
+                    evicted.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "avant";
+            }));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            // l'écriture est publiée puis évince l'adresse pendant le calcul
+            alertCache.evictAddress("1509 Culver St");
+            evicted.countDown();
+
+            // l'appel concurrent reçoit sa réponse, mais elle n'est pas servie ensuite
+            assertEquals("avant", stale.get(5, TimeUnit.SECONDS));
+            assertEquals("après", alertCache.getByAddress(AlertCache.Kind.FIRE, "1509 Culver St", () -> "après"));
+            assertEquals("après", alertCache.getByAddress(AlertCache.Kind.FIRE, "1509 Culver St", () -> "encore"));
+        } finally {
+            reader.shutdownNow();
+        }
+    }
+
+    // Lectures concurrentes d'écritures successives : une fois evictAddress revenu, aucune lecture ne doit plus
+    // recevoir l'état d'avant, pas même depuis l'entrée qu'un calcul concurrent insère puis retire
+    @Test
+    void testEvictAddress_ConcurrentReadsNeverSeeOlderState() throws Exception {
+        AtomicInteger state = new AtomicInteger();
+        AtomicInteger published = new AtomicInteger();
+        AtomicInteger staleReads = new AtomicInteger();
+        ExecutorService threads = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> readers = new ArrayList<>();
+            for (int r = 0; r < 3; r++) {
+                readers.add(threads.submit(() -> {
+                    while (published.get() < 2000) {
+                        int floor = published.get();
+                        int seen = alertCache.getByAddress(AlertCache.Kind.FIRE, "1509 Culver St", () -> {
+                            int current = state.get();
+                            Thread.yield();
+                            return current;
+                        });
+                        int stations = alertCache.getByStation(AlertCache.Kind.PHONE_ALERT, 3, () -> {
+                            int current = state.get();
+                            Thread.yield();
+                            return current;
+                        });
+                        if (seen < floor || stations < floor) {
+                            staleReads.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            threads.submit(() -> {
+                for (int i = 1; i <= 2000; i++) {
+                    // écriture publiée, puis éviction de son adresse ; l'écriture est terminée au retour
+                    state.set(i);
+                    alertCache.evictAddress("1509 Culver St");
+                    published.set(i);
+                    Thread.yield();
+                }
+            }).get(30, TimeUnit.SECONDS);
+            for (Future<?> reader : readers) {
+                reader.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+
+        assertEquals(0, staleReads.get());
+    }
+
+    @Test
+    void testInvalidateAll_DuringLoadStaleValueNotKept() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch invalidated = new CountDownLatch(1);
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> stale = reader.submit(() -> alertCache.getByStation(AlertCache.Kind.PHONE_ALERT, 3, () -> {
+                loading.countDown();
+                try {
+                    invalidated.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "avant";
+            }));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            alertCache.invalidateAll();
+            invalidated.countDown();
+
+            assertEquals("avant", stale.get(5, TimeUnit.SECONDS));
+            assertEquals("après", alertCache.getByStation(AlertCache.Kind.PHONE_ALERT, 3, () -> "après"));
+        } finally {
+            reader.shutdownNow();
+        }
+    }
+}
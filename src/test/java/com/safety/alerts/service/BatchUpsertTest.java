@@ -0,0 +1,109 @@
+package com.safety.alerts.service;
+
+import com.safetynet.alerts.dto.BatchItemStatus;
+import com.safetynet.alerts.service.BatchUpsert;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BatchUpsertTest {
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private BatchUpsert batchUpsert;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        batchUpsert = new BatchUpsert(transactionManager, mock(EntityManager.class), 2);
+    }
+
+    private static List<BatchItemStatus> created(List<BatchUpsert.Item<String>> chunk) {
+        return chunk.stream().map(item -> BatchItemStatus.created(item.index(), (long) item.index())).toList();
+    }
+
+    @Test
+    void testRun_OneTransactionPerChunk() {
+        List<List<String>> chunks = new ArrayList<>();
+
+        List<BatchItemStatus> statuses = batchUpsert.run(List.of("a", "b", "c", "d", "e").iterator(), chunk -> {
+            chunks.add(chunk.stream().map(BatchUpsert.Item::value).toList());
+            return created(chunk);
+        });
+
+        assertEquals(List.of(List.of("a", "b"), List.of("c", "d"), List.of("e")), chunks);
+        assertEquals(List.of(0, 1, 2, 3, 4), statuses.stream().map(BatchItemStatus::index).toList());
+        verify(transactionManager, times(3)).commit(any());
+    }
+
+    @Test
+    void testRun_FailedChunkRolledBackOthersWritten() {
+        List<BatchItemStatus> statuses = batchUpsert.run(List.of("a", "b", "c", "d").iterator(), chunk -> {
+            if (chunk.get(0).value().equals("a")) {
+                throw new IllegalStateException("contrainte violée");
+            }
+            return created(chunk);
+        });
+
+        assertEquals(List.of(BatchItemStatus.Status.FAILED, BatchItemStatus.Status.FAILED,
+                BatchItemStatus.Status.CREATED, BatchItemStatus.Status.CREATED),
+                statuses.stream().map(BatchItemStatus::status).toList());
+        assertTrue(statuses.get(0).error().contains("contrainte violée"));
+        verify(transactionManager).rollback(any());
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void testRun_UnreadableItemStopsAfterPendingChunk() {
+        // le troisième élément est illisible : le corps n'est pas lu plus loin
+        Iterator<String> items = new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public String next() {
+                if (next == 2) {
+                    throw new NoSuchElementException("jeton inattendu");
+                }
+                return String.valueOf(next++);
+            }
+        };
+
+        List<BatchItemStatus> statuses = batchUpsert.run(items, BatchUpsertTest::created);
+
+        assertEquals(3, statuses.size());
+        assertEquals(BatchItemStatus.Status.CREATED, statuses.get(1).status());
+        assertEquals(2, statuses.get(2).index());
+        assertEquals(BatchItemStatus.Status.FAILED, statuses.get(2).status());
+        assertTrue(statuses.get(2).error().contains("jeton inattendu"));
+    }
+
+    @Test
+    void testRun_EmptyBodyOpensNoTransaction() {
+        reset(transactionManager);
+
+        assertEquals(List.of(), batchUpsert.run(List.<String>of().iterator(), BatchUpsertTest::created));
+        verifyNoInteractions(transactionManager);
+    }
+}
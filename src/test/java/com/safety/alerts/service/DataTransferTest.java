@@ -0,0 +1,128 @@
+package com.safety.alerts.service;
+
+import com.safetynet.alerts.dto.BatchItemStatus;
+import com.safetynet.alerts.dto.DataLine;
+import com.safetynet.alerts.dto.ImportReport;
+import com.safetynet.alerts.model.Firestation;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.FirestationRepository;
+import com.safetynet.alerts.repository.PersonRepository;
+import com.safetynet.alerts.service.AlertCache;
+import com.safetynet.alerts.service.BatchUpsert;
+import com.safetynet.alerts.service.DataTransfer;
+import com.safetynet.alerts.service.FirestationCoverage;
+import com.safetynet.alerts.service.FirestationService;
+import com.safetynet.alerts.service.MedicalRecordService;
+import com.safetynet.alerts.service.PersonService;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DataTransferTest {
+
+    @Mock
+    private PersonRepository personRepository;
+
+    @Mock
+    private FirestationRepository firestationRepository;
+
+    @Mock
+    private PersonService personService;
+
+    @Mock
+    private FirestationService firestationService;
+
+    @Mock
+    private MedicalRecordService medicalRecordService;
+
+    @Mock
+    private FirestationCoverage firestationCoverage;
+
+    @Mock
+    private AlertCache alertCache;
+
+    private DataTransfer dataTransfer;
+
+    @BeforeEach
+    void setUp() {
+        // paquets de trois lignes, transactions sans effet
+        dataTransfer = new DataTransfer(personRepository, firestationRepository, personService, firestationService,
+                medicalRecordService, new BatchUpsert(mock(PlatformTransactionManager.class), mock(EntityManager.class), 3), firestationCoverage,
+                alertCache, mock(EntityManager.class));
+    }
+
+    private static Person person(long id) {
+        return new Person(id, "First" + id, "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6512", "jaboyd@email.com");
+    }
+
+    @Test
+    void testForEachLine_TablesPagedByKeyset() {
+        when(personRepository.findByIdGreaterThanOrderByIdAsc(eq(Long.MIN_VALUE), any(Limit.class)))
+                .thenReturn(List.of(person(1L), person(4L)));
+        when(personRepository.findByIdGreaterThanOrderByIdAsc(eq(4L), any(Limit.class))).thenReturn(List.of());
+        when(firestationRepository.findByIdGreaterThanOrderByIdAsc(eq(Long.MIN_VALUE), any(Limit.class)))
+                .thenReturn(List.of(new Firestation(2L, "1509 Culver St", 3)));
+        when(firestationRepository.findByIdGreaterThanOrderByIdAsc(eq(2L), any(Limit.class))).thenReturn(List.of());
+        doAnswer(invocation -> {
+            invocation.<Consumer<List<MedicalRecord>>>getArgument(0).accept(List.of(
+                    new MedicalRecord(3L, "First1", "Boyd", "03/06/1984", new ArrayList<>(), new ArrayList<>())));
+            return null;
+        }).when(medicalRecordService).forEachMedicalRecordPage(any());
+
+        List<DataLine> lines = new ArrayList<>();
+        dataTransfer.forEachLine(lines::add);
+
+        assertEquals(4, lines.size());
+        assertEquals(List.of("First1", "First4"),
+                lines.subList(0, 2).stream().map(line -> line.person().getFirstName()).toList());
+        assertEquals(3, lines.get(2).firestation().getStation());
+        assertEquals(3L, lines.get(3).medicalrecord().getId());
+        verify(personRepository, never()).findAll();
+    }
+
+    @Test
+    void testImportLines_MixedChunkRoutedAndReportedInOrder() {
+        when(personService.upsertPersonChunk(anyList())).thenAnswer(invocation -> invocation
+                .<List<BatchUpsert.Item<Person>>>getArgument(0)
+                .stream().map(item -> BatchItemStatus.created(item.index(), 10L + item.index())).toList());
+        when(firestationService.upsertFirestationChunk(anyList())).thenAnswer(invocation -> invocation
+                .<List<BatchUpsert.Item<Firestation>>>getArgument(0)
+                .stream().map(item -> BatchItemStatus.updated(item.index(), 20L)).toList());
+
+        ImportReport report = dataTransfer.importLines(List.of(
+                DataLine.of(person(1L)),
+                DataLine.of(new Firestation(null, "1509 Culver St", 3)),
+                new DataLine(null, null, null),
+                DataLine.of(person(2L))).iterator());
+
+        assertEquals(2, report.created());
+        assertEquals(1, report.updated());
+        assertEquals(1, report.failed());
+        assertEquals(2, report.failures().get(0).index());
+        // deux paquets de trois lignes au plus, les dossiers absents ne sont pas écrits
+        verify(personService, times(2)).upsertPersonChunk(anyList());
+        verify(medicalRecordService, never()).upsertMedicalRecordChunk(anyList());
+        InOrder order = inOrder(firestationCoverage, alertCache);
+        order.verify(firestationCoverage).refresh();
+        order.verify(alertCache).invalidateAll();
+    }
+}
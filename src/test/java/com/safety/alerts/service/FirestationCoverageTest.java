@@ -0,0 +1,100 @@
+package com.safety.alerts.service;
+
+import com.safetynet.alerts.model.Firestation;
+import com.safetynet.alerts.repository.FirestationRepository;
+import com.safetynet.alerts.repository.MedicalRecordRepository;
+import com.safetynet.alerts.repository.PersonRepository;
+import com.safetynet.alerts.service.FirestationCoverage;
+import com.safetynet.alerts.service.ReadModel;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FirestationCoverageTest {
+
+    @Mock
+    private FirestationRepository firestationRepository;
+
+    private FirestationCoverage firestationCoverage;
+
+    private List<Firestation> firestations;
+
+    @BeforeEach
+    void setUp() {
+        firestationCoverage = new FirestationCoverage(new ReadModel(mock(PersonRepository.class),
+                mock(MedicalRecordRepository.class), firestationRepository, mock(PlatformTransactionManager.class)));
+        firestations = new ArrayList<>();
+        firestations.add(new Firestation(1L, "1509 Culver St", 3));
+        firestations.add(new Firestation(2L, "29 15th St", 2));
+        firestations.add(new Firestation(3L, "834 Binoc Ave", 3));
+        firestations.add(new Firestation(4L, "748 Townings Dr", 3));
+        firestations.add(new Firestation(5L, "748 Townings Dr", 2));
+    }
+
+    @Test
+    void testGetAddresses() {
+        when(firestationRepository.findAll()).thenReturn(firestations);
+
+        assertEquals(List.of("1509 Culver St", "834 Binoc Ave", "748 Townings Dr"),
+                new ArrayList<>(firestationCoverage.getAddresses(3)));
+        assertEquals(Set.of("29 15th St", "748 Townings Dr"), firestationCoverage.getAddresses(2));
+        assertTrue(firestationCoverage.getAddresses(9).isEmpty());
+        // la couverture n'est construite qu'une seule fois
+        verify(firestationRepository, times(1)).findAll();
+    }
+
+    @Test
+    void testGetAddresses_SeveralStations() {
+        when(firestationRepository.findAll()).thenReturn(firestations);
+
+        Set<String> addresses = firestationCoverage.getAddresses(List.of(2, 3));
+
+        assertEquals(4, addresses.size());
+        assertTrue(addresses.containsAll(Set.of("1509 Culver St", "29 15th St", "834 Binoc Ave", "748 Townings Dr")));
+    }
+
+    @Test
+    void testGetStation_FirstDeclaredWins() {
+        when(firestationRepository.findAll()).thenReturn(firestations);
+
+        assertEquals(Optional.of(3), firestationCoverage.getStation("748 Townings Dr"));
+        assertEquals(Optional.of(2), firestationCoverage.getStation("29 15th St"));
+        assertEquals(Optional.empty(), firestationCoverage.getStation("unknown"));
+        assertEquals(Optional.empty(), firestationCoverage.getStation(null));
+    }
+
+    @Test
+    void testRefresh_AfterMutation() {
+        when(firestationRepository.findAll()).thenReturn(firestations);
+        assertEquals(Optional.of(2), firestationCoverage.getStation("29 15th St"));
+
+        List<Firestation> updated = new ArrayList<>(firestations);
+        updated.set(1, new Firestation(2L, "29 15th St", 4));
+        when(firestationRepository.findAll()).thenReturn(updated);
+        firestationCoverage.refresh();
+
+        assertEquals(Optional.of(4), firestationCoverage.getStation("29 15th St"));
+        assertEquals(Set.of("748 Townings Dr"), firestationCoverage.getAddresses(2));
+        assertEquals(Set.of("29 15th St"), firestationCoverage.getAddresses(4));
+    }
+
+    @Test
+    void testRefresh_NotLoaded_DoesNothing() {
+        firestationCoverage.refresh();
+
+        verify(firestationRepository, never()).findAll();
+    }
+}
@@ -1,21 +1,33 @@
 package com.safety.alerts.service;
 
+import com.safetynet.alerts.dto.BatchItemStatus;
+import com.safetynet.alerts.dto.StationAddress;
 import com.safetynet.alerts.model.Firestation;
 import com.safetynet.alerts.repository.FirestationRepository;
+import com.safetynet.alerts.repository.MedicalRecordRepository;
+import com.safetynet.alerts.repository.PersonRepository;
+import com.safetynet.alerts.service.AlertCache;
+import com.safetynet.alerts.service.BatchUpsert;
+import com.safetynet.alerts.service.FirestationCoverage;
 import com.safetynet.alerts.service.FirestationService;
+import com.safetynet.alerts.service.ReadModel;
 
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -26,7 +38,6 @@ class FirestationServiceTest {
     @Mock
     private FirestationRepository firestationRepository;
 
-    @InjectMocks
     private FirestationService firestationService;
 
     private Firestation firestation;
@@ -40,6 +51,12 @@ class FirestationServiceTest {
 
         // 🔥 Réinitialisation des mocks avant chaque test
         Mockito.reset(firestationRepository);
+
+        // la couverture est réelle, elle s'appuie sur le repository mocké
+        ReadModel readModel = new ReadModel(mock(PersonRepository.class), mock(MedicalRecordRepository.class),
+                firestationRepository, mock(PlatformTransactionManager.class));
+        firestationService = new FirestationService(firestationRepository, new FirestationCoverage(readModel),
+                new AlertCache(readModel, 100, Duration.ofMinutes(5)), new BatchUpsert(mock(PlatformTransactionManager.class), mock(EntityManager.class), 2));
     }
 
     @Test
@@ -161,13 +178,61 @@ class FirestationServiceTest {
         when(firestationRepository.findAll()).thenReturn(Arrays.asList(firestation1, firestation2));
 
         // Appel de la méthode réelle
-        List<Map<String, Object>> result = firestationService.getPersonsCoveredByStation(1);
+        List<StationAddress> result = firestationService.getPersonsCoveredByStation(1);
 
         // Vérifications
         assertNotNull(result);
         assertEquals(1, result.size());
-        assertEquals("123 Main St", result.get(0).get("address"));
-        assertEquals(1, result.get(0).get("station"));
+        assertEquals("123 Main St", result.get(0).address());
+        assertEquals(1, result.get(0).station());
         verify(firestationRepository, times(1)).findAll();
     }
-}
\ No newline at end of file
+
+    @Test
+    void testUpsertFirestations_MatchedByAddressAndStation() {
+        when(firestationRepository.findByAddressIn(Set.of("123 Main St", "456 Elm St"))).thenReturn(List.of(firestation));
+        List<Firestation> inserted = new ArrayList<>();
+        when(firestationRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            inserted.addAll(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+
+        List<BatchItemStatus> statuses = firestationService.upsertFirestations(List.of(
+                new Firestation(null, "123 Main St", 1), new Firestation(null, "456 Elm St", 2),
+                new Firestation(null, null, 3)).iterator());
+
+        assertEquals(List.of(BatchItemStatus.updated(0, 1L), BatchItemStatus.created(1, null),
+                BatchItemStatus.failed(2, "address est requis")), statuses);
+        assertEquals(1, firestation.getStation());
+        assertEquals(List.of("456 Elm St"), inserted.stream().map(Firestation::getAddress).toList());
+    }
+
+    @Test
+    void testUpsertFirestations_DuplicateAddressKeepsBothStations() {
+        // "112 Steppes Pl" relève des stations 3 et 4 dans data.json : les deux lignes doivent survivre
+        // paquets de 2 : la troisième ligne est rapprochée de celle insérée par le premier paquet
+        Firestation existing = new Firestation(7L, "112 Steppes Pl", 3);
+        List<Firestation> inserted = new ArrayList<>();
+        when(firestationRepository.findByAddressIn(Set.of("112 Steppes Pl"))).thenAnswer(invocation -> {
+            List<Firestation> rows = new ArrayList<>(List.of(existing));
+            rows.addAll(inserted);
+            return rows;
+        });
+        when(firestationRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Firestation> saved = invocation.getArgument(0);
+            saved.forEach(firestation -> firestation.setId(100L + inserted.size()));
+            inserted.addAll(saved);
+            return saved;
+        });
+
+        List<BatchItemStatus> statuses = firestationService.upsertFirestations(List.of(
+                new Firestation(null, "112 Steppes Pl", 3), new Firestation(null, "112 Steppes Pl", 4),
+                new Firestation(null, "112 Steppes Pl", 4)).iterator());
+
+        assertEquals(List.of(BatchItemStatus.updated(0, 7L), BatchItemStatus.created(1, 100L),
+                BatchItemStatus.updated(2, 100L)), statuses);
+        assertEquals(3, existing.getStation());
+        assertEquals(1, inserted.size());
+        assertEquals(4, inserted.get(0).getStation());
+    }
+}
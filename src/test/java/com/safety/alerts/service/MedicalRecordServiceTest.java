@@ -1,20 +1,32 @@
 package com.safety.alerts.service;
 
+import com.safetynet.alerts.dto.BatchItemStatus;
 import com.safetynet.alerts.model.MedicalRecord;
 import com.safetynet.alerts.repository.MedicalRecordRepository;
+import com.safetynet.alerts.service.AlertCache;
+import com.safetynet.alerts.service.BatchUpsert;
 import com.safetynet.alerts.service.MedicalRecordService;
+import com.safetynet.alerts.service.ReadModel;
 
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -25,6 +37,19 @@ class MedicalRecordServiceTest {
     @Mock
     private MedicalRecordRepository medicalRecordRepository;
 
+    @Mock
+    private ReadModel readModel;
+
+    @Mock
+    private AlertCache alertCache;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    // paquets de deux, transactions sans effet
+    @Spy
+    private BatchUpsert batchUpsert = new BatchUpsert(mock(PlatformTransactionManager.class), mock(EntityManager.class), 2);
+
     @InjectMocks
     private MedicalRecordService medicalRecordService;
 
@@ -85,6 +110,10 @@ class MedicalRecordServiceTest {
         assertNotNull(result);
         assertEquals(1L, result.getId());
         verify(medicalRecordRepository, times(1)).save(medicalRecord);
+        // modèle de lecture republié avant de vider le cache des alertes
+        InOrder order = inOrder(readModel, alertCache);
+        order.verify(readModel).putRecords(List.of(medicalRecord));
+        order.verify(alertCache).invalidateAll();
     }
 
     @Test
@@ -94,6 +123,7 @@ class MedicalRecordServiceTest {
         medicalRecordService.deleteMedicalRecord(1L);
 
         verify(medicalRecordRepository, times(1)).deleteById(1L);
+        verify(readModel).removeRecord(1L);
     }
     
     @Test
@@ -144,4 +174,38 @@ class MedicalRecordServiceTest {
 
         verify(medicalRecordRepository, times(1)).findById(null);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testForEachMedicalRecordPage_KeysetUntilEmptyPage() {
+        MedicalRecord second = new MedicalRecord();
+        second.setId(7L);
+        when(medicalRecordRepository.findByIdGreaterThanOrderByIdAsc(eq(Long.MIN_VALUE), any(Limit.class)))
+                .thenReturn(List.of(medicalRecord, second));
+        when(medicalRecordRepository.findByIdGreaterThanOrderByIdAsc(eq(7L), any(Limit.class))).thenReturn(List.of());
+
+        List<List<MedicalRecord>> pages = new ArrayList<>();
+        medicalRecordService.forEachMedicalRecordPage(pages::add);
+
+        assertEquals(List.of(List.of(medicalRecord, second)), pages);
+        // la page suivante repart du dernier id vu
+        verify(medicalRecordRepository).findByIdGreaterThanOrderByIdAsc(eq(7L), any(Limit.class));
+        verify(medicalRecordRepository, never()).findAll();
+    }
+
+    @Test
+    void testUpsertMedicalRecords_MatchedByNameThenPublishedPerChunk() {
+        when(medicalRecordRepository.findByLastNameInAndFirstNameIn(Set.of("Doe", "Roe"), Set.of("John"))).thenReturn(List.of(medicalRecord));
+
+        List<BatchItemStatus> statuses = medicalRecordService.upsertMedicalRecords(List.of(
+                new MedicalRecord(null, "John", "Doe", "02/02/1981", List.of("aznol:350mg"), List.of()),
+                new MedicalRecord(null, "John", "Roe", "03/03/1982", List.of(), List.of("peanut"))).iterator());
+
+        assertEquals(List.of(BatchItemStatus.updated(0, 1L), BatchItemStatus.created(1, null)), statuses);
+        assertEquals("02/02/1981", medicalRecord.getBirthdate());
+        assertEquals(List.of("aznol:350mg"), medicalRecord.getMedications());
+        // le paquet est reporté dans le modèle, puis le cache est vidé une fois pour tout l'envoi
+        InOrder order = inOrder(readModel, alertCache);
+        order.verify(readModel).putRecords(argThat(records -> records.size() == 2));
+        order.verify(alertCache).invalidateAll();
+    }
+}
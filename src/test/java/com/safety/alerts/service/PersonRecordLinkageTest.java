@@ -0,0 +1,152 @@
+package com.safety.alerts.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safetynet.alerts.SafetynetAlertsApplication;
+import com.safetynet.alerts.dto.ChildAlert;
+import com.safetynet.alerts.dto.FireResident;
+import com.safetynet.alerts.dto.FloodResident;
+import com.safetynet.alerts.model.Firestation;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.FirestationRepository;
+import com.safetynet.alerts.repository.MedicalRecordRepository;
+import com.safetynet.alerts.repository.PersonRepository;
+import com.safetynet.alerts.service.AddressFanOut;
+import com.safetynet.alerts.service.AgeCalculator;
+import com.safetynet.alerts.service.AlertCache;
+import com.safetynet.alerts.service.BatchUpsert;
+import com.safetynet.alerts.service.MedicalRecordService;
+import com.safetynet.alerts.service.PersonService;
+import com.safetynet.alerts.service.ReadModel;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// L'association personne/dossier se fait par (prénom, nom), quel que soit l'ordre d'insertion des ids
+@DataJpaTest
+@ContextConfiguration(classes = SafetynetAlertsApplication.class)
+@Import({PersonService.class, ReadModel.class, AgeCalculator.class, AlertCache.class,
+        AddressFanOut.class, BatchUpsert.class, MedicalRecordService.class})
+class PersonRecordLinkageTest {
+
+    private static final String ADDRESS = "1509 Culver St";
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private MedicalRecordRepository medicalRecordRepository;
+
+    @Autowired
+    private FirestationRepository firestationRepository;
+
+    @Autowired
+    private AlertCache alertCache;
+
+    @Autowired
+    private ReadModel readModel;
+
+    @Autowired
+    private PersonService personService;
+
+    @Autowired
+    private MedicalRecordService medicalRecordService;
+
+    @BeforeEach
+    void setUp() {
+        firestationRepository.save(new Firestation(null, ADDRESS, 3));
+        // le cache est un singleton du contexte partagé : il survit au rollback du test précédent
+        alertCache.invalidateAll();
+
+        personRepository.save(new Person(null, "John", "Boyd", ADDRESS, "Culver", "97451", "841-874-6512", "jaboyd@email.com"));
+        personRepository.save(new Person(null, "Jacob", "Boyd", ADDRESS, "Culver", "97451", "841-874-6513", "drk@email.com"));
+        personRepository.save(new Person(null, "Tenley", "Boyd", ADDRESS, "Culver", "97451", "841-874-6512", "tenz@email.com"));
+
+        // dossiers insérés dans un autre ordre, et aucun dossier pour Jacob
+        medicalRecordRepository.save(record("Tenley", "02/18/2012", "peanut"));
+        medicalRecordRepository.save(record("John", "03/06/1984", "nillacilan"));
+        // comme DataLoader après l'import
+        readModel.rebuild();
+    }
+
+    private static MedicalRecord record(String firstName, String birthdate, String allergy) {
+        return new MedicalRecord(null, firstName, "Boyd", birthdate, new ArrayList<>(), new ArrayList<>(List.of(allergy)));
+    }
+
+    private static FireResident byAllergy(List<FireResident> residents, String allergy) {
+        return residents.stream()
+                .filter(r -> r.allergies().contains(allergy))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Test
+    void testFire_RecordsMatchedByName() {
+        List<FireResident> residents = personService.getPersonsAndStationByAddress(ADDRESS);
+
+        assertEquals(3, residents.size());
+        assertEquals("841-874-6512", byAllergy(residents, "nillacilan").phone());
+        assertEquals("tenz@email.com", personService.getPersonInfoByLastName("boyd").stream()
+                .filter(r -> r.allergies().contains("peanut"))
+                .findFirst().orElseThrow().email());
+        // Jacob n'a pas de dossier : valeurs vides
+        assertEquals(1, residents.stream().filter(r -> r.allergies().isEmpty()).count());
+    }
+
+    private static List<String> keys(JsonNode node) {
+        List<String> keys = new ArrayList<>();
+        Iterator<String> names = node.fieldNames();
+        names.forEachRemaining(keys::add);
+        return keys;
+    }
+
+    @Test
+    void testLinkedResponses_KeepBaselineKeyOrder() {
+        // ordre de l'ancien HashMap, personne sans dossier comprise : l'association ne change pas l'API
+        ObjectMapper objectMapper = new ObjectMapper();
+        for (JsonNode info : objectMapper.valueToTree(personService.getPersonInfoByLastName("boyd"))) {
+            assertEquals(List.of("allergies", "lastName", "address", "medications", "email", "age"), keys(info));
+        }
+        for (JsonNode resident : objectMapper.valueToTree(personService.getPersonsAndStationByAddress(ADDRESS))) {
+            assertEquals(List.of("allergies", "lastName", "stationNumber", "phone", "medications", "age"), keys(resident));
+        }
+        JsonNode households = objectMapper.valueToTree(personService.getHouseholdsByStations(List.of(3)));
+        for (JsonNode resident : households.get(ADDRESS)) {
+            assertEquals(List.of("allergies", "lastName", "phone", "medications", "age"), keys(resident));
+        }
+    }
+
+    @Test
+    void testChildAlert_RecordsMatchedByName() {
+        List<ChildAlert> children = personService.getChildrenByAddress(ADDRESS);
+
+        assertEquals(1, children.size());
+        assertEquals("Tenley", children.get(0).firstName());
+    }
+
+    @Test
+    void testLinkage_AfterCrudInsert() {
+        // ajout d'un dossier puis de la personne, comme via les contrôleurs
+        medicalRecordService.saveMedicalRecord(record("Roger", "09/06/2017", "shellfish"));
+        personService.savePerson(new Person(null, "Roger", "Boyd", ADDRESS, "Culver", "97451", "841-874-6512", "jaboyd@email.com"));
+
+        List<ChildAlert> children = personService.getChildrenByAddress(ADDRESS);
+        Map<String, List<FloodResident>> households = personService.getHouseholdsByStations(List.of(3));
+
+        assertEquals(List.of("Tenley", "Roger"), children.stream().map(ChildAlert::firstName).toList());
+        assertEquals(4, households.get(ADDRESS).size());
+        assertTrue(households.get(ADDRESS).stream().anyMatch(r -> r.allergies().contains("shellfish")));
+    }
+}
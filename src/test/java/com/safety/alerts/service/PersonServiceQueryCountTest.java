@@ -0,0 +1,259 @@
+package com.safety.alerts.service;
+
+import com.safetynet.alerts.SafetynetAlertsApplication;
+import com.safetynet.alerts.dto.BatchItemStatus;
+import com.safetynet.alerts.dto.ChildAlert;
+import com.safetynet.alerts.dto.FloodResident;
+import com.safetynet.alerts.dto.PersonInfo;
+import com.safetynet.alerts.model.Firestation;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.PersonRepository;
+import com.safetynet.alerts.service.AddressFanOut;
+import com.safetynet.alerts.service.AgeCalculator;
+import com.safetynet.alerts.service.AlertCache;
+import com.safetynet.alerts.service.BatchUpsert;
+import com.safetynet.alerts.service.PersonService;
+import com.safetynet.alerts.service.ReadModel;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Vérifie le nombre de requêtes SQL réellement émises par les alertes et le schéma qui les sert
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ContextConfiguration(classes = SafetynetAlertsApplication.class)
+@Import({PersonService.class, ReadModel.class, AgeCalculator.class, AlertCache.class,
+        AddressFanOut.class, BatchUpsert.class})
+class PersonServiceQueryCountTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PersonService personService;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private ReadModel readModel;
+
+    @Autowired
+    private AlertCache alertCache;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private void insertHouseholds(int addresses, int residentsPerAddress) {
+        for (int a = 0; a < addresses; a++) {
+            String address = a + " Flood St";
+            entityManager.persist(new Firestation(null, address, 1 + a % 3));
+            for (int r = 0; r < residentsPerAddress; r++) {
+                Person person = new Person(null, "First" + r, "Last" + a, address, "Culver", "97451",
+                        "841-874-" + a + r, "p" + a + r + "@email.com");
+                entityManager.persist(person);
+                entityManager.persist(new MedicalRecord(null, person.getFirstName(), person.getLastName(), "03/06/1984",
+                        new ArrayList<>(List.of("aznol:350mg", "hydrapermazol:100mg")), new ArrayList<>(List.of("nillacilan"))));
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        alertCache.invalidateAll();
+    }
+
+    private long countFloodQueries() {
+        statistics.clear();
+        Map<String, List<FloodResident>> households = personService.getHouseholdsByStations(List.of(1, 2, 3));
+
+        // force le chargement des collections comme le ferait la sérialisation JSON
+        households.values().forEach(residents -> residents.forEach(resident -> {
+            resident.medications().size();
+            resident.allergies().size();
+        }));
+        return statistics.getPrepareStatementCount();
+    }
+
+    private long countRebuildQueries() {
+        statistics.clear();
+        readModel.rebuild();
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    void testGetHouseholdsByStations_QueryCountIsConstant() {
+        insertHouseholds(12, 4);
+
+        // dossiers + médicaments + allergies + personnes + casernes, une fois par écriture
+        assertEquals(5, countRebuildQueries());
+        // l'alerte ne lit que le modèle et les adresses couvertes en mémoire
+        assertEquals(0, countFloodQueries());
+    }
+
+    @Test
+    void testGetHouseholdsByStations_QueryCountDoesNotGrowWithResidents() {
+        insertHouseholds(30, 6);
+
+        assertEquals(5, countRebuildQueries());
+        assertEquals(0, countFloodQueries());
+        assertEquals(30, personService.getHouseholdsByStations(List.of(1, 2, 3)).size());
+    }
+
+    @Test
+    void testGetHouseholdsByStations_CachedResponseIssuesNoQuery() {
+        insertHouseholds(12, 4);
+        readModel.rebuild();
+        countFloodQueries();
+
+        // mêmes stations dans un autre ordre : même entrée de cache
+        statistics.clear();
+        Map<String, List<FloodResident>> households = personService.getHouseholdsByStations(List.of(3, 1, 2));
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(12, households.size());
+    }
+
+    @Test
+    void testGetChildrenByAddress_NoQueryAfterRebuild() {
+        String address = "1 Child St";
+        String[][] residents = {{"Tenley", "02/18/2012"}, {"Roger", "09/06/2017"}, {"John", "03/06/1984"}};
+        entityManager.persist(new Firestation(null, address, 1));
+        for (String[] resident : residents) {
+            entityManager.persist(new Person(null, resident[0], "Boyd", address, "Culver", "97451", "841-874-6512", "jaboyd@email.com"));
+            entityManager.persist(new MedicalRecord(null, resident[0], "Boyd", resident[1], new ArrayList<>(), new ArrayList<>()));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        readModel.rebuild();
+        alertCache.invalidateAll();
+
+        statistics.clear();
+        List<ChildAlert> children = personService.getChildrenByAddress(address);
+
+        // l'âge est comparé au jour de naissance déjà calculé dans le modèle
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(List.of("Tenley", "Roger"), children.stream().map(ChildAlert::firstName).toList());
+    }
+
+    @Test
+    void testGetPersonInfoByLastName_CaseInsensitiveWithoutQuery() {
+        entityManager.persist(new Person(null, "John", "Boyd", "1 Info St", "Culver", "97451", "841-874-6512", "jaboyd@email.com"));
+        entityManager.persist(new Person(null, "Jacob", "BOYD", "1 Info St", "Culver", "97451", "841-874-6513", "drk@email.com"));
+        entityManager.persist(new Person(null, "Tony", "Cooper", "1 Info St", "Culver", "97451", "841-874-6874", "tcoop@ymail.com"));
+        entityManager.flush();
+        entityManager.clear();
+        readModel.rebuild();
+
+        statistics.clear();
+        List<PersonInfo> infos = personService.getPersonInfoByLastName("bOyD");
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(List.of("jaboyd@email.com", "drk@email.com"), infos.stream().map(PersonInfo::email).toList());
+    }
+
+    @Test
+    void testStreamCommunityEmailsByCity_KeyFollowsUpdates() {
+        Person person = new Person(null, "John", "Boyd", "1 Mail St", "Culver", "97451", "841-874-6512", "jaboyd@email.com");
+        entityManager.persist(person);
+        entityManager.flush();
+        // la clé normalisée suit le changement de ville
+        person.setCity("Springfield");
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(List.of(), communityEmails("CULVER"));
+        assertEquals(List.of("jaboyd@email.com"), communityEmails("SPRINGFIELD"));
+    }
+
+    @Test
+    void testStreamCommunityEmailsByCity_DistinctLowerCase() {
+        entityManager.persist(new Person(null, "John", "Boyd", "1 Mail St", "Culver", "97451", "841-874-6512", "jaboyd@email.com"));
+        entityManager.persist(new Person(null, "Jacob", "Boyd", "1 Mail St", "Culver", "97451", "841-874-6513", "JABoyd@email.com"));
+        entityManager.persist(new Person(null, "Tony", "Cooper", "2 Mail St", "Culver", "97451", "841-874-6874", "tcoop@ymail.com"));
+        entityManager.persist(new Person(null, "Eric", "Cadigan", "3 Mail St", "Culver", "97451", "841-874-7458", null));
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics.clear();
+        List<String> emails = communityEmails("Culver");
+
+        // une seule colonne lue, une adresse partagée par la famille n'apparaît qu'une fois
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(List.of("jaboyd@email.com", "tcoop@ymail.com"), emails);
+    }
+
+    @Test
+    void testPersonSchema_IndexesOnSearchColumns() {
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = entityManager.createNativeQuery(
+                "select i.INDEX_NAME, c.COLUMN_NAME from INFORMATION_SCHEMA.INDEXES i "
+                        + "join INFORMATION_SCHEMA.INDEX_COLUMNS c on c.INDEX_NAME = i.INDEX_NAME "
+                        + "and c.TABLE_NAME = i.TABLE_NAME where i.TABLE_NAME = 'PERSON'").getResultList();
+        Map<String, String> columnByIndex = new HashMap<>();
+        rows.forEach(row -> columnByIndex.put(((String) row[0]).toLowerCase(), ((String) row[1]).toLowerCase()));
+
+        assertEquals("last_name_key", columnByIndex.get("idx_person_last_name_key"));
+        assertEquals("city_key", columnByIndex.get("idx_person_city_key"));
+        assertEquals("address", columnByIndex.get("idx_person_address"));
+    }
+
+    private List<String> communityEmails(String city) {
+        List<String> emails = new ArrayList<>();
+        personService.streamCommunityEmailsByCity(city, stream -> stream.forEach(email -> emails.add(email.email())));
+        return emails;
+    }
+
+    private List<Person> batch(int size, String phone) {
+        List<Person> persons = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            persons.add(new Person(null, "First" + i, "Last" + i % 50, i + " Batch St", "Culver", "97451", phone,
+                    "b" + i + "@email.com"));
+        }
+        return persons;
+    }
+
+    @Test
+    void testUpsertPersons_InsertsAndUpdatesAreJdbcBatched() {
+        statistics.clear();
+        List<BatchItemStatus> created = personService.upsertPersons(batch(1000, "841-874-0001").iterator());
+        entityManager.flush();
+        long insertStatements = statistics.getPrepareStatementCount();
+        entityManager.clear();
+
+        statistics.clear();
+        List<BatchItemStatus> updated = personService.upsertPersons(batch(1000, "841-874-0002").iterator());
+        entityManager.flush();
+        long updateStatements = statistics.getPrepareStatementCount();
+        entityManager.clear();
+
+        // 1000 lignes en deux paquets : une recherche par paquet, la séquence par blocs de 100,
+        // INSERT et UPDATE envoyés par lots JDBC plutôt qu'une instruction par ligne
+        assertTrue(insertStatements < 20, () -> insertStatements + " instructions pour 1000 insertions");
+        assertTrue(updateStatements < 10, () -> updateStatements + " instructions pour 1000 modifications");
+        assertTrue(created.stream().allMatch(status -> status.status() == BatchItemStatus.Status.CREATED));
+        assertTrue(updated.stream().allMatch(status -> status.status() == BatchItemStatus.Status.UPDATED));
+        assertEquals(1000, personRepository.count());
+    }
+}
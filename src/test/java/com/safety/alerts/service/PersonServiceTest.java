@@ -1,25 +1,45 @@
 package com.safety.alerts.service;
 
+import com.safetynet.alerts.dto.BatchItemStatus;
+import com.safetynet.alerts.dto.ChildAlert;
+import com.safetynet.alerts.dto.CommunityEmail;
+import com.safetynet.alerts.dto.FireResident;
+import com.safetynet.alerts.dto.FloodResident;
+import com.safetynet.alerts.dto.PersonInfo;
+import com.safetynet.alerts.dto.PhoneAlert;
 import com.safetynet.alerts.model.Firestation;
 import com.safetynet.alerts.model.MedicalRecord;
 import com.safetynet.alerts.model.Person;
 import com.safetynet.alerts.repository.FirestationRepository;
 import com.safetynet.alerts.repository.MedicalRecordRepository;
 import com.safetynet.alerts.repository.PersonRepository;
+import com.safetynet.alerts.service.AddressFanOut;
+import com.safetynet.alerts.service.AgeCalculator;
+import com.safetynet.alerts.service.AlertCache;
+import com.safetynet.alerts.service.BatchUpsert;
 import com.safetynet.alerts.service.PersonService;
+import com.safetynet.alerts.service.ReadModel;
 
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -30,13 +50,14 @@ class PersonServiceTest {
     @Mock
     private PersonRepository personRepository;
     
-    @Mock
-    private MedicalRecordRepository medicalRecordRepository;
-    
     @Mock
     private FirestationRepository firestationRepository;
 
-    @InjectMocks
+    @Mock
+    private MedicalRecordRepository medicalRecordRepository;
+
+    private ReadModel readModel;
+
     private PersonService personService;
 
     private Person person;
@@ -51,6 +72,14 @@ class PersonServiceTest {
 
         // 🔥 Réinitialisation des mocks avant chaque test
         Mockito.reset(personRepository);
+
+        // le modèle de lecture et la couverture sont réels, ils s'appuient sur les repositories mockés
+        // le cache est réel lui aussi, les transactions sont sans effet
+        readModel = new ReadModel(personRepository, medicalRecordRepository, firestationRepository,
+                mock(PlatformTransactionManager.class));
+        personService = new PersonService(personRepository, readModel,
+                new AgeCalculator(), new AlertCache(readModel, 100, Duration.ofMinutes(5)), new AddressFanOut(1, 256),
+                new BatchUpsert(mock(PlatformTransactionManager.class), mock(EntityManager.class), 2), mock(PlatformTransactionManager.class));
     }
 
     @Test
@@ -66,6 +95,16 @@ class PersonServiceTest {
         verify(personRepository, times(1)).findAll();
     }
 
+    @Test
+    void testGetPersonsPage() {
+        when(personRepository.findByIdGreaterThanOrderByIdAsc(1L, Limit.of(10))).thenReturn(List.of(person));
+
+        assertEquals(List.of(person), personService.getPersonsPage(1L, 10));
+        // sans curseur, la page commence au plus petit id
+        personService.getPersonsPage(null, 10);
+        verify(personRepository, times(1)).findByIdGreaterThanOrderByIdAsc(Long.MIN_VALUE, Limit.of(10));
+    }
+
     @Test
     void testGetPersonById_Found() {
         when(personRepository.findById(1L)).thenReturn(Optional.of(person));
@@ -157,28 +196,32 @@ class PersonServiceTest {
         verify(personRepository, times(1)).findById(null);
     }
     
-    @Test
-    void testGetChildrenByAddress() {
-        Person child = new Person();
-        child.setId(1L);
-        child.setFirstName("John");
-        child.setLastName("Doe");
-        child.setAddress("123 Main St");
+    // contenu de la base vu par le modèle de lecture
+    private void givenData(List<Person> persons, List<MedicalRecord> records) {
+        when(personRepository.findAll(any(Sort.class))).thenReturn(persons);
+        when(medicalRecordRepository.findAll(any(Sort.class))).thenReturn(records);
+    }
 
-        MedicalRecord record = new MedicalRecord();
-        record.setBirthdate("01/01/2015"); // 10 ans
+    private static MedicalRecord record(Long id, String firstName, String lastName, String birthdate) {
+        return new MedicalRecord(id, firstName, lastName, birthdate, new ArrayList<>(List.of("aznol:350mg")),
+                new ArrayList<>(List.of("nillacilan")));
+    }
 
-        when(personRepository.findAll()).thenReturn(List.of(child));
-        when(medicalRecordRepository.findById(1L)).thenReturn(Optional.of(record));
+    @Test
+    void testGetChildrenByAddress() {
+        Person child = new Person(1L, "John", "Doe", "123 Main St", "Culver", "97451", "841-874-0001", "j@email.com");
+        Person adult = new Person(2L, "Jane", "Doe", "123 Main St", "Culver", "97451", "841-874-0002", "d@email.com");
+        Person noRecord = new Person(3L, "Jack", "Doe", "123 Main St", "Culver", "97451", "841-874-0003", "k@email.com");
+        givenData(List.of(child, adult, noRecord),
+                List.of(record(1L, "John", "Doe", "01/01/2015"), record(2L, "Jane", "Doe", "01/01/1990")));
 
-        List<Map<String, Object>> result = personService.getChildrenByAddress("123 Main St");
+        List<ChildAlert> result = personService.getChildrenByAddress("123 Main St");
 
-        assertNotNull(result);
+        // seul John a un dossier d'enfant ; sans dossier, Jack n'est pas compté
         assertEquals(1, result.size());
-        assertEquals("John", result.get(0).get("firstName"));
-        assertEquals("Doe", result.get(0).get("lastName"));
-        verify(personRepository, times(1)).findAll();
-        verify(medicalRecordRepository, times(1)).findById(1L);
+        assertEquals("John", result.get(0).firstName());
+        assertEquals("Doe", result.get(0).lastName());
+        verify(personRepository, never()).findAll();
     }
     
     @Test
@@ -188,19 +231,20 @@ class PersonServiceTest {
         firestation.setStation(1);
 
         Person person = new Person();
+        person.setId(1L);
         person.setPhone("123-456-7890");
         person.setAddress("123 Main St");
 
         when(firestationRepository.findAll()).thenReturn(List.of(firestation));
-        when(personRepository.findAll()).thenReturn(List.of(person));
+        givenData(List.of(person), List.of());
 
-        List<Map<String, Object>> result = personService.getPhoneNumbersByStation(1);
+        List<PhoneAlert> result = personService.getPhoneNumbersByStation(1);
 
         assertNotNull(result);
         assertEquals(1, result.size());
-        assertEquals("123-456-7890", result.get(0).get("phone"));
+        assertEquals("123-456-7890", result.get(0).phone());
         verify(firestationRepository, times(1)).findAll();
-        verify(personRepository, times(1)).findAll();
+        verify(personRepository, times(1)).findAll(any(Sort.class));
     }
     
     @Test
@@ -209,31 +253,20 @@ class PersonServiceTest {
         firestation.setAddress("123 Main St");
         firestation.setStation(1);
 
-        Person person = new Person();
-        person.setId(1L);
-        person.setLastName("Doe");
-        person.setPhone("123-456-7890");
-        person.setAddress("123 Main St");
-
-        MedicalRecord record = new MedicalRecord();
-        record.setBirthdate("01/01/1990"); // 34 ans
-        record.setMedications(List.of("aznol:350mg"));
-        record.setAllergies(List.of("nillacilan"));
+        Person person = new Person(1L, "John", "Doe", "123 Main St", "Culver", "97451", "123-456-7890", "j@email.com");
 
         when(firestationRepository.findAll()).thenReturn(List.of(firestation));
-        when(personRepository.findAll()).thenReturn(List.of(person));
-        when(medicalRecordRepository.findById(1L)).thenReturn(Optional.of(record));
+        givenData(List.of(person), List.of(record(1L, "John", "Doe", "01/01/1990")));
 
-        List<Map<String, Object>> result = personService.getPersonsAndStationByAddress("123 Main St");
+        List<FireResident> result = personService.getPersonsAndStationByAddress("123 Main St");
 
         assertNotNull(result);
         assertEquals(1, result.size());
-        assertEquals("Doe", result.get(0).get("lastName"));
-        assertEquals("123-456-7890", result.get(0).get("phone"));
-        assertEquals(1, result.get(0).get("stationNumber"));
+        assertEquals("Doe", result.get(0).lastName());
+        assertEquals("123-456-7890", result.get(0).phone());
+        assertEquals(1, result.get(0).stationNumber());
+        assertEquals(List.of("aznol:350mg"), result.get(0).medications());
         verify(firestationRepository, times(1)).findAll();
-        verify(personRepository, times(1)).findAll();
-        verify(medicalRecordRepository, times(1)).findById(1L);
     }
     
     @Test
@@ -242,77 +275,127 @@ class PersonServiceTest {
         firestation.setAddress("123 Main St");
         firestation.setStation(1);
 
-        Person person = new Person();
-        person.setId(1L);
-        person.setLastName("Doe");
-        person.setPhone("123-456-7890");
-        person.setAddress("123 Main St");
-
-        MedicalRecord record = new MedicalRecord();
-        record.setBirthdate("01/01/1990");
-        record.setMedications(List.of("aznol:350mg"));
-        record.setAllergies(List.of("nillacilan"));
+        Person person = new Person(1L, "John", "Doe", "123 Main St", "Culver", "97451", "123-456-7890", "j@email.com");
 
         when(firestationRepository.findAll()).thenReturn(List.of(firestation));
-        when(personRepository.findAll()).thenReturn(List.of(person));
-        when(medicalRecordRepository.findById(1L)).thenReturn(Optional.of(record));
+        givenData(List.of(person), List.of(record(1L, "John", "Doe", "01/01/1990")));
 
-        Map<String, List<Map<String, Object>>> result = personService.getHouseholdsByStations(List.of(1));
+        Map<String, List<FloodResident>> result = personService.getHouseholdsByStations(List.of(1));
 
         assertNotNull(result);
         assertEquals(1, result.size());
         assertTrue(result.containsKey("123 Main St"));
-        assertEquals("Doe", result.get("123 Main St").get(0).get("lastName"));
+        assertEquals("Doe", result.get("123 Main St").get(0).lastName());
+        assertEquals(List.of("aznol:350mg"), result.get("123 Main St").get(0).medications());
         verify(firestationRepository, times(1)).findAll();
-        verify(personRepository, times(1)).findAll();
-        verify(medicalRecordRepository, times(1)).findById(1L);
+        // le modèle de lecture est construit une fois, une seconde requête ne lit plus la base
+        personService.getHouseholdsByStations(List.of(1, 1));
+        verify(personRepository, times(1)).findAll(any(Sort.class));
+        verify(personRepository, never()).findAll();
+    }
+
+    @Test
+    void testGetHouseholdsByStations_ChunksMerged() {
+        // une adresse par paquet, traités en parallèle sur le même instantané
+        PersonService chunked = new PersonService(personRepository, readModel, new AgeCalculator(),
+                new AlertCache(readModel, 100, Duration.ofMinutes(5)), new AddressFanOut(2, 1),
+                new BatchUpsert(mock(PlatformTransactionManager.class), mock(EntityManager.class), 2), mock(PlatformTransactionManager.class));
+        when(firestationRepository.findAll()).thenReturn(List.of(new Firestation(null, "1 Main St", 1),
+                new Firestation(null, "2 Main St", 2)));
+        givenData(List.of(new Person(1L, "John", "Doe", "1 Main St", "Culver", "97451", "841-874-0001", "j@email.com"),
+                new Person(2L, "Jane", "Roe", "2 Main St", "Culver", "97451", "841-874-0002", "r@email.com")), List.of());
+
+        Map<String, List<FloodResident>> result = chunked.getHouseholdsByStations(List.of(1, 2));
+
+        assertEquals(Set.of("1 Main St", "2 Main St"), result.keySet());
+        assertEquals("Doe", result.get("1 Main St").get(0).lastName());
+        assertEquals("Roe", result.get("2 Main St").get(0).lastName());
     }
     
     @Test
     void testGetPersonInfoByLastName() {
-        Person person = new Person();
-        person.setId(1L);
-        person.setFirstName("John");
-        person.setLastName("Doe");
-        person.setAddress("123 Main St");
-        person.setEmail("john.doe@example.com");
+        Person person = new Person(1L, "John", "Doe", "123 Main St", "Culver", "97451", "841-874-0001",
+                "john.doe@example.com");
+        Person other = new Person(2L, "Tony", "Cooper", "123 Main St", "Culver", "97451", "841-874-0002", "t@email.com");
+        givenData(List.of(person, other), List.of(record(1L, "John", "Doe", "01/01/1990")));
 
-        MedicalRecord record = new MedicalRecord();
-        record.setBirthdate("01/01/1990");
-        record.setMedications(List.of("aznol:350mg"));
-        record.setAllergies(List.of("nillacilan"));
-
-        when(personRepository.findAll()).thenReturn(List.of(person));
-        when(medicalRecordRepository.findById(1L)).thenReturn(Optional.of(record));
-
-        List<Map<String, Object>> result = personService.getPersonInfoByLastName("Doe");
+        // nom comparé sans tenir compte de la casse
+        List<PersonInfo> result = personService.getPersonInfoByLastName("DOE");
 
         assertNotNull(result);
         assertEquals(1, result.size());
-        assertEquals("Doe", result.get(0).get("lastName"));
-        assertEquals("123 Main St", result.get(0).get("address"));
-        assertEquals("john.doe@example.com", result.get(0).get("email"));
-        verify(personRepository, times(1)).findAll();
-        verify(medicalRecordRepository, times(1)).findById(1L);
+        assertEquals("Doe", result.get(0).lastName());
+        assertEquals("123 Main St", result.get(0).address());
+        assertEquals("john.doe@example.com", result.get(0).email());
+        assertEquals(List.of("nillacilan"), result.get(0).allergies());
+    }
+
+    @Test
+    void testSavePerson_RefreshesReadModel() {
+        Person moved = new Person(1L, "John", "Doe", "2 Main St", "Culver", "97451", "841-874-0001", "j@email.com");
+        List<Person> table = new ArrayList<>(List.of(
+                new Person(1L, "John", "Doe", "1 Main St", "Culver", "97451", "841-874-0001", "j@email.com")));
+        when(personRepository.findAll(any(Sort.class))).thenAnswer(invocation -> List.copyOf(table));
+        when(personRepository.save(moved)).thenAnswer(invocation -> {
+            table.set(0, moved);
+            return moved;
+        });
+        assertEquals(1, readModel.current().residentsAt("1 Main St").size());
+
+        personService.savePerson(moved);
+
+        // le nouvel instantané est publié dès le retour de l'écriture
+        assertTrue(readModel.current().residentsAt("1 Main St").isEmpty());
+        assertEquals("2 Main St", readModel.current().addressOf(1L));
     }
     
     @Test
-    void testGetCommunityEmailsByCity() {
-        Person person = new Person();
-        person.setId(1L);
-        person.setFirstName("John");
-        person.setLastName("Doe");
-        person.setAddress("123 Main St");
-        person.setCity("Springfield");
-        person.setEmail("john.doe@example.com");
+    void testStreamCommunityEmailsByCity() {
+        Stream<String> emails = Stream.of("john.doe@example.com", "jane.doe@example.com");
+        when(personRepository.streamEmailsByCityKey("springfield")).thenReturn(emails);
 
-        when(personRepository.findAll()).thenReturn(List.of(person));
+        List<CommunityEmail> result = new ArrayList<>();
+        personService.streamCommunityEmailsByCity("Springfield", stream -> stream.forEach(result::add));
 
-        List<Map<String, Object>> result = personService.getCommunityEmailsByCity("Springfield");
+        assertEquals(List.of(new CommunityEmail("john.doe@example.com"), new CommunityEmail("jane.doe@example.com")), result);
+        verify(personRepository, never()).findAll();
+    }
 
-        assertNotNull(result);
-        assertEquals(1, result.size());
-        assertEquals("john.doe@example.com", result.get(0).get("email"));
-        verify(personRepository, times(1)).findAll();
+    @Test
+    void testStreamAllPersons_StreamClosedAfterUse() {
+        AtomicBoolean closed = new AtomicBoolean();
+        when(personRepository.streamAll()).thenReturn(Stream.of(person).onClose(() -> closed.set(true)));
+
+        List<Person> result = new ArrayList<>();
+        personService.streamAllPersons(stream -> stream.forEach(result::add));
+
+        assertEquals(List.of(person), result);
+        // le curseur est libéré à la fin du parcours
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void testUpsertPersons_MatchedByNameInChunks() {
+        Person existing = new Person(1L, "John", "Doe", "1 Main St", "Culver", "97451", "841-874-0001", "j@email.com");
+        when(personRepository.findByLastNameKeyIn(Set.of("doe"))).thenReturn(List.of(existing));
+        List<Person> inserted = new ArrayList<>();
+        when(personRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            inserted.addAll(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+
+        List<BatchItemStatus> statuses = personService.upsertPersons(List.of(
+                new Person(null, "John", "Doe", "2 Main St", "Culver", "97451", "841-874-0009", "j@email.com"),
+                new Person(null, "Jane", "Doe", "2 Main St", "Culver", "97451", "841-874-0002", "d@email.com"),
+                new Person(null, null, "Doe", "2 Main St", "Culver", "97451", null, null)).iterator());
+
+        assertEquals(List.of(BatchItemStatus.updated(0, 1L), BatchItemStatus.created(1, null),
+                BatchItemStatus.failed(2, "firstName et lastName sont requis")), statuses);
+        // la ligne existante est modifiée sur place, seule la nouvelle personne est insérée
+        assertEquals("2 Main St", existing.getAddress());
+        assertEquals("841-874-0009", existing.getPhone());
+        assertEquals(List.of("Jane"), inserted.stream().map(Person::getFirstName).toList());
+        // un appel par paquet de deux
+        verify(personRepository, times(2)).saveAll(anyList());
     }
-}
\ No newline at end of file
+}
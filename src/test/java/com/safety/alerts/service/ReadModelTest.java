@@ -0,0 +1,228 @@
+package com.safety.alerts.service;
+
+import com.safetynet.alerts.dto.FloodResident;
+import com.safetynet.alerts.model.Firestation;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.FirestationRepository;
+import com.safetynet.alerts.repository.MedicalRecordRepository;
+import com.safetynet.alerts.repository.PersonRepository;
+import com.safetynet.alerts.service.AddressFanOut;
+import com.safetynet.alerts.service.AgeCalculator;
+import com.safetynet.alerts.service.AlertCache;
+import com.safetynet.alerts.service.BatchUpsert;
+import com.safetynet.alerts.service.PersonService;
+import com.safetynet.alerts.service.ReadModel;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReadModelTest {
+
+    @Mock
+    private PersonRepository personRepository;
+
+    @Mock
+    private MedicalRecordRepository medicalRecordRepository;
+
+    @Mock
+    private FirestationRepository firestationRepository;
+
+    private ReadModel readModel;
+
+    @BeforeEach
+    void setUp() {
+        readModel = new ReadModel(personRepository, medicalRecordRepository, firestationRepository,
+                mock(PlatformTransactionManager.class));
+    }
+
+    private static MedicalRecord record(Long id, String firstName, String allergy) {
+        return new MedicalRecord(id, firstName, "Boyd", "03/06/1984", new ArrayList<>(), new ArrayList<>(List.of(allergy)));
+    }
+
+    @Test
+    void testCurrent_RecordsLinkedByName() {
+        when(personRepository.findAll(any(Sort.class))).thenReturn(List.of(
+                new Person(1L, "John", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6512", "jaboyd@email.com"),
+                new Person(2L, "Jacob", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6513", "drk@email.com")));
+        // deux dossiers pour John : le premier par id est retenu
+        when(medicalRecordRepository.findAll(any(Sort.class))).thenReturn(List.of(
+                record(1L, "John", "nillacilan"), record(2L, "John", "peanut")));
+
+        List<ReadModel.Resident> residents = readModel.current().residentsAt("1509 Culver St");
+
+        assertEquals(2, residents.size());
+        assertTrue(residents.get(0).hasRecord());
+        assertEquals(List.of("nillacilan"), residents.get(0).allergies());
+        // Jacob n'a pas de dossier : valeurs vides
+        assertFalse(residents.get(1).hasRecord());
+        assertNull(residents.get(1).birthdateEpochDay());
+        assertEquals(List.of(), residents.get(1).medications());
+    }
+
+    @Test
+    void testCurrent_BuiltOnceAndImmutable() {
+        when(personRepository.findAll(any(Sort.class))).thenReturn(List.of(
+                new Person(1L, "John", "Boyd", "1509 Culver St", "Culver", "97451", "841-874-6512", "jaboyd@email.com")));
+        when(medicalRecordRepository.findAll(any(Sort.class))).thenReturn(List.of(record(1L, "John", "nillacilan")));
+
+        ReadModel.Snapshot snapshot = readModel.current();
+
+        assertSame(snapshot, readModel.current());
+        assertEquals(1, snapshot.residentsNamed("BOYD").size());
+        assertEquals("1509 Culver St", snapshot.addressOf(1L));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.residentsAt("1509 Culver St").clear());
+        assertThrows(UnsupportedOperationException.class,
+                () -> snapshot.residentsAt("1509 Culver St").get(0).allergies().add("peanut"));
+        verify(personRepository, times(1)).findAll(any(Sort.class));
+    }
+
+    @Test
+    void testPutPersons_SkippedBeforeFirstBuild() {
+        readModel.putPersons(List.of(
+                new Person(1L, "John", "Boyd", "1 Main St", "Culver", "97451", "841-874-6512", "jaboyd@email.com")));
+        readModel.removePerson(1L);
+
+        verifyNoInteractions(personRepository, medicalRecordRepository);
+    }
+
+    @Test
+    void testPutPersons_DeltaPublishedWithoutReload() {
+        when(personRepository.findAll(any(Sort.class))).thenReturn(List.of(
+                new Person(2L, "John", "Boyd", "1 Main St", "Culver", "97451", "841-874-6512", "jaboyd@email.com")));
+        when(medicalRecordRepository.findAll(any(Sort.class))).thenReturn(List.of(record(1L, "Jacob", "peanut")));
+        ReadModel.Snapshot before = readModel.current();
+
+        // Jacob arrive avant John dans l'ordre des ids, John déménage
+        readModel.putPersons(List.of(
+                new Person(1L, "Jacob", "Boyd", "1 Main St", "Culver", "97451", "841-874-6513", "drk@email.com"),
+                new Person(2L, "John", "Boyd", "2 Main St", "Culver", "97451", "841-874-6512", "jaboyd@email.com")));
+
+        // l'ancien instantané reste inchangé pour les lectures en cours
+        assertEquals(List.of(2L), before.residentsAt("1 Main St").stream().map(ReadModel.Resident::id).toList());
+        ReadModel.Snapshot after = readModel.current();
+        assertEquals(List.of(1L), after.residentsAt("1 Main St").stream().map(ReadModel.Resident::id).toList());
+        assertEquals(List.of("peanut"), after.residentsAt("1 Main St").get(0).allergies());
+        assertEquals("2 Main St", after.addressOf(2L));
+        assertEquals(List.of(1L, 2L), after.residentsNamed("boyd").stream().map(ReadModel.Resident::id).toList());
+
+        readModel.removePerson(1L);
+
+        assertTrue(readModel.current().residentsAt("1 Main St").isEmpty());
+        assertNull(readModel.current().addressOf(1L));
+        // aucune relecture de la base après la construction
+        verify(personRepository, times(1)).findAll(any(Sort.class));
+        verify(medicalRecordRepository, times(1)).findAll(any(Sort.class));
+    }
+
+    @Test
+    void testPutRecords_ResidentsRelinkedByName() {
+        when(personRepository.findAll(any(Sort.class))).thenReturn(List.of(
+                new Person(1L, "John", "Boyd", "1 Main St", "Culver", "97451", "841-874-6512", "jaboyd@email.com"),
+                new Person(2L, "Jacob", "Boyd", "1 Main St", "Culver", "97451", "841-874-6513", "drk@email.com")));
+        when(medicalRecordRepository.findAll(any(Sort.class))).thenReturn(List.of(
+                record(5L, "John", "nillacilan"), record(6L, "John", "peanut")));
+        readModel.current();
+
+        // le premier dossier de John passe à Jacob : John retombe sur son second dossier
+        readModel.putRecords(List.of(record(5L, "Jacob", "shellfish")));
+
+        List<ReadModel.Resident> residents = readModel.current().residentsAt("1 Main St");
+        assertEquals(List.of("peanut"), residents.get(0).allergies());
+        assertEquals(List.of("shellfish"), residents.get(1).allergies());
+
+        readModel.removeRecord(6L);
+        readModel.removeRecord(5L);
+
+        assertTrue(readModel.current().residentsAt("1 Main St").stream().noneMatch(ReadModel.Resident::hasRecord));
+        assertEquals(List.of(), readModel.current().residentsNamed("Boyd").get(0).allergies());
+    }
+
+    // Un habitant déménage sans cesse entre deux adresses couvertes pendant que des lecteurs demandent l'alerte flood :
+    // chaque réponse doit le compter exactement une fois, jamais zéro ni deux
+    @Test
+    void testConcurrentWritesAndReads_FloodSeesConsistentSnapshots() throws InterruptedException {
+        when(firestationRepository.findAll()).thenReturn(List.of(new Firestation(1L, "1 Main St", 1),
+                new Firestation(2L, "2 Main St", 1)));
+        // cache désactivé : chaque lecture recalcule l'alerte ; un paquet par adresse, traités en parallèle
+        AddressFanOut fanOut = new AddressFanOut(2, 1);
+        PersonService personService = new PersonService(personRepository, readModel, new AgeCalculator(),
+                new AlertCache(readModel, 0, Duration.ofMinutes(5)), fanOut,
+                new BatchUpsert(mock(PlatformTransactionManager.class), mock(EntityManager.class), 500), mock(PlatformTransactionManager.class));
+
+        // table des personnes simulée : chaque save remplace la ligne sous verrou, comme une transaction validée
+        List<Person> table = new ArrayList<>(List.of(
+                new Person(1L, "John", "Boyd", "1 Main St", "Culver", "97451", "841-874-6512", "jaboyd@email.com"),
+                new Person(2L, "Jacob", "Boyd", "2 Main St", "Culver", "97451", "841-874-6513", "drk@email.com")));
+        when(personRepository.findAll(any(Sort.class))).thenAnswer(invocation -> {
+            synchronized (table) {
+                return List.copyOf(table);
+            }
+        });
+        when(personRepository.save(any(Person.class))).thenAnswer(invocation -> {
+            Person saved = invocation.getArgument(0);
+            synchronized (table) {
+                table.set(0, saved);
+            }
+            return saved;
+        });
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<>();
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 200; i++) {
+                String address = i % 2 == 0 ? "2 Main St" : "1 Main St";
+                personService.savePerson(new Person(1L, "John", "Boyd", address, "Culver", "97451", "841-874-6512",
+                        "jaboyd@email.com"));
+            }
+            running.set(false);
+        });
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 4; r++) {
+            readers.add(new Thread(() -> {
+                while (running.get()) {
+                    Map<String, List<FloodResident>> households = personService.getHouseholdsByStations(List.of(1));
+                    int total = households.values().stream().mapToInt(List::size).sum();
+                    if (total != 2) {
+                        failures.add(households.toString());
+                    }
+                }
+            }));
+        }
+
+        try {
+            readers.forEach(Thread::start);
+            writer.start();
+            writer.join(30_000);
+            for (Thread reader : readers) {
+                reader.join(30_000);
+            }
+        } finally {
+            running.set(false);
+            fanOut.shutdown();
+        }
+
+        assertFalse(writer.isAlive());
+        assertTrue(failures.isEmpty(), () -> "Réponses incohérentes : " + failures);
+        // la dernière écriture est visible dès le retour de savePerson
+        assertEquals("1 Main St", readModel.current().addressOf(1L));
+    }
+}